@@ -34,6 +34,7 @@ import net.luckperms.api.messenger.MessengerProvider;
 import net.luckperms.api.metastacking.MetaStackDefinition;
 import net.luckperms.api.metastacking.MetaStackElement;
 import net.luckperms.api.metastacking.MetaStackFactory;
+import net.luckperms.api.metrics.Metrics;
 import net.luckperms.api.model.group.Group;
 import net.luckperms.api.model.group.GroupManager;
 import net.luckperms.api.model.user.User;
@@ -207,6 +208,15 @@ public interface LuckPerms {
      */
     @NonNull MetaStackFactory getMetaStackFactory();
 
+    /**
+     * Gets the {@link Metrics}, which provides read-only access to the
+     * runtime metrics recorded by the plugin.
+     *
+     * @return the metrics
+     * @since 5.3
+     */
+    @NonNull Metrics getMetrics();
+
     /**
      * Schedules the execution of an update task, and returns an encapsulation
      * of the task as a {@link CompletableFuture}.
@@ -0,0 +1,130 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package net.luckperms.api.metrics;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the value of a single metric.
+ *
+ * @since 5.3
+ */
+public interface Metric {
+
+    /**
+     * Gets the name of the metric.
+     *
+     * @return the name
+     */
+    @NonNull String getName();
+
+    /**
+     * Gets the type of the metric.
+     *
+     * @return the type
+     */
+    @NonNull Type getType();
+
+    /**
+     * Gets the name of the label which distinguishes this metric from
+     * others with the same name, if any.
+     *
+     * @return the label name, or null
+     */
+    @Nullable String getLabelName();
+
+    /**
+     * Gets the value of the label which distinguishes this metric from
+     * others with the same name, if any.
+     *
+     * @return the label value, or null
+     */
+    @Nullable String getLabelValue();
+
+    /**
+     * Gets the number of times the metric has been recorded.
+     *
+     * <p>For counters and gauges, this is the current value. For timers,
+     * this is the number of recorded durations.</p>
+     *
+     * @return the count
+     */
+    long getCount();
+
+    /**
+     * Gets the sum of all recorded durations.
+     *
+     * <p>Always returns {@link Duration#ZERO} for counters and gauges.</p>
+     *
+     * @return the total time
+     */
+    @NonNull Duration getTotalTime();
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * <p>Always returns {@link Duration#ZERO} for counters and gauges.</p>
+     *
+     * @return the maximum time
+     */
+    @NonNull Duration getMaxTime();
+
+    /**
+     * Estimates the duration which the given fraction of recorded durations
+     * were shorter than.
+     *
+     * <p>Always returns {@link Duration#ZERO} for counters and gauges.</p>
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the estimated duration
+     */
+    @NonNull Duration getPercentile(double quantile);
+
+    /**
+     * The type of a metric.
+     */
+    enum Type {
+
+        /**
+         * A count of events
+         */
+        COUNTER,
+
+        /**
+         * A value which can go up and down
+         */
+        GAUGE,
+
+        /**
+         * A count of events, along with the time each one took
+         */
+        TIMER
+    }
+
+}
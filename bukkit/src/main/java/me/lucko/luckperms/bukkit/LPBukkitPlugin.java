@@ -42,6 +42,7 @@ import me.lucko.luckperms.bukkit.listeners.BukkitAutoOpListener;
 import me.lucko.luckperms.bukkit.listeners.BukkitCommandListUpdater;
 import me.lucko.luckperms.bukkit.listeners.BukkitConnectionListener;
 import me.lucko.luckperms.bukkit.listeners.BukkitPlatformListener;
+import me.lucko.luckperms.bukkit.listeners.BukkitSubscriptionMapUpdater;
 import me.lucko.luckperms.bukkit.messaging.BukkitMessagingFactory;
 import me.lucko.luckperms.bukkit.util.PluginManagerUtil;
 import me.lucko.luckperms.bukkit.vault.VaultHookManager;
@@ -287,6 +288,9 @@ public class LPBukkitPlugin extends AbstractLuckPermsPlugin {
             getApiProvider().getEventBus().subscribe(new BukkitCommandListUpdater(this));
         }
 
+        // keep the permission subscription index up to date
+        getApiProvider().getEventBus().subscribe(new BukkitSubscriptionMapUpdater(this));
+
         // Load any online users (in the case of a reload)
         for (Player player : this.bootstrap.getServer().getOnlinePlayers()) {
             this.bootstrap.getScheduler().executeAsync(() -> {
@@ -297,6 +301,10 @@ public class LPBukkitPlugin extends AbstractLuckPermsPlugin {
                             try {
                                 LuckPermsPermissible lpPermissible = new LuckPermsPermissible(player, user, this);
                                 PermissibleInjector.inject(player, lpPermissible, getLogger());
+
+                                if (this.subscriptionMap != null) {
+                                    this.subscriptionMap.refresh(player);
+                                }
                             } catch (Throwable t) {
                                 getLogger().severe("Exception thrown when setting up permissions for " +
                                         player.getUniqueId() + " - " + player.getName(), t);
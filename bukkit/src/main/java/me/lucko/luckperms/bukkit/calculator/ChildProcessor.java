@@ -26,54 +26,24 @@
 package me.lucko.luckperms.bukkit.calculator;
 
 import me.lucko.luckperms.bukkit.LPBukkitPlugin;
-import me.lucko.luckperms.common.calculator.processor.AbstractPermissionProcessor;
-import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.calculator.processor.AbstractChildProcessor;
+import me.lucko.luckperms.common.calculator.processor.ChildPermissionResults;
 import me.lucko.luckperms.common.calculator.result.TristateResult;
 
-import net.luckperms.api.util.Tristate;
-
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
-
 /**
  * Permission Processor for Bukkits "child" permission system.
  */
-public class ChildProcessor extends AbstractPermissionProcessor implements PermissionProcessor {
-    private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(ChildProcessor.class);
+public class ChildProcessor extends AbstractChildProcessor {
+    public static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(ChildProcessor.class);
 
     private final LPBukkitPlugin plugin;
-    private final AtomicBoolean needsRefresh = new AtomicBoolean(false);
-    private Map<String, TristateResult> childPermissions = Collections.emptyMap();
 
     public ChildProcessor(LPBukkitPlugin plugin) {
         this.plugin = plugin;
     }
 
     @Override
-    public TristateResult hasPermission(String permission) {
-        if (this.needsRefresh.compareAndSet(true, false)) {
-            refresh();
-        }
-        return this.childPermissions.getOrDefault(permission, TristateResult.UNDEFINED);
-    }
-
-    @Override
-    public void refresh() {
-        Map<String, TristateResult> childPermissions = new HashMap<>();
-        this.sourceMap.forEach((key, value) -> {
-            Map<String, Boolean> children = this.plugin.getPermissionMap().getChildPermissions(key, value);
-            children.forEach((childKey, childValue) -> {
-                childPermissions.put(childKey, RESULT_FACTORY.result(Tristate.of(childValue), "parent: " + key));
-            });
-        });
-        this.childPermissions = childPermissions;
-        this.needsRefresh.set(false);
-    }
-
-    @Override
-    public void invalidate() {
-        this.needsRefresh.set(true);
+    protected ChildPermissionResults getChildPermissionResults() {
+        return this.plugin.getPermissionMap().getChildPermissionResults();
     }
 }
@@ -145,7 +145,9 @@ public class BukkitPlayerCalculator implements ContextCalculator<Player>, Listen
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onGameModeChange(PlayerGameModeChangeEvent e) {
         if (this.gamemode) {
-            this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
+            // the new gamemode isn't applied until after the event has been called
+            Player player = e.getPlayer();
+            this.plugin.getBootstrap().getScheduler().executeSync(() -> this.plugin.getContextManager().signalContextUpdate(player));
         }
     }
 }
@@ -31,12 +31,17 @@ import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.bukkit.LPBukkitPlugin;
 import me.lucko.luckperms.bukkit.calculator.DefaultsProcessor;
 import me.lucko.luckperms.bukkit.calculator.OpProcessor;
+import me.lucko.luckperms.bukkit.inject.server.LuckPermsSubscriptionMap;
 import me.lucko.luckperms.common.calculator.result.TristateResult;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.context.QueryOptionsCache;
+import me.lucko.luckperms.common.event.EventDispatcher;
 import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.nodemap.MutateResult;
+import me.lucko.luckperms.common.model.nodemap.NodeMap;
 import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
 
+import net.luckperms.api.model.data.DataType;
 import net.luckperms.api.query.QueryOptions;
 import net.luckperms.api.util.Tristate;
 
@@ -55,9 +60,12 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 /**
  * PermissibleBase for LuckPerms.
@@ -108,6 +116,11 @@ public class LuckPermsPermissible extends PermissibleBase {
     // this collection is only modified by the attachments themselves
     final Set<LuckPermsPermissionAttachment> hookedAttachments = ConcurrentHashMap.newKeySet();
 
+    // changes to the user's transient data queued by the hooked attachments.
+    // these are applied together, before the user's cached data is next read or on the next tick
+    private final Queue<AttachmentChange> pendingAttachmentChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean attachmentChangesScheduled = new AtomicBoolean(false);
+
     public LuckPermsPermissible(Player player, User user, LPBukkitPlugin plugin) {
         super(player);
         this.user = Objects.requireNonNull(user, "user");
@@ -194,6 +207,68 @@ public class LuckPermsPermissible extends PermissibleBase {
         return result.result().asBoolean();
     }
 
+    /**
+     * Queues a change to the user's transient data on behalf of an attachment.
+     *
+     * <p>Changes queued within the same tick are applied to the user in a
+     * single pass, so the user's cached data is only recalculated once.
+     * Pending changes are flushed before the user's cached data is read, so
+     * they are visible to all readers straight away.</p>
+     *
+     * @param change the change
+     * @param clear if the change removes nodes, and should be reported with a
+     *              clear event instead of add/remove events
+     */
+    void queueAttachmentChange(Function<NodeMap, MutateResult> change, boolean clear) {
+        this.pendingAttachmentChanges.add(new AttachmentChange(change, clear));
+
+        if (!this.plugin.getLoader().isEnabled()) {
+            // tasks can't be scheduled whilst the plugin is disabling
+            applyAttachmentChanges();
+        } else if (this.attachmentChangesScheduled.compareAndSet(false, true)) {
+            this.plugin.getBootstrap().getScheduler().executeSync(() -> {
+                this.attachmentChangesScheduled.set(false);
+                applyAttachmentChanges();
+            });
+        }
+    }
+
+    /**
+     * Applies any changes queued by attachments to the user.
+     */
+    void applyAttachmentChanges() {
+        if (this.pendingAttachmentChanges.isEmpty()) {
+            return;
+        }
+
+        synchronized (this.pendingAttachmentChanges) {
+            MutateResult added = new MutateResult();
+            MutateResult cleared = new MutateResult();
+            this.user.mutateNodes(DataType.TRANSIENT, data -> {
+                AttachmentChange change;
+                while ((change = this.pendingAttachmentChanges.poll()) != null) {
+                    (change.clear ? cleared : added).mergeFrom(change.function.apply(data));
+                }
+                return new MutateResult().mergeFrom(added).mergeFrom(cleared);
+            });
+
+            // call the same events as applying each change individually would have
+            EventDispatcher eventDispatcher = this.plugin.getEventDispatcher();
+            eventDispatcher.dispatchNodeChanges(this.user, DataType.TRANSIENT, added);
+            eventDispatcher.dispatchNodeClear(this.user, DataType.TRANSIENT, cleared);
+        }
+    }
+
+    private static final class AttachmentChange {
+        private final Function<NodeMap, MutateResult> function;
+        private final boolean clear;
+
+        AttachmentChange(Function<NodeMap, MutateResult> function, boolean clear) {
+            this.function = function;
+            this.clear = clear;
+        }
+    }
+
     /**
      * Adds attachments to this permissible.
      *
@@ -297,6 +372,12 @@ public class LuckPermsPermissible extends PermissibleBase {
         // (#invalidate is a fast call)
         if (this.queryOptionsSupplier != null) { // this method is called by the super class constructor, before this class has fully initialised
             this.queryOptionsSupplier.invalidate();
+
+            // op status also affects which permissions the player is subscribed to
+            LuckPermsSubscriptionMap subscriptionMap = this.plugin.getSubscriptionMap();
+            if (subscriptionMap != null) {
+                subscriptionMap.refresh(this.player);
+            }
         }
 
         // but we don't need to do anything else in this method, unlike the CB impl.
@@ -29,10 +29,12 @@ import com.google.common.base.Preconditions;
 
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.nodemap.MutateResult;
 import me.lucko.luckperms.common.node.factory.NodeBuilders;
 
-import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeBuilder;
+import net.luckperms.api.node.NodeEqualityPredicate;
 import net.luckperms.api.node.metadata.NodeMetadataKey;
 import net.luckperms.api.query.Flag;
 import net.luckperms.api.query.QueryOptions;
@@ -193,9 +195,16 @@ public class LuckPermsPermissionAttachment extends PermissionAttachment {
             node.withContext(this.permissible.getPlugin().getContextManager().getStaticContext());
         }
 
-        // set the transient node
-        User user = this.permissible.getUser();
-        user.setNode(DataType.TRANSIENT, node.build(), true);
+        // queue the transient node to be set
+        Node built = node.build();
+        this.permissible.queueAttachmentChange(data -> {
+            for (Node other : data.nodesInContext(built.getContexts())) {
+                if (NodeEqualityPredicate.IGNORE_EXPIRY_TIME.areEqual(built, other)) {
+                    return new MutateResult();
+                }
+            }
+            return data.add(built);
+        }, false);
     }
 
     private void unsetPermissionInternal(String name) {
@@ -204,14 +213,12 @@ public class LuckPermsPermissionAttachment extends PermissionAttachment {
         }
 
         // remove transient permissions from the holder which were added by this attachment & equal the permission
-        User user = this.permissible.getUser();
-        user.removeIf(DataType.TRANSIENT, null, n -> n.getMetadata(TRANSIENT_SOURCE_KEY).orElse(null) == this && n.getKey().equals(name), false);
+        this.permissible.queueAttachmentChange(data -> data.removeIf(n -> n.getMetadata(TRANSIENT_SOURCE_KEY).orElse(null) == this && n.getKey().equals(name)), true);
     }
 
     private void clearInternal() {
         // remove all transient permissions added by this attachment
-        User user = this.permissible.getUser();
-        user.removeIf(DataType.TRANSIENT, null, n -> n.getMetadata(TRANSIENT_SOURCE_KEY).orElse(null) == this, false);
+        this.permissible.queueAttachmentChange(data -> data.removeIf(n -> n.getMetadata(TRANSIENT_SOURCE_KEY).orElse(null) == this), true);
     }
 
     @Override
@@ -119,6 +119,7 @@ public final class PermissibleInjector {
         // Setup the new permissible
         newPermissible.getActive().set(true);
         newPermissible.setOldPermissible(oldPermissible);
+        newPermissible.getUser().getCachedData().setPendingChangesFlusher(newPermissible::applyAttachmentChanges);
 
         // inject the new instance
         HUMAN_ENTITY_PERMISSIBLE_FIELD.set(player, newPermissible);
@@ -143,6 +144,10 @@ public final class PermissibleInjector {
             // clear all permissions
             lpPermissible.clearPermissions();
 
+            // apply any queued attachment changes, then stop flushing through this permissible
+            lpPermissible.applyAttachmentChanges();
+            lpPermissible.getUser().getCachedData().setPendingChangesFlusher(null);
+
             // set to inactive
             lpPermissible.getActive().set(false);
 
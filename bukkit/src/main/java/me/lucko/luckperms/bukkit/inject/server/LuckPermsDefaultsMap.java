@@ -98,6 +98,9 @@ public final class LuckPermsDefaultsMap implements Map<Boolean, Set<Permission>>
         getCache(op).invalidate();
         this.plugin.getUserManager().invalidateAllPermissionCalculators();
         this.plugin.getGroupManager().invalidateAllPermissionCalculators();
+        if (this.plugin.getSubscriptionMap() != null) {
+            this.plugin.getSubscriptionMap().invalidate();
+        }
     }
 
     /**
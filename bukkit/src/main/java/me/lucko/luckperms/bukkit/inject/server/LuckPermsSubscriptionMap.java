@@ -25,7 +25,10 @@
 
 package me.lucko.luckperms.bukkit.inject.server;
 
+import com.github.benmanes.caffeine.cache.Cache;
+
 import me.lucko.luckperms.bukkit.LPBukkitPlugin;
+import me.lucko.luckperms.common.util.CaffeineFactory;
 
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.Permissible;
@@ -39,6 +42,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A replacement map for the 'permSubs' instance in Bukkit's SimplePluginManager.
@@ -60,6 +65,14 @@ import java.util.WeakHashMap;
  *
  * This class implements option 2 above. It is preferred because it is faster & uses less memory
  *
+ * The online players subscribed to a permission are computed the first time the
+ * permission is queried, and then kept up to date incrementally as each player's
+ * permissions change (see {@link #refresh(Player)}), so that subsequent queries don't
+ * need to check every online player.
+ *
+ * Only recently queried permissions are kept in the index, so that refreshing a
+ * player doesn't get slower as more distinct permissions are queried over time.
+ *
  * Injected by {@link InjectorSubscriptionMap}.
  */
 public final class LuckPermsSubscriptionMap implements Map<String, Map<Permissible, Boolean>> {
@@ -69,6 +82,13 @@ public final class LuckPermsSubscriptionMap implements Map<String, Map<Permissib
 
     private final Map<Permissible, Set<String>> subscriptions = Collections.synchronizedMap(new WeakHashMap<>());
 
+    // an index of permission --> the online players currently subscribed to it,
+    // populated lazily for each permission as it is queried
+    private final Cache<String, Set<Player>> playerSubscribers = CaffeineFactory.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
     public LuckPermsSubscriptionMap(LPBukkitPlugin plugin, Map<String, Map<Permissible, Boolean>> existingData) {
         this.plugin = plugin;
         for (Entry<String, Map<Permissible, Boolean>> entry : existingData.entrySet()) {
@@ -112,8 +132,8 @@ public final class LuckPermsSubscriptionMap implements Map<String, Map<Permissib
     }
 
     public @NonNull Set<Permissible> subscribers(String permission) {
-        Collection<? extends Player> onlinePlayers = this.plugin.getBootstrap().getServer().getOnlinePlayers();
-        Set<Permissible> set = new HashSet<>(onlinePlayers.size() + this.subscriptions.size());
+        Set<Player> players = this.playerSubscribers.get(permission, this::computePlayerSubscribers);
+        Set<Permissible> set = new HashSet<>(players.size() + this.subscriptions.size());
 
         // add permissibles from the subscriptions map
         this.subscriptions.forEach((permissible, perms) -> {
@@ -123,15 +143,65 @@ public final class LuckPermsSubscriptionMap implements Map<String, Map<Permissib
         });
 
         // add any online players who meet requirements
-        for (Player player : onlinePlayers) {
-            if (player.hasPermission(permission) || player.isPermissionSet(permission)) {
+        set.addAll(players);
+
+        return set;
+    }
+
+    private Set<Player> computePlayerSubscribers(String permission) {
+        Set<Player> set = ConcurrentHashMap.newKeySet();
+        for (Player player : this.plugin.getBootstrap().getServer().getOnlinePlayers()) {
+            if (isSubscribed(player, permission)) {
                 set.add(player);
             }
         }
-
         return set;
     }
 
+    private static boolean isSubscribed(Player player, String permission) {
+        return player.hasPermission(permission) || player.isPermissionSet(permission);
+    }
+
+    /**
+     * Re-evaluates the subscriptions of the given player against each of
+     * the indexed permissions.
+     *
+     * <p>Should be called whenever the player's permissions may have changed.</p>
+     *
+     * @param player the player
+     */
+    public void refresh(Player player) {
+        this.playerSubscribers.asMap().forEach((permission, players) -> {
+            if (isSubscribed(player, permission)) {
+                players.add(player);
+            } else {
+                players.remove(player);
+            }
+        });
+    }
+
+    /**
+     * Removes the given player from the index.
+     *
+     * @param player the player
+     */
+    public void remove(Player player) {
+        for (Set<Player> players : this.playerSubscribers.asMap().values()) {
+            players.remove(player);
+        }
+    }
+
+    /**
+     * Clears the index, so the subscribers of each permission are computed
+     * again from scratch when next queried.
+     *
+     * <p>Should be called following changes which may affect the permissions
+     * of many players at once.</p>
+     */
+    public void invalidate() {
+        this.playerSubscribers.invalidateAll();
+    }
+
     /**
      * Converts this map back to a standard HashMap
      *
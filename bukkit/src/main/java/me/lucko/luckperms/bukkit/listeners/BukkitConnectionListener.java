@@ -231,6 +231,11 @@ public class BukkitConnectionListener extends AbstractConnectionListener impleme
             }
         }
 
+        // the player may have been added to the subscription index when their contexts were first calculated
+        if (e.getResult() != PlayerLoginEvent.Result.ALLOWED && this.plugin.getSubscriptionMap() != null) {
+            this.plugin.getSubscriptionMap().remove(e.getPlayer());
+        }
+
         PermissibleInjector.checkInjected(e.getPlayer(), this.plugin.getLogger());
     }
 
@@ -251,6 +256,11 @@ public class BukkitConnectionListener extends AbstractConnectionListener impleme
                         player.getUniqueId() + " - " + player.getName(), ex);
             }
 
+            // Remove from the permission subscription index
+            if (this.plugin.getSubscriptionMap() != null) {
+                this.plugin.getSubscriptionMap().remove(player);
+            }
+
             // Handle auto op
             if (this.plugin.getConfiguration().get(ConfigKeys.AUTO_OP)) {
                 player.setOp(false);
@@ -0,0 +1,82 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.benchmark;
+
+import me.lucko.luckperms.common.context.contextset.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The environment shared by the benchmarks, wrapping a {@link BenchmarkPlugin}.
+ */
+public final class BenchmarkEnvironment {
+
+    private final BenchmarkPlugin plugin;
+
+    public BenchmarkEnvironment() {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * Creates a new environment, with some boolean config options set to
+     * something other than their default value.
+     *
+     * @param booleanOptions the config options to override, keyed by path
+     */
+    public BenchmarkEnvironment(Map<String, Boolean> booleanOptions) {
+        this.plugin = new BenchmarkPlugin(booleanOptions);
+    }
+
+    public LuckPermsPlugin getPlugin() {
+        return this.plugin;
+    }
+
+    public StandardGroupManager getGroupManager() {
+        return this.plugin.getGroupManager();
+    }
+
+    /**
+     * Creates query options for the given server and world.
+     *
+     * @param server the server
+     * @param world the world
+     * @return the query options
+     */
+    public static QueryOptions queryOptions(String server, String world) {
+        return QueryOptionsImpl.DEFAULT_CONTEXTUAL.toBuilder()
+                .context(new ImmutableContextSetImpl.BuilderImpl()
+                        .add("server", server)
+                        .add("world", world)
+                        .build())
+                .build();
+    }
+}
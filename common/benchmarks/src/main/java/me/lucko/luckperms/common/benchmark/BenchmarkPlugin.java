@@ -0,0 +1,593 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.benchmark;
+
+import me.lucko.luckperms.common.actionlog.LogDispatcher;
+import me.lucko.luckperms.common.api.LuckPermsApiProvider;
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.command.CommandManager;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.config.generic.adapter.ConfigurationAdapter;
+import me.lucko.luckperms.common.context.ContextManager;
+import me.lucko.luckperms.common.context.QueryOptionsSupplier;
+import me.lucko.luckperms.common.dependencies.DependencyManager;
+import me.lucko.luckperms.common.event.AbstractEventBus;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.extension.SimpleExtensionManager;
+import me.lucko.luckperms.common.http.BytebinClient;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.inheritance.InheritanceIndex;
+import me.lucko.luckperms.common.locale.TranslationManager;
+import me.lucko.luckperms.common.locale.TranslationRepository;
+import me.lucko.luckperms.common.messaging.InternalMessagingService;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
+import me.lucko.luckperms.common.model.ExpiryIndex;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.model.manager.track.TrackManager;
+import me.lucko.luckperms.common.model.manager.user.UserManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.classpath.ClassPathAppender;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+import me.lucko.luckperms.common.plugin.util.AbstractConnectionListener;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher;
+import me.lucko.luckperms.common.tasks.SyncTask;
+import me.lucko.luckperms.common.treeview.PermissionRegistry;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
+
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.platform.Platform;
+import net.luckperms.api.query.QueryOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A {@link LuckPermsPlugin} for benchmarks, with just enough of the plugin
+ * wired up to load holders and resolve their cached data.
+ *
+ * <p>The parts of the plugin which would normally be provided by a platform
+ * are replaced with plain stubs, so they cost no more than a method call on
+ * the hot paths. Everything else throws {@link UnsupportedOperationException}.</p>
+ */
+final class BenchmarkPlugin implements LuckPermsPlugin {
+    private final LuckPermsBootstrap bootstrap;
+    private final LuckPermsConfiguration configuration;
+    private final ContextManager<?, ?> contextManager;
+    private final EventDispatcher eventDispatcher;
+    private final VerboseHandler verboseHandler;
+    private final PermissionRegistry permissionRegistry;
+    private final MetricsRegistry metrics;
+    private final StandardGroupManager groupManager;
+    private final InheritanceGraphFactory inheritanceGraphFactory;
+    private final InheritanceIndex inheritanceIndex;
+    private final ExpiryIndex<PermissionHolder> expiryIndex;
+    private final CalculatorFactory calculatorFactory;
+
+    BenchmarkPlugin(Map<String, Boolean> booleanOptions) {
+        this.bootstrap = new BenchmarkBootstrap();
+        this.metrics = new MetricsRegistry();
+        this.contextManager = new StaticContextManager(this);
+        this.eventDispatcher = new EventDispatcher(new NoopEventBus(this));
+        this.verboseHandler = new VerboseHandler(this.bootstrap.getScheduler());
+        this.permissionRegistry = new NoopPermissionRegistry(this.bootstrap.getScheduler());
+        this.configuration = new LuckPermsConfiguration(this, new DefaultsConfigurationAdapter(this, booleanOptions));
+        this.groupManager = new StandardGroupManager(this);
+        this.inheritanceGraphFactory = new InheritanceGraphFactory(this);
+        this.inheritanceIndex = new InheritanceIndex();
+        this.expiryIndex = new ExpiryIndex<>();
+        this.calculatorFactory = new StandardCalculatorFactory(this);
+    }
+
+    @Override
+    public LuckPermsBootstrap getBootstrap() {
+        return this.bootstrap;
+    }
+
+    @Override
+    public UserManager<? extends User> getUserManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public StandardGroupManager getGroupManager() {
+        return this.groupManager;
+    }
+
+    @Override
+    public TrackManager<? extends Track> getTrackManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public LuckPermsConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
+    @Override
+    public Storage getStorage() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<InternalMessagingService> getMessagingService() {
+        return Optional.empty();
+    }
+
+    @Override
+    public void setMessagingService(InternalMessagingService service) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PluginLogger getLogger() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public EventDispatcher getEventDispatcher() {
+        return this.eventDispatcher;
+    }
+
+    @Override
+    public LuckPermsApiProvider getApiProvider() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SimpleExtensionManager getExtensionManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CommandManager getCommandManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AbstractConnectionListener getConnectionListener() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public TranslationManager getTranslationManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public TranslationRepository getTranslationRepository() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DependencyManager getDependencyManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ContextManager<?, ?> getContextManager() {
+        return this.contextManager;
+    }
+
+    @Override
+    public InheritanceGraphFactory getInheritanceGraphFactory() {
+        return this.inheritanceGraphFactory;
+    }
+
+    @Override
+    public InheritanceIndex getInheritanceIndex() {
+        return this.inheritanceIndex;
+    }
+
+    @Override
+    public ExpiryIndex<PermissionHolder> getExpiryIndex() {
+        return this.expiryIndex;
+    }
+
+    @Override
+    public CalculatorFactory getCalculatorFactory() {
+        return this.calculatorFactory;
+    }
+
+    @Override
+    public VerboseHandler getVerboseHandler() {
+        return this.verboseHandler;
+    }
+
+    @Override
+    public PermissionRegistry getPermissionRegistry() {
+        return this.permissionRegistry;
+    }
+
+    @Override
+    public MetricsRegistry getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public LogDispatcher getLogDispatcher() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<FileWatcher> getFileWatcher() {
+        return Optional.empty();
+    }
+
+    @Override
+    public BytebinClient getBytebin() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<QueryOptions> getQueryOptionsForUser(User user) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<UUID> lookupUniqueId(String username) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> lookupUsername(UUID uniqueId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean testUsernameValidity(String username) {
+        return true;
+    }
+
+    @Override
+    public Stream<Sender> getOnlineSenders() {
+        return Stream.empty();
+    }
+
+    @Override
+    public Sender getConsoleSender() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SyncTask.Buffer getSyncTaskBuffer() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * A bootstrap with a temporary data directory and no players.
+     */
+    private static final class BenchmarkBootstrap implements LuckPermsBootstrap {
+        private final SchedulerAdapter scheduler = new NoopScheduler();
+        private final Path dataDirectory = createDataDirectory();
+        private final Instant startupTime = Instant.now();
+
+        private static Path createDataDirectory() {
+            try {
+                Path directory = Files.createTempDirectory("luckperms-benchmark");
+                directory.toFile().deleteOnExit();
+                return directory;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public PluginLogger getPluginLogger() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SchedulerAdapter getScheduler() {
+            return this.scheduler;
+        }
+
+        @Override
+        public ClassPathAppender getClassPathAppender() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CountDownLatch getLoadLatch() {
+            return new CountDownLatch(0);
+        }
+
+        @Override
+        public CountDownLatch getEnableLatch() {
+            return new CountDownLatch(0);
+        }
+
+        @Override
+        public String getVersion() {
+            return "benchmark";
+        }
+
+        @Override
+        public Instant getStartupTime() {
+            return this.startupTime;
+        }
+
+        @Override
+        public Platform.Type getType() {
+            return Platform.Type.BUKKIT;
+        }
+
+        @Override
+        public String getServerBrand() {
+            return "benchmark";
+        }
+
+        @Override
+        public String getServerVersion() {
+            return "benchmark";
+        }
+
+        @Override
+        public Path getDataDirectory() {
+            return this.dataDirectory;
+        }
+
+        @Override
+        public Optional<?> getPlayer(UUID uniqueId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<UUID> lookupUniqueId(String username) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<String> lookupUsername(UUID uniqueId) {
+            return Optional.empty();
+        }
+
+        @Override
+        public int getPlayerCount() {
+            return 0;
+        }
+
+        @Override
+        public Collection<String> getPlayerList() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<UUID> getOnlinePlayers() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isPlayerOnline(UUID uniqueId) {
+            return false;
+        }
+    }
+
+    /**
+     * A scheduler which runs one-off tasks straight away, and never runs
+     * delayed or repeating tasks.
+     */
+    private static final class NoopScheduler implements SchedulerAdapter {
+        private static final Executor DIRECT = Runnable::run;
+        private static final SchedulerTask NOOP_TASK = () -> {};
+
+        @Override
+        public Executor async() {
+            return DIRECT;
+        }
+
+        @Override
+        public Executor sync() {
+            return DIRECT;
+        }
+
+        @Override
+        public SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit) {
+            return NOOP_TASK;
+        }
+
+        @Override
+        public SchedulerTask asyncRepeating(Runnable task, long interval, TimeUnit unit) {
+            return NOOP_TASK;
+        }
+
+        @Override
+        public void shutdownScheduler() {
+
+        }
+
+        @Override
+        public void shutdownExecutor() {
+
+        }
+    }
+
+    /**
+     * A {@link ContextManager} with no calculators, which always returns the
+     * default static query options.
+     */
+    private static final class StaticContextManager extends ContextManager<Object, Object> {
+        StaticContextManager(LuckPermsPlugin plugin) {
+            super(plugin, Object.class, Object.class);
+        }
+
+        @Override
+        public QueryOptions getStaticQueryOptions() {
+            return QueryOptionsImpl.DEFAULT_CONTEXTUAL;
+        }
+
+        @Override
+        public UUID getUniqueId(Object player) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public QueryOptionsSupplier getCacheFor(Object subject) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public QueryOptions formQueryOptions(Object subject, ImmutableContextSet contextSet) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void invalidateCache(Object subject) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * An event bus with no subscribers, so the dispatcher never posts events.
+     */
+    private static final class NoopEventBus extends AbstractEventBus<Object> {
+        NoopEventBus(LuckPermsPlugin plugin) {
+            super(plugin, null);
+        }
+
+        @Override
+        protected Object checkPlugin(Object plugin) throws IllegalArgumentException {
+            throw new IllegalArgumentException("Subscriptions are not supported");
+        }
+    }
+
+    /**
+     * A {@link PermissionRegistry} which discards offered permissions, as
+     * the scheduler never runs the task which would drain them.
+     */
+    private static final class NoopPermissionRegistry extends PermissionRegistry {
+        NoopPermissionRegistry(SchedulerAdapter scheduler) {
+            super(scheduler);
+        }
+
+        @Override
+        public void offer(String permission) {
+
+        }
+    }
+
+    /**
+     * A {@link CalculatorFactory} with the processors shared by all platforms.
+     */
+    private static final class StandardCalculatorFactory implements CalculatorFactory {
+        private final LuckPermsPlugin plugin;
+
+        StandardCalculatorFactory(LuckPermsPlugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @Override
+        public PermissionCalculator build(QueryOptions queryOptions, CacheMetadata metadata) {
+            List<PermissionProcessor> processors = new ArrayList<>(3);
+            processors.add(new DirectProcessor());
+            processors.add(new RegexProcessor());
+            processors.add(new WildcardProcessor());
+            return new PermissionCalculator(this.plugin, metadata, processors);
+        }
+    }
+
+    /**
+     * A {@link ConfigurationAdapter} which returns the default value of every option,
+     * apart from any boolean options which have been overridden.
+     */
+    private static final class DefaultsConfigurationAdapter implements ConfigurationAdapter {
+        private final LuckPermsPlugin plugin;
+        private final Map<String, Boolean> booleanOptions;
+
+        DefaultsConfigurationAdapter(LuckPermsPlugin plugin, Map<String, Boolean> booleanOptions) {
+            this.plugin = plugin;
+            this.booleanOptions = booleanOptions;
+        }
+
+        @Override
+        public LuckPermsPlugin getPlugin() {
+            return this.plugin;
+        }
+
+        @Override
+        public void reload() {
+
+        }
+
+        @Override
+        public String getString(String path, String def) {
+            return def;
+        }
+
+        @Override
+        public int getInteger(String path, int def) {
+            return def;
+        }
+
+        @Override
+        public boolean getBoolean(String path, boolean def) {
+            return this.booleanOptions.getOrDefault(path, def);
+        }
+
+        @Override
+        public List<String> getStringList(String path, List<String> def) {
+            return def;
+        }
+
+        @Override
+        public List<String> getKeys(String path, List<String> def) {
+            return def;
+        }
+
+        @Override
+        public Map<String, String> getStringMap(String path, Map<String, String> def) {
+            return def;
+        }
+    }
+}
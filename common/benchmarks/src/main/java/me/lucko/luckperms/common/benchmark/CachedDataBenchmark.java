@@ -0,0 +1,114 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.benchmark;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.User;
+
+import net.luckperms.api.cacheddata.CachedMetaData;
+import net.luckperms.api.cacheddata.CachedPermissionData;
+import net.luckperms.api.query.QueryOptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks recalculating the cached data of a user who inherits from
+ * deep group ladders, as happens after their data (or one of their groups) changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CachedDataBenchmark {
+
+    /** the total number of groups */
+    @Param({"1000", "5000"})
+    public int groupCount;
+
+    /** the number of ranks in each group ladder */
+    @Param({"5", "25"})
+    public int ladderDepth;
+
+    /** the number of nodes held by each group */
+    @Param({"50"})
+    public int nodesPerGroup;
+
+    private BenchmarkEnvironment environment;
+    private User user;
+    private QueryOptions queryOptions;
+
+    @Setup
+    public void setup() {
+        this.environment = new BenchmarkEnvironment();
+        SyntheticData data = new SyntheticData(42);
+
+        List<Group> ladders = data.groups(this.environment, this.groupCount, this.ladderDepth, this.nodesPerGroup);
+        this.user = data.user(this.environment, ladders, 20);
+        this.queryOptions = BenchmarkEnvironment.queryOptions("survival", "world");
+    }
+
+    /**
+     * Recalculates the users permission data. The inheritance order is memoised between invocations.
+     */
+    @Benchmark
+    public CachedPermissionData recalculatePermissions() {
+        return this.user.getCachedData().permissionData().calculate(this.queryOptions);
+    }
+
+    /**
+     * Recalculates the users meta data. The inheritance order is memoised between invocations.
+     */
+    @Benchmark
+    public CachedMetaData recalculateMeta() {
+        return this.user.getCachedData().metaData().calculate(this.queryOptions);
+    }
+
+    /**
+     * Recalculates the users permission data after a group change, which also requires
+     * the inheritance graph to be traversed again.
+     */
+    @Benchmark
+    public CachedPermissionData recalculatePermissionsAfterGroupChange() {
+        this.environment.getPlugin().getInheritanceGraphFactory().invalidate();
+        return this.user.getCachedData().permissionData().calculate(this.queryOptions);
+    }
+
+}
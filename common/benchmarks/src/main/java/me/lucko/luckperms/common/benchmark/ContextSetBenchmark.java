@@ -0,0 +1,120 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.benchmark;
+
+import me.lucko.luckperms.common.context.contextset.ImmutableContextSetImpl;
+
+import net.luckperms.api.context.ImmutableContextSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks constructing and hashing {@link ImmutableContextSet}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextSetBenchmark {
+    private static final int SET_COUNT = 1 << 8;
+    private static final String[] KEYS = {"server", "world", "gamemode", "dimension-type", "proxy", "region", "team", "rank"};
+
+    /** the number of contexts in each set */
+    @Param({"1", "3", "8"})
+    public int size;
+
+    private String[][] contexts;
+    private ImmutableContextSet[] sets;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+
+        this.contexts = new String[SET_COUNT][];
+        this.sets = new ImmutableContextSet[SET_COUNT];
+        for (int i = 0; i < SET_COUNT; i++) {
+            String[] pairs = new String[this.size * 2];
+            for (int j = 0; j < this.size; j++) {
+                pairs[j * 2] = KEYS[j];
+                pairs[j * 2 + 1] = "value" + random.nextInt(10);
+            }
+            this.contexts[i] = pairs;
+            this.sets[i] = build(pairs);
+        }
+    }
+
+    private static ImmutableContextSet build(String[] pairs) {
+        ImmutableContextSetImpl.BuilderImpl builder = new ImmutableContextSetImpl.BuilderImpl();
+        for (int i = 0; i < pairs.length; i += 2) {
+            builder.add(pairs[i], pairs[i + 1]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public ImmutableContextSet construct() {
+        return build(this.contexts[this.index++ & (SET_COUNT - 1)]);
+    }
+
+    /**
+     * Constructs a set and computes its hash code, as happens when it is used as a cache key.
+     */
+    @Benchmark
+    public int constructAndHash() {
+        return build(this.contexts[this.index++ & (SET_COUNT - 1)]).hashCode();
+    }
+
+    /**
+     * Compares a freshly constructed set against an equal, pre-existing one.
+     */
+    @Benchmark
+    public boolean constructAndEquals() {
+        int i = this.index++ & (SET_COUNT - 1);
+        return build(this.contexts[i]).equals(this.sets[i]);
+    }
+
+    @Benchmark
+    public ImmutableContextSet intern() {
+        return ImmutableContextSetImpl.intern(build(this.contexts[this.index++ & (SET_COUNT - 1)]));
+    }
+
+}
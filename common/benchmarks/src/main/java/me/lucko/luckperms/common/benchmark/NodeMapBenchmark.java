@@ -0,0 +1,109 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.benchmark;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.nodemap.MutateResult;
+import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
+
+import net.luckperms.api.node.Node;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks adding, removing and reading nodes from a {@link NodeMapMutable},
+ * with and without the copy-on-write mode enabled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeMapBenchmark {
+    private static final int CHANGE_COUNT = 1 << 8;
+
+    /** the number of nodes already in the map */
+    @Param({"100", "1000", "10000"})
+    public int nodeCount;
+
+    /** the value of the copy-on-write-node-maps option */
+    @Param({"false", "true"})
+    public boolean copyOnWrite;
+
+    private NodeMapMutable map;
+    private Node[] changes;
+    private int index;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment environment = new BenchmarkEnvironment(Collections.singletonMap("copy-on-write-node-maps", this.copyOnWrite));
+        SyntheticData data = new SyntheticData(42);
+
+        Group group = environment.getGroupManager().getOrMake("benchmark");
+        this.map = new NodeMapMutable(group);
+        this.map.addAll(data.nodes(this.nodeCount));
+
+        List<Node> changes = data.nodes(CHANGE_COUNT);
+        this.changes = changes.toArray(new Node[0]);
+    }
+
+    /**
+     * Adds a node, then removes it again, leaving the map as it was.
+     */
+    @Benchmark
+    public void addThenRemove(Blackhole blackhole) {
+        Node node = this.changes[this.index++ & (CHANGE_COUNT - 1)];
+        MutateResult added = this.map.add(node);
+        MutateResult removed = this.map.remove(node);
+        blackhole.consume(added);
+        blackhole.consume(removed);
+    }
+
+    /**
+     * Iterates over every node in the map.
+     */
+    @Benchmark
+    public void forEach(Blackhole blackhole) {
+        this.map.forEach(blackhole::consume);
+    }
+
+}
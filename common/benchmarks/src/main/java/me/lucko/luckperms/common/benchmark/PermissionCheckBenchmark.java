@@ -0,0 +1,104 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.benchmark;
+
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.calculator.result.TristateResult;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
+import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
+
+import net.luckperms.api.query.QueryOptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link PermissionCache#checkPermission} against a flattened permission map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionCheckBenchmark {
+    private static final int QUERY_COUNT = 1 << 12;
+
+    /** the number of permissions in the source map */
+    @Param({"500", "5000", "50000"})
+    public int permissionCount;
+
+    private PermissionCache cache;
+    private String[] queries;
+    private int index;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment environment = new BenchmarkEnvironment();
+        SyntheticData data = new SyntheticData(42);
+
+        QueryOptions queryOptions = BenchmarkEnvironment.queryOptions("survival", "world");
+        CacheMetadata metadata = new CacheMetadata(HolderType.USER, VerboseCheckTarget.internal("benchmark"), queryOptions);
+
+        this.cache = new PermissionCache(queryOptions, metadata, environment.getPlugin().getCalculatorFactory(), new ConcurrentHashMap<>(data.permissionMap(this.permissionCount)), 0);
+        this.queries = data.queries(QUERY_COUNT);
+    }
+
+    private String nextQuery() {
+        return this.queries[this.index++ & (QUERY_COUNT - 1)];
+    }
+
+    /**
+     * A check which (after warmup) is answered by the calculators lookup cache.
+     */
+    @Benchmark
+    public TristateResult checkCached() {
+        return this.cache.checkPermission(nextQuery(), PermissionCheckEvent.Origin.PLATFORM_PERMISSION_CHECK);
+    }
+
+    /**
+     * A check which bypasses the lookup cache, and is resolved by the permission processors.
+     */
+    @Benchmark
+    public TristateResult checkUncached() {
+        return this.cache.getCalculator().apply(nextQuery());
+    }
+
+}
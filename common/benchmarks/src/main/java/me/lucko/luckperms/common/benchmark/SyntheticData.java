@@ -0,0 +1,260 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.benchmark;
+
+import me.lucko.luckperms.common.context.contextset.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Meta;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.node.types.Prefix;
+import me.lucko.luckperms.common.node.types.Suffix;
+import me.lucko.luckperms.common.node.types.Weight;
+
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates synthetic (but realistically shaped) permission data.
+ *
+ * <p>All generation is driven by a seeded {@link Random}, so the same
+ * parameters always produce the same data set.</p>
+ */
+public final class SyntheticData {
+
+    public static final String[] SERVERS = {"lobby", "survival", "creative", "skyblock", "factions", "minigames"};
+    public static final String[] WORLDS = {"world", "world_nether", "world_the_end", "spawn", "arena"};
+
+    private static final String[] FEATURES = {"command", "chat", "build", "warp", "kit", "home", "shop", "admin", "mod", "bypass"};
+    private static final String[] ACTIONS = {"use", "list", "create", "delete", "edit", "others", "reload", "info", "give", "take", "set", "unset"};
+    private static final int PLUGINS = 250;
+
+    private final Random random;
+
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public Random getRandom() {
+        return this.random;
+    }
+
+    /**
+     * Generates a random permission string, e.g. "plugin42.warp.create".
+     *
+     * @return the permission
+     */
+    public String permission() {
+        return "plugin" + this.random.nextInt(PLUGINS) + "." +
+                FEATURES[this.random.nextInt(FEATURES.length)] + "." +
+                ACTIONS[this.random.nextInt(ACTIONS.length)];
+    }
+
+    /**
+     * Generates a random set of contexts, weighted towards the shapes seen on real networks
+     * (mostly global, or server specific, occasionally server and world specific).
+     *
+     * @return the contexts
+     */
+    public ImmutableContextSet contexts() {
+        int shape = this.random.nextInt(10);
+        if (shape < 4) {
+            return ImmutableContextSetImpl.EMPTY;
+        }
+
+        ImmutableContextSetImpl.BuilderImpl builder = new ImmutableContextSetImpl.BuilderImpl();
+        if (shape < 9) {
+            builder.add("server", SERVERS[this.random.nextInt(SERVERS.length)]);
+        }
+        if (shape >= 7) {
+            builder.add("world", WORLDS[this.random.nextInt(WORLDS.length)]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Generates a permission node. Roughly 75% are exact permissions,
+     * 20% are wildcards and 5% are regex permissions.
+     *
+     * @return the node
+     */
+    public Node permissionNode() {
+        int kind = this.random.nextInt(20);
+
+        String permission;
+        if (kind < 15) {
+            permission = permission();
+        } else if (kind < 19) {
+            String prefix = "plugin" + this.random.nextInt(PLUGINS);
+            permission = this.random.nextBoolean() ? prefix + ".*" : prefix + "." + FEATURES[this.random.nextInt(FEATURES.length)] + ".*";
+        } else {
+            permission = "r=plugin" + this.random.nextInt(PLUGINS) + "\\.(" + FEATURES[this.random.nextInt(FEATURES.length)] + "|" + FEATURES[this.random.nextInt(FEATURES.length)] + ")\\..*";
+        }
+
+        return Permission.builder()
+                .permission(permission)
+                .value(this.random.nextInt(10) != 0)
+                .context(contexts())
+                .build();
+    }
+
+    /**
+     * Generates a chat meta node (a prefix, suffix or meta key/value pair).
+     *
+     * @return the node
+     */
+    public Node metaNode() {
+        int kind = this.random.nextInt(3);
+        if (kind == 0) {
+            return Prefix.builder("&7[P" + this.random.nextInt(100) + "] ", this.random.nextInt(100)).context(contexts()).build();
+        } else if (kind == 1) {
+            return Suffix.builder(" &8[S" + this.random.nextInt(100) + "]", this.random.nextInt(100)).context(contexts()).build();
+        } else {
+            return Meta.builder("key" + this.random.nextInt(50), "value" + this.random.nextInt(1000)).context(contexts()).build();
+        }
+    }
+
+    /**
+     * Generates a list of nodes, with the given proportion of meta nodes.
+     *
+     * @param count the number of nodes
+     * @return the nodes
+     */
+    public List<Node> nodes(int count) {
+        List<Node> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nodes.add(this.random.nextInt(10) == 0 ? metaNode() : permissionNode());
+        }
+        return nodes;
+    }
+
+    /**
+     * Generates a flattened permission map, like those passed to a permission calculator.
+     *
+     * @param count the number of permissions
+     * @return the map
+     */
+    public Map<String, Boolean> permissionMap(int count) {
+        Map<String, Boolean> map = new HashMap<>(count);
+        while (map.size() < count) {
+            Node node = permissionNode();
+            map.put(node.getKey().toLowerCase(), node.getValue());
+        }
+        return map;
+    }
+
+    /**
+     * Generates a set of permissions to check, a mix of hits, wildcard matches and misses.
+     *
+     * @param count the number of permissions, must be a power of two
+     * @return the permissions
+     */
+    public String[] queries(int count) {
+        String[] queries = new String[count];
+        for (int i = 0; i < count; i++) {
+            queries[i] = this.random.nextInt(5) == 0 ? "unrelated.plugin.permission" + this.random.nextInt(1000) : permission();
+        }
+        return queries;
+    }
+
+    /**
+     * Populates the environment with groups.
+     *
+     * <p>The groups are arranged into ladders of the given depth, where each rank
+     * inherits the rank below it (like a typical donor/staff ladder). Any remaining groups are
+     * standalone, and a few of them are inherited by each rank in a server context.</p>
+     *
+     * @param environment the environment
+     * @param groupCount the total number of groups
+     * @param ladderDepth the number of ranks in each ladder
+     * @param nodesPerGroup the number of nodes held by each group
+     * @return the top rank of each ladder
+     */
+    public List<Group> groups(BenchmarkEnvironment environment, int groupCount, int ladderDepth, int nodesPerGroup) {
+        int ladders = Math.max(1, Math.min(10, groupCount / (ladderDepth * 2)));
+        int standalone = groupCount - (ladders * ladderDepth);
+
+        for (int i = 0; i < standalone; i++) {
+            Group group = environment.getGroupManager().getOrMake("standalone" + i);
+            group.setNodes(DataType.NORMAL, nodes(nodesPerGroup), false);
+        }
+
+        List<Group> top = new ArrayList<>(ladders);
+        for (int ladder = 0; ladder < ladders; ladder++) {
+            Group group = null;
+            for (int rank = 0; rank < ladderDepth; rank++) {
+                group = environment.getGroupManager().getOrMake("ladder" + ladder + "-rank" + rank);
+
+                List<Node> nodes = nodes(nodesPerGroup);
+                nodes.add(Weight.builder(ladder * 100 + rank).build());
+                if (rank != 0) {
+                    nodes.add(Inheritance.builder("ladder" + ladder + "-rank" + (rank - 1)).build());
+                }
+                for (int i = 0; standalone != 0 && i < 2; i++) {
+                    nodes.add(Inheritance.builder("standalone" + this.random.nextInt(standalone))
+                            .withContext("server", SERVERS[this.random.nextInt(SERVERS.length)])
+                            .build());
+                }
+                group.setNodes(DataType.NORMAL, nodes, false);
+            }
+            top.add(group);
+        }
+        return top;
+    }
+
+    /**
+     * Creates a user which inherits the given groups, one globally and the others in
+     * a server context.
+     *
+     * @param environment the environment
+     * @param parents the groups to inherit
+     * @param nodeCount the number of nodes held by the user directly
+     * @return the user
+     */
+    public User user(BenchmarkEnvironment environment, List<Group> parents, int nodeCount) {
+        User user = new User(new UUID(this.random.nextLong(), this.random.nextLong()), environment.getPlugin());
+
+        List<Node> nodes = nodes(nodeCount);
+        for (int i = 0; i < parents.size(); i++) {
+            Inheritance.Builder builder = Inheritance.builder(parents.get(i).getName());
+            if (i != 0) {
+                builder.withContext("server", SERVERS[i % SERVERS.length]);
+            }
+            nodes.add(builder.build());
+        }
+        user.setNodes(DataType.NORMAL, nodes, false);
+        return user;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.actionlog;
+
+import net.luckperms.api.actionlog.Action;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Describes a subset of the entries in the action log.
+ *
+ * <p>Storage implementations can use the criteria to query the log
+ * without reading the whole thing.</p>
+ */
+public final class ActionFilter {
+    private static final ActionFilter ANY = new ActionFilter(null, null, null, null, null, null, null);
+
+    public static ActionFilter any() {
+        return ANY;
+    }
+
+    public static ActionFilter source(UUID uniqueId) {
+        return new ActionFilter(Objects.requireNonNull(uniqueId, "uniqueId"), null, null, null, null, null, null);
+    }
+
+    public static ActionFilter user(UUID uniqueId) {
+        return new ActionFilter(null, Action.Target.Type.USER, Objects.requireNonNull(uniqueId, "uniqueId"), null, null, null, null);
+    }
+
+    public static ActionFilter group(String name) {
+        return new ActionFilter(null, Action.Target.Type.GROUP, null, Objects.requireNonNull(name, "name"), null, null, null);
+    }
+
+    public static ActionFilter track(String name) {
+        return new ActionFilter(null, Action.Target.Type.TRACK, null, Objects.requireNonNull(name, "name"), null, null, null);
+    }
+
+    public static ActionFilter search(String query) {
+        return new ActionFilter(null, null, null, null, Objects.requireNonNull(query, "query").toLowerCase(), null, null);
+    }
+
+    private final @Nullable UUID sourceUniqueId;
+    private final Action.@Nullable Target.Type targetType;
+    private final @Nullable UUID targetUniqueId;
+    private final @Nullable String targetName;
+    private final @Nullable String search;
+    private final @Nullable Instant since;
+    private final @Nullable Instant until;
+
+    private ActionFilter(@Nullable UUID sourceUniqueId, Action.@Nullable Target.Type targetType, @Nullable UUID targetUniqueId, @Nullable String targetName, @Nullable String search, @Nullable Instant since, @Nullable Instant until) {
+        this.sourceUniqueId = sourceUniqueId;
+        this.targetType = targetType;
+        this.targetUniqueId = targetUniqueId;
+        this.targetName = targetName;
+        this.search = search;
+        this.since = since;
+        this.until = until;
+    }
+
+    /**
+     * Returns a copy of this filter which only matches entries logged within the given time range.
+     *
+     * @param since the start of the range (inclusive), or null for no lower bound
+     * @param until the end of the range (exclusive), or null for no upper bound
+     * @return the new filter
+     */
+    public ActionFilter between(@Nullable Instant since, @Nullable Instant until) {
+        return new ActionFilter(this.sourceUniqueId, this.targetType, this.targetUniqueId, this.targetName, this.search, since, until);
+    }
+
+    public @Nullable UUID getSourceUniqueId() {
+        return this.sourceUniqueId;
+    }
+
+    public Action.@Nullable Target.Type getTargetType() {
+        return this.targetType;
+    }
+
+    public @Nullable UUID getTargetUniqueId() {
+        return this.targetUniqueId;
+    }
+
+    public @Nullable String getTargetName() {
+        return this.targetName;
+    }
+
+    /**
+     * Gets the search query, in lowercase.
+     *
+     * @return the search query
+     */
+    public @Nullable String getSearch() {
+        return this.search;
+    }
+
+    public @Nullable Instant getSince() {
+        return this.since;
+    }
+
+    public @Nullable Instant getUntil() {
+        return this.until;
+    }
+
+    public boolean matches(LoggedAction action) {
+        if (this.sourceUniqueId != null && !this.sourceUniqueId.equals(action.getSource().getUniqueId())) {
+            return false;
+        }
+        if (this.targetType != null && this.targetType != action.getTarget().getType()) {
+            return false;
+        }
+        if (this.targetUniqueId != null && !this.targetUniqueId.equals(action.getTarget().getUniqueId().orElse(null))) {
+            return false;
+        }
+        if (this.targetName != null && !this.targetName.equals(action.getTarget().getName())) {
+            return false;
+        }
+        if (this.search != null && !action.matchesSearch(this.search)) {
+            return false;
+        }
+        if (this.since != null && action.getTimestamp().isBefore(this.since)) {
+            return false;
+        }
+        return this.until == null || action.getTimestamp().isBefore(this.until);
+    }
+
+    @Override
+    public String toString() {
+        return "ActionFilter(" +
+                "sourceUniqueId=" + this.sourceUniqueId + ", " +
+                "targetType=" + this.targetType + ", " +
+                "targetUniqueId=" + this.targetUniqueId + ", " +
+                "targetName=" + this.targetName + ", " +
+                "search=" + this.search + ", " +
+                "since=" + this.since + ", " +
+                "until=" + this.until + ")";
+    }
+}
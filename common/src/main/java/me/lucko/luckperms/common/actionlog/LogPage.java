@@ -0,0 +1,218 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.actionlog;
+
+import com.google.common.collect.ImmutableList;
+
+import me.lucko.luckperms.common.util.Paginated;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A single page of entries from the action log, ordered from oldest to newest.
+ */
+public final class LogPage {
+
+    /**
+     * Selects the page to return from the entries matching a filter.
+     */
+    public static final class Parameters {
+
+        public static Parameters page(int pageNumber, int pageSize) {
+            return new Parameters(false, pageNumber, pageSize);
+        }
+
+        public static Parameters lastPage(int pageSize) {
+            return new Parameters(true, 0, pageSize);
+        }
+
+        private final boolean lastPage;
+        // the page number (starting from 1), ignored if lastPage is true
+        private final int pageNumber;
+        private final int pageSize;
+
+        private Parameters(boolean lastPage, int pageNumber, int pageSize) {
+            if (pageSize < 1) {
+                throw new IllegalArgumentException("pageSize cannot be less than 1: " + pageSize);
+            }
+            this.lastPage = lastPage;
+            this.pageNumber = pageNumber;
+            this.pageSize = pageSize;
+        }
+
+        public int getPageSize() {
+            return this.pageSize;
+        }
+
+        /**
+         * Resolves the page number to return, given the total number of matching entries.
+         *
+         * @param totalEntries the total number of matching entries
+         * @return the page number
+         */
+        public int resolvePageNumber(int totalEntries) {
+            return this.lastPage ? Math.max(1, maxPages(totalEntries, this.pageSize)) : this.pageNumber;
+        }
+
+        /**
+         * Gets the index of the first entry on the page, or -1 if the page is out of range.
+         *
+         * @param totalEntries the total number of matching entries
+         * @return the offset
+         */
+        public int resolveOffset(int totalEntries) {
+            int pageNumber = resolvePageNumber(totalEntries);
+            if (pageNumber < 1 || pageNumber > maxPages(totalEntries, this.pageSize)) {
+                return -1;
+            }
+            return (pageNumber - 1) * this.pageSize;
+        }
+
+        /**
+         * Gets the number of entries to skip when reading the matching entries from
+         * newest to oldest, or -1 if the page is out of range.
+         *
+         * <p>Reading in this order means the most recent page (the default) never
+         * needs to skip any entries.</p>
+         *
+         * @param totalEntries the total number of matching entries
+         * @return the offset from the newest entry
+         */
+        public int resolveOffsetFromNewest(int totalEntries) {
+            int offset = resolveOffset(totalEntries);
+            if (offset == -1) {
+                return -1;
+            }
+            return totalEntries - Math.min(offset + this.pageSize, totalEntries);
+        }
+
+        /**
+         * Gets the number of entries on the page.
+         *
+         * @param totalEntries the total number of matching entries
+         * @return the number of entries
+         */
+        public int resolveLength(int totalEntries) {
+            int offset = resolveOffset(totalEntries);
+            if (offset == -1) {
+                return 0;
+            }
+            return Math.min(offset + this.pageSize, totalEntries) - offset;
+        }
+    }
+
+    /**
+     * Creates a page by filtering the given (sorted) entries in memory.
+     *
+     * @param content all entries in the log
+     * @param filter the filter
+     * @param parameters the page to return
+     * @return the page
+     */
+    public static LogPage of(Collection<LoggedAction> content, ActionFilter filter, Parameters parameters) {
+        List<LoggedAction> matching = new ArrayList<>();
+        for (LoggedAction action : content) {
+            if (filter.matches(action)) {
+                matching.add(action);
+            }
+        }
+
+        int offset = parameters.resolveOffset(matching.size());
+        List<LoggedAction> page = offset == -1
+                ? ImmutableList.of()
+                : matching.subList(offset, Math.min(offset + parameters.getPageSize(), matching.size()));
+
+        return new LogPage(page, parameters, matching.size());
+    }
+
+    /**
+     * Creates a page from entries which were read from newest to oldest.
+     *
+     * <p>Duplicate entries within the page are only included once.</p>
+     *
+     * @param newestFirst the entries on the page, newest first
+     * @param parameters the page which was read
+     * @param totalEntries the total number of matching entries
+     * @return the page
+     */
+    public static LogPage fromNewest(List<LoggedAction> newestFirst, Parameters parameters, int totalEntries) {
+        Set<LoggedAction> content = new LinkedHashSet<>(newestFirst.size());
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            content.add(newestFirst.get(i));
+        }
+        return new LogPage(new ArrayList<>(content), parameters, totalEntries);
+    }
+
+    private static int maxPages(int totalEntries, int pageSize) {
+        return (totalEntries + pageSize - 1) / pageSize;
+    }
+
+    private final List<LoggedAction> content;
+    private final int pageNumber;
+    private final int pageSize;
+    private final int totalEntries;
+
+    public LogPage(List<LoggedAction> content, Parameters parameters, int totalEntries) {
+        this.content = ImmutableList.copyOf(content);
+        this.pageNumber = parameters.resolvePageNumber(totalEntries);
+        this.pageSize = parameters.getPageSize();
+        this.totalEntries = totalEntries;
+    }
+
+    public List<LoggedAction> getContent() {
+        return this.content;
+    }
+
+    /**
+     * Gets the entries on the page, numbered by their position in the full set of matching entries.
+     *
+     * @return the numbered entries
+     */
+    public List<Paginated.Entry<LoggedAction>> getNumberedContent() {
+        int first = (this.pageNumber - 1) * this.pageSize;
+        List<Paginated.Entry<LoggedAction>> entries = new ArrayList<>(this.content.size());
+        for (int i = 0; i < this.content.size(); i++) {
+            entries.add(new Paginated.Entry<>(first + i + 1, this.content.get(i)));
+        }
+        return entries;
+    }
+
+    public int getPageNumber() {
+        return this.pageNumber;
+    }
+
+    public int getTotalEntries() {
+        return this.totalEntries;
+    }
+
+    public int getMaxPages() {
+        return maxPages(this.totalEntries, this.pageSize);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.api.implementation;
+
+import com.google.common.collect.ImmutableList;
+
+import me.lucko.luckperms.common.metrics.Counter;
+import me.lucko.luckperms.common.metrics.Gauge;
+import me.lucko.luckperms.common.metrics.MetricFamily;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
+import me.lucko.luckperms.common.metrics.PrometheusFormat;
+import me.lucko.luckperms.common.metrics.Timer;
+
+import net.luckperms.api.metrics.Metric;
+import net.luckperms.api.metrics.Metrics;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+public class ApiMetrics implements Metrics {
+    private final MetricsRegistry handle;
+
+    public ApiMetrics(MetricsRegistry handle) {
+        this.handle = handle;
+    }
+
+    @Override
+    public @NonNull Collection<Metric> getMetrics() {
+        ImmutableList.Builder<Metric> metrics = ImmutableList.builder();
+        for (MetricFamily<?> family : this.handle.getFamilies()) {
+            for (Map.Entry<String, ?> entry : family.getChildren().entrySet()) {
+                String labelValue = family.getLabelName() == null ? null : entry.getKey();
+
+                if (family.getType() == MetricFamily.Type.TIMER) {
+                    Timer timer = (Timer) entry.getValue();
+                    metrics.add(new Snapshot(family.getName(), Metric.Type.TIMER, family.getLabelName(), labelValue,
+                            timer.getCount(), timer.getTotalNanos(), timer.getMaxNanos(), timer.getCumulativeBuckets()));
+                } else if (family.getType() == MetricFamily.Type.GAUGE) {
+                    Gauge gauge = (Gauge) entry.getValue();
+                    metrics.add(new Snapshot(family.getName(), Metric.Type.GAUGE, family.getLabelName(), labelValue,
+                            gauge.getValue(), 0, 0, null));
+                } else {
+                    Counter counter = (Counter) entry.getValue();
+                    metrics.add(new Snapshot(family.getName(), Metric.Type.COUNTER, family.getLabelName(), labelValue,
+                            counter.getCount(), 0, 0, null));
+                }
+            }
+        }
+        return metrics.build();
+    }
+
+    @Override
+    public @NonNull String toPrometheusText() {
+        return PrometheusFormat.write(this.handle);
+    }
+
+    private static final class Snapshot implements Metric {
+        private final String name;
+        private final Type type;
+        private final String labelName;
+        private final String labelValue;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long[] cumulativeBuckets; // null for counters and gauges
+
+        Snapshot(String name, Type type, String labelName, String labelValue, long count, long totalNanos, long maxNanos, long[] cumulativeBuckets) {
+            this.name = name;
+            this.type = type;
+            this.labelName = labelName;
+            this.labelValue = labelValue;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.cumulativeBuckets = cumulativeBuckets;
+        }
+
+        @Override
+        public @NonNull String getName() {
+            return this.name;
+        }
+
+        @Override
+        public @NonNull Type getType() {
+            return this.type;
+        }
+
+        @Override
+        public @Nullable String getLabelName() {
+            return this.labelName;
+        }
+
+        @Override
+        public @Nullable String getLabelValue() {
+            return this.labelValue;
+        }
+
+        @Override
+        public long getCount() {
+            return this.count;
+        }
+
+        @Override
+        public @NonNull Duration getTotalTime() {
+            return Duration.ofNanos(this.totalNanos);
+        }
+
+        @Override
+        public @NonNull Duration getMaxTime() {
+            return Duration.ofNanos(this.maxNanos);
+        }
+
+        @Override
+        public @NonNull Duration getPercentile(double quantile) {
+            if (quantile < 0 || quantile > 1) {
+                throw new IllegalArgumentException("quantile must be between 0 and 1: " + quantile);
+            }
+            if (this.cumulativeBuckets == null) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos(Timer.estimatePercentile(this.cumulativeBuckets, this.maxNanos, quantile));
+        }
+
+        @Override
+        public String toString() {
+            return "Metric(name=" + this.name + ", " + this.labelName + "=" + this.labelValue + ", count=" + this.count + ")";
+        }
+    }
+}
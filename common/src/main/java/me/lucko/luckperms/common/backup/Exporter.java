@@ -38,6 +38,7 @@ import me.lucko.luckperms.common.node.utils.NodeJsonSerializer;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.util.Iterators;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
 import me.lucko.luckperms.common.util.gson.JArray;
 import me.lucko.luckperms.common.util.gson.JObject;
@@ -173,22 +174,24 @@ public abstract class Exporter implements Runnable {
         AtomicInteger userCount = new AtomicInteger(0);
         Map<UUID, JsonObject> out = Collections.synchronizedMap(new TreeMap<>());
 
-        // iterate through each user.
-        for (UUID uuid : users) {
-            // register a task for the user, and schedule it's execution with the pool
+        // iterate through the users in batches.
+        for (List<UUID> batch : Iterators.divideIterable(users, 500)) {
+            // register a task for the batch, and schedule it's execution with the pool
             futures.add(CompletableFuture.runAsync(() -> {
-                User user = this.plugin.getStorage().loadUser(uuid, null).join();
-                out.put(user.getUniqueId(), new JObject()
-                        .consume(obj -> {
-                            user.getUsername().ifPresent(username -> obj.add("username", username));
-                            if (!user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME).equalsIgnoreCase(GroupManager.DEFAULT_GROUP_NAME)) {
-                                obj.add("primaryGroup", user.getPrimaryGroup().getStoredValue().get());
-                            }
-                        })
-                        .add("nodes", NodeJsonSerializer.serializeNodes(user.normalData().asSet()))
-                        .toJson());
-                this.plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
-                userCount.incrementAndGet();
+                Map<UUID, User> loaded = this.plugin.getStorage().loadUsers(new HashSet<>(batch)).join();
+                for (User user : loaded.values()) {
+                    out.put(user.getUniqueId(), new JObject()
+                            .consume(obj -> {
+                                user.getUsername().ifPresent(username -> obj.add("username", username));
+                                if (!user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME).equalsIgnoreCase(GroupManager.DEFAULT_GROUP_NAME)) {
+                                    obj.add("primaryGroup", user.getPrimaryGroup().getStoredValue().get());
+                                }
+                            })
+                            .add("nodes", NodeJsonSerializer.serializeNodes(user.normalData().asSet()))
+                            .toJson());
+                    this.plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
+                    userCount.incrementAndGet();
+                }
             }, executor));
         }
 
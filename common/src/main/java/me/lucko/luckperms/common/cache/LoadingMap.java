@@ -53,6 +53,11 @@ public class LoadingMap<K, V> extends ForwardingMap<K, V> implements Map<K, V> {
         return this.map;
     }
 
+    @Override
+    public boolean remove(Object key, Object value) {
+        return this.map.remove(key, value);
+    }
+
     public V getIfPresent(K key) {
         return this.map.get(key);
     }
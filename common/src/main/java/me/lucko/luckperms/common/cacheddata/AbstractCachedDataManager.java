@@ -43,15 +43,20 @@ import net.luckperms.api.node.ChatMetaType;
 import net.luckperms.api.query.QueryOptions;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 /**
  * Abstract implementation of {@link CachedDataManager}.
@@ -61,16 +66,43 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
     private final AbstractContainer<PermissionCache, CachedPermissionData> permission;
     private final AbstractContainer<MetaCache, CachedMetaData> meta;
 
+    // incremented each time the owners permission data changes, so permission caches
+    // which started loading before the change can be discarded
+    private final AtomicInteger permissionVersion = new AtomicInteger();
+
+    // applies changes to the owner which have been queued but not yet made, before data is read
+    private volatile @Nullable Runnable pendingChangesFlusher = null;
+
     protected AbstractCachedDataManager(LuckPermsPlugin plugin) {
         this.plugin = plugin;
-        this.permission = new AbstractContainer<>(this::calculatePermissions);
-        this.meta = new AbstractContainer<>(this::calculateMeta);
+        this.permission = new AbstractContainer<>(this::calculatePermissions, cache -> cache.getVersion() == this.permissionVersion.get(), this::flushPendingChanges);
+        this.meta = new AbstractContainer<>(this::calculateMeta, cache -> true, this::flushPendingChanges);
     }
 
     public LuckPermsPlugin getPlugin() {
         return this.plugin;
     }
 
+    /**
+     * Sets a callback which applies any changes to the owner which have been
+     * queued but not yet made.
+     *
+     * <p>The callback is ran before cached data is read, so that queued changes
+     * are always visible to readers.</p>
+     *
+     * @param pendingChangesFlusher the callback, or null to remove it
+     */
+    public void setPendingChangesFlusher(@Nullable Runnable pendingChangesFlusher) {
+        this.pendingChangesFlusher = pendingChangesFlusher;
+    }
+
+    private void flushPendingChanges() {
+        Runnable flusher = this.pendingChangesFlusher;
+        if (flusher != null) {
+            flusher.run();
+        }
+    }
+
     @Override
     public @NonNull Container<CachedPermissionData> permissionData() {
         return this.permission;
@@ -141,6 +173,21 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
      */
     protected abstract <M extends Map<String, Boolean>> M resolvePermissions(IntFunction<M> mapFactory, QueryOptions queryOptions);
 
+    /**
+     * Resolves the value of a single permission in the owners permissions data,
+     * consistent with the result of {@link #resolvePermissions(IntFunction, QueryOptions)}.
+     *
+     * <p>The default implementation resolves all permissions and selects the
+     * one requested, implementations should override with something more efficient.</p>
+     *
+     * @param permission the permission, in lowercase
+     * @param queryOptions the query options
+     * @return the value, or null if the permission is not set
+     */
+    protected @Nullable Boolean resolvePermission(String permission, QueryOptions queryOptions) {
+        return resolvePermissions(HashMap::new, queryOptions).get(permission);
+    }
+
     /**
      * Resolves the owners meta data for the given {@link QueryOptions}.
      *
@@ -151,28 +198,54 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
     
     private PermissionCache calculatePermissions(QueryOptions queryOptions) {
         Objects.requireNonNull(queryOptions, "queryOptions");
+        long start = System.nanoTime();
+        int version = this.permissionVersion.get();
         CacheMetadata metadata = getMetadataForQueryOptions(queryOptions);
 
         ConcurrentHashMap<String, Boolean> sourcePermissions = resolvePermissions(ConcurrentHashMap::new, queryOptions);
-        return new PermissionCache(queryOptions, metadata, getCalculatorFactory(), sourcePermissions);
+        PermissionCache cache = new PermissionCache(queryOptions, metadata, getCalculatorFactory(), sourcePermissions, version);
+        this.plugin.getMetrics().getPermissionCacheRebuildTimer().recordSince(start);
+        return cache;
     }
     
     private MetaCache calculateMeta(QueryOptions queryOptions) {
         Objects.requireNonNull(queryOptions, "queryOptions");
+        long start = System.nanoTime();
         CacheMetadata metadata = getMetadataForQueryOptions(queryOptions);
 
         MetaAccumulator accumulator = newAccumulator(queryOptions);
         resolveMeta(accumulator, queryOptions);
 
-        return new MetaCache(this.plugin, queryOptions, metadata, accumulator);
+        MetaCache cache = new MetaCache(this.plugin, queryOptions, metadata, accumulator);
+        this.plugin.getMetrics().getMetaCacheRebuildTimer().recordSince(start);
+        return cache;
     }
 
     @Override
     public final void invalidate() {
+        this.permissionVersion.incrementAndGet();
         this.permission.invalidate();
         this.meta.invalidate();
     }
 
+    /**
+     * Recalculates the given permissions in each of the cached permission data
+     * instances, without resolving the rest of the owners permissions again.
+     *
+     * @param permissions the permissions to recalculate, in lowercase
+     */
+    public final void recalculatePermissions(Collection<String> permissions) {
+        // caches which are still loading will have the old version, so are discarded
+        // instead of being updated
+        int version = this.permissionVersion.incrementAndGet();
+        for (Map.Entry<QueryOptions, PermissionCache> e : this.permission.cache.entrySet()) {
+            long start = System.nanoTime();
+            QueryOptions queryOptions = e.getKey();
+            e.getValue().updatePermissions(permissions, permission -> resolvePermission(permission, queryOptions), version);
+            this.plugin.getMetrics().getPermissionCacheUpdateTimer().recordSince(start);
+        }
+    }
+
     @Override
     public final void invalidatePermissionCalculators() {
         this.permission.cache.values().forEach(PermissionCache::invalidateCache);
@@ -185,10 +258,14 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
 
     private static final class AbstractContainer<C extends I, I extends CachedData> implements Container<I> {
         private final Function<QueryOptions, C> cacheLoader;
+        private final Predicate<C> currentTest;
+        private final Runnable beforeRead;
         private final LoadingMap<QueryOptions, C> cache;
 
-        public AbstractContainer(Function<QueryOptions, C> cacheLoader) {
+        public AbstractContainer(Function<QueryOptions, C> cacheLoader, Predicate<C> currentTest, Runnable beforeRead) {
             this.cacheLoader = cacheLoader;
+            this.currentTest = currentTest;
+            this.beforeRead = beforeRead;
             this.cache = LoadingMap.of(this.cacheLoader);
         }
 
@@ -199,8 +276,14 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         @Override
         public @NonNull C get(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
+            this.beforeRead.run();
 
             C data = this.cache.get(queryOptions);
+            while (!this.currentTest.test(data)) {
+                // the data was loaded before a change was made, and missed the update
+                this.cache.remove(queryOptions, data);
+                data = this.cache.get(queryOptions);
+            }
             ((UsageTracked) data).recordUsage();
             return data;
         }
@@ -208,6 +291,7 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         @Override
         public @NonNull C calculate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
+            this.beforeRead.run();
             return this.cacheLoader.apply(queryOptions);
         }
 
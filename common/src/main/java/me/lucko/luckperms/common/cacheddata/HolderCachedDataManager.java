@@ -29,12 +29,19 @@ import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.nodemap.MutateResult;
 
 import net.luckperms.api.metastacking.MetaStackDefinition;
 import net.luckperms.api.node.ChatMetaType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeType;
 import net.luckperms.api.query.QueryOptions;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.IntFunction;
 
 /**
@@ -42,6 +49,11 @@ import java.util.function.IntFunction;
  */
 public abstract class HolderCachedDataManager<T extends PermissionHolder> extends AbstractCachedDataManager {
 
+    /**
+     * The maximum number of permissions to recalculate in place when applying changes
+     */
+    private static final int MAX_INCREMENTAL_PERMISSIONS = 16;
+
     /**
      * The holder whom this data instance is representing
      */
@@ -79,6 +91,77 @@ public abstract class HolderCachedDataManager<T extends PermissionHolder> extend
         return this.holder.exportPermissions(mapFactory, queryOptions, true, getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND));
     }
 
+    @Override
+    protected @Nullable Boolean resolvePermission(String permission, QueryOptions queryOptions) {
+        return this.holder.resolvePermission(permission, queryOptions, getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND));
+    }
+
+    /**
+     * Attempts to update the cached data in place to reflect changes made to
+     * the holders own nodes.
+     *
+     * <p>Only the permissions affected by the changes are resolved again. Changes
+     * to inheritance nodes affect the whole inheritance tree, so can't be applied
+     * this way.</p>
+     *
+     * @param changes the changes
+     * @return true if the changes were applied, false if the cached data should
+     *         be invalidated instead
+     */
+    public boolean applyChanges(MutateResult changes) {
+        return applyChanges(changes, false);
+    }
+
+    /**
+     * Attempts to update the cached data in place to reflect changes made to
+     * the nodes of a group the holder inherits from.
+     *
+     * <p>Changes to the groups weight affect the order it is inherited in, so
+     * can't be applied this way either.</p>
+     *
+     * @param changes the changes
+     * @return true if the changes were applied, false if the cached data should
+     *         be invalidated instead
+     */
+    public boolean applyInheritedChanges(MutateResult changes) {
+        return applyChanges(changes, true);
+    }
+
+    private boolean applyChanges(MutateResult changes, boolean inherited) {
+        boolean resolveShorthand = getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND);
+
+        Set<String> permissions = new HashSet<>();
+        boolean metaChanged = false;
+
+        for (MutateResult.Change change : changes.getChanges()) {
+            Node node = change.getNode();
+            if (NodeType.INHERITANCE.matches(node) || (inherited && NodeType.WEIGHT.matches(node))) {
+                return false;
+            }
+            if (!NodeType.PERMISSION.matches(node) && !NodeType.REGEX_PERMISSION.matches(node)) {
+                metaChanged = true;
+            }
+
+            permissions.add(node.getKey().toLowerCase());
+            if (resolveShorthand) {
+                for (String s : node.resolveShorthand()) {
+                    permissions.add(s.toLowerCase());
+                }
+            }
+
+            // past this point a full recalculation is likely to be cheaper
+            if (permissions.size() > MAX_INCREMENTAL_PERMISSIONS) {
+                return false;
+            }
+        }
+
+        recalculatePermissions(permissions);
+        if (metaChanged) {
+            metaData().invalidate();
+        }
+        return true;
+    }
+
     @Override
     protected void resolveMeta(MetaAccumulator accumulator, QueryOptions queryOptions) {
         this.holder.accumulateMeta(accumulator, queryOptions);
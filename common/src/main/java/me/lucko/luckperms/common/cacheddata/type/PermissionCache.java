@@ -38,9 +38,12 @@ import net.luckperms.api.util.Tristate;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Holds cached permissions data for a given context
@@ -69,8 +72,20 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
      */
     private final PermissionCalculator calculator;
 
-    public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, ConcurrentHashMap<String, Boolean> sourcePermissions) {
+    /**
+     * The metadata for this cache
+     */
+    private final CacheMetadata metadata;
+
+    /**
+     * The version of the owners permission data this cache reflects
+     */
+    private final AtomicInteger version;
+
+    public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, ConcurrentHashMap<String, Boolean> sourcePermissions, int version) {
         this.queryOptions = queryOptions;
+        this.metadata = metadata;
+        this.version = new AtomicInteger(version);
         this.permissions = sourcePermissions;
         this.permissionsUnmodifiable = Collections.unmodifiableMap(this.permissions);
 
@@ -87,6 +102,22 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
         return this.calculator;
     }
 
+    public int getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * Updates the values of the given permissions in place.
+     *
+     * @param permissions the permissions to update
+     * @param resolver a function to resolve the new value of a permission, returning null if unset
+     * @param version the version of the owners permission data once the update has been applied
+     */
+    public void updatePermissions(Collection<String> permissions, Function<String, Boolean> resolver, int version) {
+        this.calculator.updateSourcePermissions(permissions, resolver);
+        this.version.accumulateAndGet(version, Math::max);
+    }
+
     @Override
     public @NonNull Map<String, Boolean> getPermissionMap() {
         return this.permissionsUnmodifiable;
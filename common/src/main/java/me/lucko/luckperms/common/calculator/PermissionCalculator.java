@@ -25,16 +25,22 @@
 
 package me.lucko.luckperms.common.calculator;
 
-import me.lucko.luckperms.common.cache.LoadingMap;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import me.lucko.luckperms.common.cacheddata.CacheMetadata;
 import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
 import me.lucko.luckperms.common.calculator.result.TristateResult;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.CaffeineFactory;
 import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -46,19 +52,39 @@ public class PermissionCalculator implements Function<String, TristateResult> {
     /** The plugin instance */
     private final LuckPermsPlugin plugin;
 
+    /** The registry to record check counts in */
+    private final MetricsRegistry metrics;
+
     /** Info about the nature of this calculator. */
     private final CacheMetadata metadata;
 
     /** The processors which back this calculator */
     private final PermissionProcessor[] processors;
 
+    /** The current source map */
+    private Map<String, Boolean> sourceMap = Collections.emptyMap();
+
+    /** The compiled form of the current source map, replaced (not mutated) when the source map changes */
+    private volatile PermissionTrie trie = PermissionTrie.EMPTY;
+
     /** Loading cache for permission checks */
-    private final LoadingMap<String, TristateResult> lookupCache = LoadingMap.of(this);
+    private final Cache<String, TristateResult> lookupCache;
 
     public PermissionCalculator(LuckPermsPlugin plugin, CacheMetadata metadata, Collection<PermissionProcessor> processors) {
         this.plugin = plugin;
+        this.metrics = plugin.getMetrics();
         this.metadata = metadata;
         this.processors = processors.toArray(new PermissionProcessor[0]);
+
+        // bound the cache, so that one-off permission strings (e.g. those which include
+        // player names or item ids) age out instead of being held until the next invalidation.
+        // there is one cache per holder and set of query options, so the bound is per cache
+        Caffeine<Object, Object> cacheBuilder = CaffeineFactory.newBuilder();
+        int maximumSize = plugin.getConfiguration().get(ConfigKeys.PERMISSION_CHECK_CACHE_SIZE);
+        if (maximumSize > 0) {
+            cacheBuilder.maximumSize(maximumSize).evictionListener((key, value, cause) -> this.metrics.recordPermissionCacheEviction());
+        }
+        this.lookupCache = cacheBuilder.build();
     }
 
     /**
@@ -71,8 +97,10 @@ public class PermissionCalculator implements Function<String, TristateResult> {
      * @return the result
      */
     public TristateResult checkPermission(String permission, PermissionCheckEvent.Origin origin) {
+        this.metrics.recordPermissionCheck(origin);
+
         // get the result
-        TristateResult result = this.lookupCache.get(permission);
+        TristateResult result = this.lookupCache.get(permission, this);
 
         // log this permission lookup to the verbose handler
         this.plugin.getVerboseHandler().offerPermissionCheckEvent(origin, this.metadata.getVerboseCheckInfo(), this.metadata.getQueryOptions(), permission, result);
@@ -87,14 +115,21 @@ public class PermissionCalculator implements Function<String, TristateResult> {
         // this allows fast case insensitive lookups
         permission = permission.toLowerCase();
 
+        // this method is only called when the lookup cache doesn't contain a result
+        this.metrics.recordPermissionCacheMiss();
+
         // offer the permission to the permission vault
         // we only need to do this once per permission, so it doesn't matter
         // that this call is behind the cache.
         this.plugin.getPermissionRegistry().offer(permission);
 
+        // walk the compiled trie once, processors which are backed by the
+        // source map can then read their result from the walk
+        PermissionTrie.Walk walk = this.trie.walk(permission);
+
         TristateResult result = TristateResult.UNDEFINED;
         for (PermissionProcessor processor : this.processors) {
-            result = processor.hasPermission(result, permission);
+            result = processor.hasPermission(result, permission, walk);
         }
         return result;
     }
@@ -106,16 +141,45 @@ public class PermissionCalculator implements Function<String, TristateResult> {
      * @param sourceMap the source map
      */
     public synchronized void setSourcePermissions(Map<String, Boolean> sourceMap) {
+        this.sourceMap = sourceMap;
+        this.trie = PermissionTrie.compile(sourceMap);
         for (PermissionProcessor processor : this.processors) {
             processor.setSource(sourceMap);
             processor.refresh();
         }
     }
 
+    /**
+     * Updates some of the entries in the source permissions map in place.
+     *
+     * <p>Only the parts of the compiled trie which lead to the updated entries
+     * are rebuilt. The map passed to {@link #setSourcePermissions(Map)} must
+     * be mutable.</p>
+     *
+     * @param permissions the permissions to update
+     * @param resolver a function to resolve the new value of a permission, returning null if unset
+     */
+    public synchronized void updateSourcePermissions(Collection<String> permissions, Function<String, Boolean> resolver) {
+        for (String permission : permissions) {
+            Boolean value = resolver.apply(permission);
+            if (value == null) {
+                this.sourceMap.remove(permission);
+            } else {
+                this.sourceMap.put(permission, value);
+            }
+        }
+
+        this.trie = this.trie.update(this.sourceMap, permissions);
+        for (PermissionProcessor processor : this.processors) {
+            processor.refresh(permissions);
+        }
+        this.lookupCache.invalidateAll();
+    }
+
     public void invalidateCache() {
         for (PermissionProcessor processor : this.processors) {
             processor.invalidate();
         }
-        this.lookupCache.clear();
+        this.lookupCache.invalidateAll();
     }
 }
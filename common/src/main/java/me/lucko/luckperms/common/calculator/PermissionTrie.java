@@ -0,0 +1,416 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator;
+
+import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.calculator.result.TristateResult;
+import me.lucko.luckperms.common.node.AbstractNode;
+
+import net.luckperms.api.util.Tristate;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compiled form of a {@link PermissionCalculator}s source map, which allows
+ * direct, wildcard and prefix matches for a permission to be found in a single
+ * walk over its {@link AbstractNode#NODE_SEPARATOR separated} segments.
+ *
+ * <p>Shorthand nodes are expanded before they reach the source map, so are
+ * covered by the trie as direct entries.</p>
+ *
+ * <p>The results returned by the wildcard processors are created when the trie
+ * is compiled, so lookups which match a wildcard or prefix don't allocate.</p>
+ */
+public final class PermissionTrie {
+
+    /** An empty trie */
+    public static final PermissionTrie EMPTY = new PermissionTrie(new Node.Builder("").build());
+
+    /**
+     * Compiles a trie from the given source map.
+     *
+     * @param sourceMap the source map
+     * @return a trie
+     */
+    public static PermissionTrie compile(Map<String, Boolean> sourceMap) {
+        if (sourceMap.isEmpty()) {
+            return EMPTY;
+        }
+
+        Node.Builder root = new Node.Builder("");
+        for (Map.Entry<String, Boolean> e : sourceMap.entrySet()) {
+            String key = e.getKey();
+            Tristate value = Tristate.of(e.getValue());
+
+            Node.Builder node = root.descend(key, key.length());
+            node.value = value;
+
+            if (key.endsWith(WildcardProcessor.WILDCARD_SUFFIX) && key.length() > 2) {
+                Node.Builder wildcardNode = root.descend(key, key.length() - 2);
+                wildcardNode.wildcardValue = value;
+            }
+        }
+        return new PermissionTrie(root.build());
+    }
+
+    private final Node root;
+
+    private PermissionTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates a copy of this trie with the given entries of the source map updated.
+     *
+     * <p>Only the nodes on the path to each entry are copied, the rest of the
+     * trie is shared with this instance.</p>
+     *
+     * @param sourceMap the source map, containing the new values
+     * @param permissions the permissions which have changed in the source map
+     * @return the updated trie
+     */
+    public PermissionTrie update(Map<String, Boolean> sourceMap, Collection<String> permissions) {
+        Node root = this.root;
+        for (String key : permissions) {
+            Tristate value = Tristate.of(sourceMap.get(key));
+            root = update(root, key, 0, key.length(), false, value);
+
+            if (key.endsWith(WildcardProcessor.WILDCARD_SUFFIX) && key.length() > 2) {
+                root = update(root, key, 0, key.length() - 2, true, value);
+            }
+        }
+        return root == this.root ? this : new PermissionTrie(root);
+    }
+
+    /**
+     * Returns a copy of the node with the value of {@code key[0, end)} updated,
+     * where the node represents {@code key[0, start - 1)}.
+     */
+    private static Node update(Node node, String key, int start, int end, boolean wildcard, Tristate value) {
+        int sep = key.indexOf(AbstractNode.NODE_SEPARATOR, start);
+        int segmentEnd = sep == -1 || sep > end ? end : sep;
+
+        Node child = node.child(key, start, segmentEnd);
+        if (child == null) {
+            if (value == Tristate.UNDEFINED) {
+                return node;
+            }
+            child = new Node(key.substring(0, segmentEnd), Tristate.UNDEFINED, Tristate.UNDEFINED, Node.EMPTY_KEYS, Node.EMPTY_CHILDREN);
+        }
+
+        Node updated;
+        if (segmentEnd == end) {
+            updated = wildcard ? child.withWildcardValue(value) : child.withValue(value);
+        } else {
+            updated = update(child, key, segmentEnd + 1, end, wildcard, value);
+        }
+
+        if (updated == child) {
+            return node;
+        }
+        return node.withChild(key.substring(start, segmentEnd), updated.isEmpty() ? null : updated);
+    }
+
+    /**
+     * Walks the trie for the given permission.
+     *
+     * @param permission the permission
+     * @return the result of the walk
+     */
+    public Walk walk(String permission) {
+        Walk walk = new Walk();
+        int length = permission.length();
+
+        Node node = this.root;
+        int start = 0;
+        while (true) {
+            int end = permission.indexOf(AbstractNode.NODE_SEPARATOR, start);
+            if (end == -1) {
+                Node leaf = node.child(permission, start, length);
+                if (leaf != null) {
+                    walk.direct = leaf.value;
+                }
+                break;
+            }
+
+            node = node.child(permission, start, end);
+            if (node == null) {
+                break;
+            }
+
+            // the node represents the (non-empty) prefix permission[0, end)
+            if (end != 0) {
+                if (node.wildcardValue != Tristate.UNDEFINED) {
+                    walk.wildcardMatch = node;
+                }
+                if (node.value != Tristate.UNDEFINED) {
+                    walk.prefixMatch = node;
+                }
+            }
+            start = end + 1;
+        }
+        return walk;
+    }
+
+    /**
+     * The result of walking the trie for a single permission.
+     */
+    public static final class Walk {
+        private Tristate direct = Tristate.UNDEFINED;
+        private Node wildcardMatch = null;
+        private Node prefixMatch = null;
+
+        Walk() {
+
+        }
+
+        /**
+         * Gets the value set for the exact permission.
+         *
+         * @return the direct value
+         */
+        public Tristate direct() {
+            return this.direct;
+        }
+
+        /**
+         * Gets the longest prefix of the permission which has a wildcard
+         * ({@code prefix.*}) entry.
+         *
+         * @return the matching prefix, or null
+         */
+        public @Nullable String wildcardMatch() {
+            return this.wildcardMatch == null ? null : this.wildcardMatch.path;
+        }
+
+        /**
+         * Gets the value of the {@link #wildcardMatch() wildcard match}.
+         *
+         * @return the wildcard value
+         */
+        public Tristate wildcardValue() {
+            return this.wildcardMatch == null ? Tristate.UNDEFINED : this.wildcardMatch.wildcardValue;
+        }
+
+        /**
+         * Gets the {@link WildcardProcessor} result for the
+         * {@link #wildcardMatch() wildcard match}.
+         *
+         * @return the wildcard result
+         */
+        public TristateResult wildcardResult() {
+            return this.wildcardMatch == null ? TristateResult.UNDEFINED : this.wildcardMatch.wildcardResult;
+        }
+
+        /**
+         * Gets the longest prefix of the permission which is itself set
+         * as a permission.
+         *
+         * @return the matching prefix, or null
+         */
+        public @Nullable String prefixMatch() {
+            return this.prefixMatch == null ? null : this.prefixMatch.path;
+        }
+
+        /**
+         * Gets the value of the {@link #prefixMatch() prefix match}.
+         *
+         * @return the prefix value
+         */
+        public Tristate prefixValue() {
+            return this.prefixMatch == null ? Tristate.UNDEFINED : this.prefixMatch.value;
+        }
+
+        /**
+         * Gets the {@link SpongeWildcardProcessor} result for the
+         * {@link #prefixMatch() prefix match}.
+         *
+         * @return the prefix result
+         */
+        public TristateResult prefixResult() {
+            return this.prefixMatch == null ? TristateResult.UNDEFINED : this.prefixMatch.prefixResult;
+        }
+    }
+
+    private static final class Node {
+        private static final String[] EMPTY_KEYS = new String[0];
+        private static final Node[] EMPTY_CHILDREN = new Node[0];
+
+        private final String path;
+        private final Tristate value;
+        private final Tristate wildcardValue;
+
+        // the results for wildcard and prefix matches on this node
+        private final TristateResult wildcardResult;
+        private final TristateResult prefixResult;
+
+        // open addressing table, keyed by segment
+        private final String[] keys;
+        private final Node[] children;
+
+        private Node(String path, Tristate value, Tristate wildcardValue, String[] keys, Node[] children) {
+            this.path = path;
+            this.value = value;
+            this.wildcardValue = wildcardValue;
+            this.wildcardResult = wildcardValue == Tristate.UNDEFINED ? TristateResult.UNDEFINED : WildcardProcessor.RESULT_FACTORY.result(wildcardValue, "match: " + path);
+            this.prefixResult = value == Tristate.UNDEFINED ? TristateResult.UNDEFINED : SpongeWildcardProcessor.RESULT_FACTORY.result(value, "match: " + path);
+            this.keys = keys;
+            this.children = children;
+        }
+
+        /**
+         * Gets the child node for the segment {@code s[start, end)}, without
+         * allocating a substring.
+         */
+        @Nullable Node child(String s, int start, int end) {
+            String[] keys = this.keys;
+            if (keys.length == 0) {
+                return null;
+            }
+
+            int len = end - start;
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + s.charAt(i);
+            }
+
+            int mask = keys.length - 1;
+            int i = spread(hash) & mask;
+            while (true) {
+                String key = keys[i];
+                if (key == null) {
+                    return null;
+                }
+                if (key.length() == len && key.regionMatches(0, s, start, len)) {
+                    return this.children[i];
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        boolean isEmpty() {
+            return this.value == Tristate.UNDEFINED && this.wildcardValue == Tristate.UNDEFINED && this.keys.length == 0;
+        }
+
+        Node withValue(Tristate value) {
+            return value == this.value ? this : new Node(this.path, value, this.wildcardValue, this.keys, this.children);
+        }
+
+        Node withWildcardValue(Tristate wildcardValue) {
+            return wildcardValue == this.wildcardValue ? this : new Node(this.path, this.value, wildcardValue, this.keys, this.children);
+        }
+
+        /**
+         * Returns a copy of the node with the child for the given segment replaced,
+         * or removed if null.
+         */
+        Node withChild(String segment, @Nullable Node child) {
+            Map<String, Node> children = new HashMap<>();
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.keys[i] != null) {
+                    children.put(this.keys[i], this.children[i]);
+                }
+            }
+
+            if (child == null) {
+                children.remove(segment);
+            } else {
+                children.put(segment, child);
+            }
+            return of(this.path, this.value, this.wildcardValue, children);
+        }
+
+        static Node of(String path, Tristate value, Tristate wildcardValue, Map<String, Node> childMap) {
+            if (childMap.isEmpty()) {
+                return new Node(path, value, wildcardValue, EMPTY_KEYS, EMPTY_CHILDREN);
+            }
+
+            int capacity = Integer.highestOneBit(childMap.size() * 2 - 1) << 1;
+            String[] keys = new String[capacity];
+            Node[] children = new Node[capacity];
+
+            int mask = capacity - 1;
+            for (Map.Entry<String, Node> e : childMap.entrySet()) {
+                int i = spread(e.getKey().hashCode()) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = e.getKey();
+                children[i] = e.getValue();
+            }
+            return new Node(path, value, wildcardValue, keys, children);
+        }
+
+        private static final class Builder {
+            private final String path;
+            private final Map<String, Builder> children = new HashMap<>();
+            private Tristate value = Tristate.UNDEFINED;
+            private Tristate wildcardValue = Tristate.UNDEFINED;
+
+            Builder(String path) {
+                this.path = path;
+            }
+
+            /**
+             * Gets (creating if necessary) the node for {@code key[0, end)}.
+             */
+            Builder descend(String key, int end) {
+                Builder node = this;
+                int start = 0;
+                while (true) {
+                    int sep = key.indexOf(AbstractNode.NODE_SEPARATOR, start);
+                    int segmentEnd = sep == -1 || sep > end ? end : sep;
+
+                    final int pathEnd = segmentEnd;
+                    node = node.children.computeIfAbsent(key.substring(start, segmentEnd), s -> new Builder(key.substring(0, pathEnd)));
+
+                    if (segmentEnd == end) {
+                        return node;
+                    }
+                    start = segmentEnd + 1;
+                }
+            }
+
+            Node build() {
+                Map<String, Node> children = new HashMap<>(this.children.size());
+                for (Map.Entry<String, Builder> e : this.children.entrySet()) {
+                    children.put(e.getKey(), e.getValue().build());
+                }
+                return of(this.path, this.value, this.wildcardValue, children);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import me.lucko.luckperms.common.calculator.result.TristateResult;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Permission Processor for platforms with a "child" permission system.
+ */
+public abstract class AbstractChildProcessor extends AbstractPermissionProcessor implements PermissionProcessor {
+    private final AtomicBoolean needsRefresh = new AtomicBoolean(false);
+    // read without synchronization, and may be left unchanged by invalidate()
+    private volatile Map<String, TristateResult> childPermissions = Collections.emptyMap();
+    private volatile int childPermissionsVersion = -1;
+
+    /**
+     * Gets the resolved child permissions of the platform.
+     *
+     * @return the child permission results
+     */
+    protected abstract ChildPermissionResults getChildPermissionResults();
+
+    @Override
+    public TristateResult hasPermission(String permission) {
+        if (this.needsRefresh.compareAndSet(true, false)) {
+            refresh();
+        }
+        return this.childPermissions.getOrDefault(permission, TristateResult.UNDEFINED);
+    }
+
+    @Override
+    public void refresh() {
+        ChildPermissionResults results = getChildPermissionResults();
+        int version = results.getVersion();
+
+        // the resolved children of each permission are shared between all users,
+        // so avoid copying them unless more than one needs to be merged
+        Map<String, TristateResult> childPermissions = Collections.emptyMap();
+        boolean shared = true;
+
+        for (Map.Entry<String, Boolean> entry : this.sourceMap.entrySet()) {
+            Map<String, TristateResult> children = results.get(entry.getKey(), entry.getValue());
+            if (children.isEmpty()) {
+                continue;
+            }
+
+            if (childPermissions.isEmpty()) {
+                childPermissions = children;
+            } else {
+                if (shared) {
+                    childPermissions = new HashMap<>(childPermissions);
+                    shared = false;
+                }
+                childPermissions.putAll(children);
+            }
+        }
+
+        this.childPermissions = childPermissions;
+        this.childPermissionsVersion = version;
+        this.needsRefresh.set(false);
+    }
+
+    @Override
+    public void invalidate() {
+        // only refresh if the child permission relationships have actually changed
+        if (this.childPermissionsVersion != getChildPermissionResults().getVersion()) {
+            this.needsRefresh.set(true);
+        }
+    }
+}
@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.calculator.processor;
 
+import me.lucko.luckperms.common.calculator.PermissionTrie;
 import me.lucko.luckperms.common.calculator.result.TristateResult;
 
 import java.util.Collections;
@@ -46,5 +47,17 @@ public abstract class AbstractPermissionProcessor implements PermissionProcessor
         return hasPermission(permission);
     }
 
+    @Override
+    public TristateResult hasPermission(TristateResult prev, String permission, PermissionTrie.Walk walk) {
+        if (prev != TristateResult.UNDEFINED) {
+            return prev;
+        }
+        return hasPermission(permission, walk);
+    }
+
     public abstract TristateResult hasPermission(String permission);
+
+    public TristateResult hasPermission(String permission, PermissionTrie.Walk walk) {
+        return hasPermission(permission);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.common.cache.LoadingMap;
+import me.lucko.luckperms.common.calculator.result.TristateResult;
+
+import net.luckperms.api.util.Tristate;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A cache of the resolved children of each permission, as processor results.
+ *
+ * <p>The result maps are immutable and shared between all of the
+ * {@link AbstractChildProcessor}s on the platform.</p>
+ */
+public final class ChildPermissionResults {
+
+    // cache from permission --> children, as processor results
+    private final Map<String, Map<String, TristateResult>> trueChildResults;
+    private final Map<String, Map<String, TristateResult>> falseChildResults;
+
+    // incremented each time the cache is invalidated
+    private final AtomicInteger version = new AtomicInteger();
+
+    private final TristateResult.Factory resultFactory;
+    private final BiFunction<String, Boolean, Map<String, Boolean>> childPermissions;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param resultFactory the factory used to create the results
+     * @param childPermissions a function which resolves the children of a permission with the given value
+     */
+    public ChildPermissionResults(TristateResult.Factory resultFactory, BiFunction<String, Boolean, Map<String, Boolean>> childPermissions) {
+        this.resultFactory = resultFactory;
+        this.childPermissions = childPermissions;
+        this.trueChildResults = LoadingMap.of(new Resolver(true));
+        this.falseChildResults = LoadingMap.of(new Resolver(false));
+    }
+
+    /**
+     * Gets the resolved children of the given permission.
+     *
+     * <p>The returned map is immutable and shared, so should not be copied
+     * unless it needs to be merged with another.</p>
+     *
+     * @param permission the parent permission
+     * @param value the value of the parent permission
+     * @return the child permission results
+     */
+    public Map<String, TristateResult> get(String permission, boolean value) {
+        return value ? this.trueChildResults.get(permission) : this.falseChildResults.get(permission);
+    }
+
+    /**
+     * Gets the current version of the cache.
+     *
+     * <p>Results obtained from {@link #get(String, boolean)} remain valid for
+     * as long as the version is unchanged.</p>
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * Invalidates the cache, following a change to the child permission relationships.
+     */
+    public void invalidate() {
+        this.trueChildResults.clear();
+        this.falseChildResults.clear();
+        this.version.incrementAndGet();
+    }
+
+    private final class Resolver implements Function<String, Map<String, TristateResult>> {
+        private final boolean value;
+
+        private Resolver(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public Map<String, TristateResult> apply(@NonNull String key) {
+            Map<String, Boolean> children = ChildPermissionResults.this.childPermissions.apply(key, this.value);
+            if (children.isEmpty()) {
+                return ImmutableMap.of();
+            }
+
+            String cause = "parent: " + key;
+            ImmutableMap.Builder<String, TristateResult> results = ImmutableMap.builder();
+            children.forEach((childKey, childValue) -> results.put(childKey, ChildPermissionResults.this.resultFactory.result(Tristate.of(childValue), cause)));
+            return results.build();
+        }
+    }
+}
@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.calculator.processor;
 
+import me.lucko.luckperms.common.calculator.PermissionTrie;
 import me.lucko.luckperms.common.calculator.result.TristateResult;
 
 import net.luckperms.api.util.Tristate;
@@ -37,4 +38,9 @@ public class DirectProcessor extends AbstractPermissionProcessor implements Perm
         return RESULT_FACTORY.result(Tristate.of(this.sourceMap.get(permission)));
     }
 
+    @Override
+    public TristateResult hasPermission(String permission, PermissionTrie.Walk walk) {
+        return RESULT_FACTORY.result(walk.direct());
+    }
+
 }
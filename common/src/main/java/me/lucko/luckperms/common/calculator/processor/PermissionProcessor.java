@@ -26,8 +26,10 @@
 package me.lucko.luckperms.common.calculator.processor;
 
 import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.PermissionTrie;
 import me.lucko.luckperms.common.calculator.result.TristateResult;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -47,6 +49,21 @@ public interface PermissionProcessor {
      */
     TristateResult hasPermission(TristateResult prev, String permission);
 
+    /**
+     * Returns the permission value determined by this calculator.
+     *
+     * <p>Processors which are able to determine a result from the calculators
+     * compiled {@link PermissionTrie} should override this method.</p>
+     *
+     * @param prev the result of the previous calculator in the chain
+     * @param permission the permission
+     * @param walk the result of walking the compiled trie for the permission
+     * @return a tristate
+     */
+    default TristateResult hasPermission(TristateResult prev, String permission, PermissionTrie.Walk walk) {
+        return hasPermission(prev, permission);
+    }
+
     /**
      * Sets the source permissions which should be used by this processor
      *
@@ -63,6 +80,15 @@ public interface PermissionProcessor {
 
     }
 
+    /**
+     * Called after some of the entries in the source map have been changed in place
+     *
+     * @param permissions the permissions which changed
+     */
+    default void refresh(Collection<String> permissions) {
+        refresh();
+    }
+
     /**
      * Called after the parent calculator has been invalidated
      */
@@ -33,6 +33,7 @@ import me.lucko.luckperms.common.node.types.RegexPermission;
 
 import net.luckperms.api.util.Tristate;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -72,4 +73,15 @@ public class RegexProcessor extends AbstractPermissionProcessor implements Permi
         }
         this.regexPermissions = builder.build();
     }
+
+    @Override
+    public void refresh(Collection<String> permissions) {
+        // the patterns only need to be compiled again if a regex permission changed
+        for (String permission : permissions) {
+            if (RegexPermission.parse(permission) != null) {
+                refresh();
+                return;
+            }
+        }
+    }
 }
@@ -25,13 +25,14 @@
 
 package me.lucko.luckperms.common.calculator.processor;
 
+import me.lucko.luckperms.common.calculator.PermissionTrie;
 import me.lucko.luckperms.common.calculator.result.TristateResult;
 import me.lucko.luckperms.common.node.AbstractNode;
 
 import net.luckperms.api.util.Tristate;
 
 public class SpongeWildcardProcessor extends AbstractPermissionProcessor implements PermissionProcessor {
-    private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(SpongeWildcardProcessor.class);
+    public static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(SpongeWildcardProcessor.class);
 
     @Override
     public TristateResult hasPermission(String permission) {
@@ -55,4 +56,9 @@ public class SpongeWildcardProcessor extends AbstractPermissionProcessor impleme
         return TristateResult.UNDEFINED;
     }
 
+    @Override
+    public TristateResult hasPermission(String permission, PermissionTrie.Walk walk) {
+        return walk.prefixResult();
+    }
+
 }
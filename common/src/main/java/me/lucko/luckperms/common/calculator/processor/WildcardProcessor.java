@@ -25,18 +25,14 @@
 
 package me.lucko.luckperms.common.calculator.processor;
 
-import com.google.common.collect.ImmutableMap;
-
+import me.lucko.luckperms.common.calculator.PermissionTrie;
 import me.lucko.luckperms.common.calculator.result.TristateResult;
 import me.lucko.luckperms.common.node.AbstractNode;
 
 import net.luckperms.api.util.Tristate;
 
-import java.util.Collections;
-import java.util.Map;
-
 public class WildcardProcessor extends AbstractPermissionProcessor implements PermissionProcessor {
-    private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(WildcardProcessor.class);
+    public static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(WildcardProcessor.class);
 
     public static final String WILDCARD_SUFFIX = ".*";
     private static final String ROOT_WILDCARD = "*";
@@ -50,7 +46,6 @@ public class WildcardProcessor extends AbstractPermissionProcessor implements Pe
         return isRootWildcard(permission) || permission.endsWith(WILDCARD_SUFFIX) && permission.length() > 2;
     }
 
-    private Map<String, TristateResult> wildcardPermissions = Collections.emptyMap();
     private TristateResult rootWildcardState = TristateResult.UNDEFINED;
 
     @Override
@@ -65,9 +60,9 @@ public class WildcardProcessor extends AbstractPermissionProcessor implements Pe
 
             node = node.substring(0, endIndex);
             if (!node.isEmpty()) {
-                TristateResult match = this.wildcardPermissions.get(node);
-                if (match != null && match.result() != Tristate.UNDEFINED) {
-                    return match;
+                Tristate t = Tristate.of(this.sourceMap.get(node + WILDCARD_SUFFIX));
+                if (t != Tristate.UNDEFINED) {
+                    return RESULT_FACTORY.result(t, "match: " + node);
                 }
             }
         }
@@ -76,20 +71,16 @@ public class WildcardProcessor extends AbstractPermissionProcessor implements Pe
     }
 
     @Override
-    public void refresh() {
-        ImmutableMap.Builder<String, TristateResult> builder = ImmutableMap.builder();
-        for (Map.Entry<String, Boolean> e : this.sourceMap.entrySet()) {
-            String key = e.getKey();
-            if (!key.endsWith(WILDCARD_SUFFIX) || key.length() <= 2) {
-                continue;
-            }
-            key = key.substring(0, key.length() - 2);
-
-            TristateResult value = RESULT_FACTORY.result(Tristate.of(e.getValue()), "match: " + key);
-            builder.put(key, value);
+    public TristateResult hasPermission(String permission, PermissionTrie.Walk walk) {
+        TristateResult match = walk.wildcardResult();
+        if (match != TristateResult.UNDEFINED) {
+            return match;
         }
-        this.wildcardPermissions = builder.build();
+        return this.rootWildcardState;
+    }
 
+    @Override
+    public void refresh() {
         Tristate state = Tristate.of(this.sourceMap.get(ROOT_WILDCARD));
         if (state == Tristate.UNDEFINED) {
             state = Tristate.of(this.sourceMap.get(ROOT_WILDCARD_WITH_QUOTES));
@@ -45,6 +45,7 @@ public enum CommandPermission {
     BULK_UPDATE("bulkupdate", Type.NONE),
     APPLY_EDITS("applyedits", Type.NONE),
     TRANSLATIONS("translations", Type.NONE),
+    METRICS("metrics", Type.NONE),
 
     CREATE_GROUP("creategroup", Type.NONE),
     DELETE_GROUP("deletegroup", Type.NONE),
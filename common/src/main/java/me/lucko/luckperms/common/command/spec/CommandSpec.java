@@ -89,6 +89,9 @@ public enum CommandSpec {
             arg("code", true),
             arg("target", false)
     ),
+    METRICS("/%s metrics [export]",
+            arg("export", false)
+    ),
 
     CREATE_GROUP("/%s creategroup <group>",
             arg("name", true),
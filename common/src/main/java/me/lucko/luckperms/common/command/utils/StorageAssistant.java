@@ -97,12 +97,15 @@ public final class StorageAssistant {
             return;
         }
 
-        plugin.getGroupManager().invalidateAllGroupCaches();
-        plugin.getUserManager().invalidateAllUserCaches();
+        plugin.getInheritanceIndex().invalidateDependents(group);
 
         Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
         if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
-            messagingService.get().getUpdateBuffer().request();
+            if (plugin.getConfiguration().get(ConfigKeys.PUSH_GRANULAR_UPDATES)) {
+                messagingService.get().pushGroupUpdate(group);
+            } else {
+                messagingService.get().getUpdateBuffer().request();
+            }
         }
     }
 
@@ -120,7 +123,11 @@ public final class StorageAssistant {
 
         Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
         if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
-            messagingService.get().getUpdateBuffer().request();
+            if (plugin.getConfiguration().get(ConfigKeys.PUSH_GRANULAR_UPDATES)) {
+                messagingService.get().pushTrackUpdate(track);
+            } else {
+                messagingService.get().getUpdateBuffer().request();
+            }
         }
     }
 
@@ -27,22 +27,24 @@ package me.lucko.luckperms.common.commands.log;
 
 import com.google.common.collect.ImmutableList;
 
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.ActionFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.command.abstraction.Command;
 import me.lucko.luckperms.common.command.abstraction.ParentCommand;
 import me.lucko.luckperms.common.command.spec.CommandSpec;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class LogParentCommand extends ParentCommand<Log, Void> {
+public class LogParentCommand extends ParentCommand<Storage, Void> {
     private final ReentrantLock lock = new ReentrantLock();
 
     public LogParentCommand() {
-        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Log>>builder()
+        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Storage>>builder()
                 .add(new LogRecent())
                 .add(new LogSearch())
                 .add(new LogNotify())
@@ -59,18 +61,30 @@ public class LogParentCommand extends ParentCommand<Log, Void> {
     }
 
     @Override
-    protected Log getTarget(Void target, LuckPermsPlugin plugin, Sender sender) {
-        Log log = plugin.getStorage().getLog().join();
+    protected Storage getTarget(Void target, LuckPermsPlugin plugin, Sender sender) {
+        // entries are queried a page at a time by each command
+        return plugin.getStorage();
+    }
 
-        if (log == null) {
+    /**
+     * Loads a page of the log, sending an error message to the sender if it couldn't be loaded.
+     *
+     * @param storage the storage to load from
+     * @param sender the sender
+     * @param filter the filter
+     * @param parameters the page to load
+     * @return the page, or null if it couldn't be loaded
+     */
+    static LogPage loadPage(Storage storage, Sender sender, ActionFilter filter, LogPage.Parameters parameters) {
+        LogPage page = storage.getLogPage(filter, parameters).join();
+        if (page == null) {
             Message.LOG_LOAD_ERROR.send(sender);
         }
-
-        return log;
+        return page;
     }
 
     @Override
-    protected void cleanup(Log log, LuckPermsPlugin plugin) {
+    protected void cleanup(Storage storage, LuckPermsPlugin plugin) {
 
     }
 
@@ -0,0 +1,117 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.commands.misc;
+
+import me.lucko.luckperms.common.command.abstraction.SingleCommand;
+import me.lucko.luckperms.common.command.access.CommandPermission;
+import me.lucko.luckperms.common.command.spec.CommandSpec;
+import me.lucko.luckperms.common.command.tabcomplete.CompletionSupplier;
+import me.lucko.luckperms.common.command.tabcomplete.TabCompleter;
+import me.lucko.luckperms.common.command.utils.ArgumentList;
+import me.lucko.luckperms.common.locale.Message;
+import me.lucko.luckperms.common.metrics.Counter;
+import me.lucko.luckperms.common.metrics.Gauge;
+import me.lucko.luckperms.common.metrics.MetricFamily;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
+import me.lucko.luckperms.common.metrics.Timer;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.tasks.MetricsExportTask;
+import me.lucko.luckperms.common.util.Predicates;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class MetricsCommand extends SingleCommand {
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    public MetricsCommand() {
+        super(CommandSpec.METRICS, "Metrics", CommandPermission.METRICS, Predicates.notInRange(0, 1));
+    }
+
+    @Override
+    public void execute(LuckPermsPlugin plugin, Sender sender, ArgumentList args, String label) {
+        if (!args.isEmpty() && args.get(0).equalsIgnoreCase("export")) {
+            Path file;
+            try {
+                file = new MetricsExportTask(plugin).export();
+            } catch (IOException e) {
+                plugin.getLogger().warn("Unable to write metrics file", e);
+                Message.EXPORT_FILE_FAILURE.send(sender);
+                return;
+            }
+
+            Message.EXPORT_FILE_SUCCESS.send(sender, file.toString());
+            return;
+        }
+
+        MetricsRegistry metrics = plugin.getMetrics();
+        Message.METRICS_HEADER.send(sender);
+        Message.METRICS_CACHE_HIT_RATIO.send(sender, metrics.getPermissionChecks(), metrics.getPermissionCacheMisses());
+
+        for (MetricFamily<?> family : metrics.getFamilies()) {
+            for (Map.Entry<String, ?> entry : family.getChildren().entrySet()) {
+                String name = family.getLabelName() == null ? family.getName() : family.getName() + "{" + family.getLabelName() + "=" + entry.getKey() + "}";
+
+                if (family.getType() == MetricFamily.Type.TIMER) {
+                    Timer timer = (Timer) entry.getValue();
+                    long count = timer.getCount();
+                    if (count == 0) {
+                        continue;
+                    }
+                    double mean = timer.getTotalNanos() / NANOS_PER_MILLI / count;
+                    double p95 = timer.getPercentile(0.95) / NANOS_PER_MILLI;
+                    double p99 = timer.getPercentile(0.99) / NANOS_PER_MILLI;
+                    Message.METRICS_TIMER_ENTRY.send(sender, name, count, mean, p95, p99, timer.getMaxNanos() / NANOS_PER_MILLI);
+                } else if (family.getType() == MetricFamily.Type.GAUGE) {
+                    Gauge gauge = (Gauge) entry.getValue();
+                    if (gauge.getPeak() == 0) {
+                        continue;
+                    }
+                    Message.METRICS_GAUGE_ENTRY.send(sender, name, gauge.getValue());
+                } else {
+                    long count = ((Counter) entry.getValue()).getCount();
+                    if (count == 0) {
+                        continue;
+                    }
+                    Message.METRICS_COUNTER_ENTRY.send(sender, name, count);
+                }
+            }
+        }
+
+        Message.METRICS_EXPORT_PROMPT.send(sender, label);
+    }
+
+    @Override
+    public List<String> tabComplete(LuckPermsPlugin plugin, Sender sender, ArgumentList args) {
+        return TabCompleter.create()
+                .at(0, CompletionSupplier.startsWith("export"))
+                .complete(args);
+    }
+
+}
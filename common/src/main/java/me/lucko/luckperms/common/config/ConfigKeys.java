@@ -67,6 +67,7 @@ import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.booleanKey;
+import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.integerKey;
 import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.key;
 import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.lowercaseStringKey;
 import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.mapKey;
@@ -146,6 +147,17 @@ public final class ConfigKeys {
                 .collect(ImmutableCollectors.toSet());
     }));
 
+    /**
+     * If player contexts should be cached until they are invalidated, instead of being recalculated every tick
+     */
+    public static final ConfigKey<Boolean> EVENT_DRIVEN_CONTEXT_CACHE = notReloadable(booleanKey("event-driven-context-cache", false));
+
+    /**
+     * The maximum time in milliseconds player contexts are cached for when the event driven cache is enabled.
+     * A value <= 0 means contexts are only recalculated when invalidated.
+     */
+    public static final ConfigKey<Integer> CONTEXT_CACHE_MAX_AGE = notReloadable(integerKey("context-cache-max-age", 5000));
+
     /**
      * # If the servers own UUID cache/lookup facility should be used when there is no record for a player in the LuckPerms cache.
      */
@@ -161,6 +173,12 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> SKIP_BULKUPDATE_CONFIRMATION = booleanKey("skip-bulkupdate-confirmation", false);
 
+    /**
+     * How often (in seconds) runtime metrics should be written to a file in the Prometheus text format.
+     * A value <= 0 disables the export.
+     */
+    public static final ConfigKey<Integer> METRICS_EXPORT_INTERVAL = notReloadable(integerKey("metrics-export-interval", 0));
+
     /**
      * If LuckPerms should produce extra logging output when it handles logins.
      */
@@ -273,6 +291,11 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> APPLYING_SHORTHAND = notReloadable(booleanKey("apply-shorthand", true));
 
+    /**
+     * The maximum number of permission check results cached by each calculator. A value <= 0 means unbounded.
+     */
+    public static final ConfigKey<Integer> PERMISSION_CHECK_CACHE_SIZE = integerKey("permission-check-cache-size", 5000);
+
     /**
      * If Bukkit child permissions are being applied. This setting is ignored on other platforms.
      */
@@ -334,6 +357,11 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> POST_TRAVERSAL_INHERITANCE_SORT = booleanKey("post-traversal-inheritance-sort", false);
 
+    /**
+     * If holder node maps should serve reads from an immutable snapshot, which is republished after each change
+     */
+    public static final ConfigKey<Boolean> COPY_ON_WRITE_NODE_MAPS = notReloadable(booleanKey("copy-on-write-node-maps", false));
+
     /**
      * The meta value selector
      */
@@ -601,6 +629,17 @@ public final class ConfigKeys {
         return ImmutableMap.copyOf(map);
     }));
 
+    /**
+     * The time in milliseconds user and group saves are delayed for, so they can be merged. 0 to disable.
+     */
+    public static final ConfigKey<Integer> WRITE_BEHIND_DELAY = notReloadable(integerKey("write-behind-delay", 0));
+
+    /**
+     * The time in milliseconds a storage call can take before a warning is logged.
+     * A value <= 0 disables the warning.
+     */
+    public static final ConfigKey<Integer> STORAGE_SLOW_CALL_THRESHOLD = integerKey("storage-slow-call-threshold", 0);
+
     /**
      * The name of the messaging service in use, or "none" if not enabled
      */
@@ -611,6 +650,12 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> AUTO_PUSH_UPDATES = notReloadable(booleanKey("auto-push-updates", true));
 
+    /**
+     * If changes to a single group or track should be pushed as a granular update message,
+     * instead of a general update ping which causes a full sync on receiving servers
+     */
+    public static final ConfigKey<Boolean> PUSH_GRANULAR_UPDATES = notReloadable(booleanKey("push-granular-updates", false));
+
     /**
      * If LuckPerms should push logging entries to connected servers via the messaging service
      */
@@ -50,6 +50,10 @@ public class LuckPermsConfiguration extends KeyedConfiguration {
     @Override
     public void reload() {
         super.reload();
+
+        // the inheritance traversal rules may have changed
+        getPlugin().getInheritanceGraphFactory().invalidate();
+
         getPlugin().getEventDispatcher().dispatchConfigReload();
     }
 
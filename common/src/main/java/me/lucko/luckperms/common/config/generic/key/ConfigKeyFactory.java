@@ -35,6 +35,7 @@ import java.util.function.Function;
 public interface ConfigKeyFactory<T> {
 
     ConfigKeyFactory<Boolean> BOOLEAN = ConfigurationAdapter::getBoolean;
+    ConfigKeyFactory<Integer> INTEGER = ConfigurationAdapter::getInteger;
     ConfigKeyFactory<String> STRING = ConfigurationAdapter::getString;
     ConfigKeyFactory<String> LOWERCASE_STRING = (adapter, path, def) -> adapter.getString(path, def).toLowerCase();
     ConfigKeyFactory<Map<String, String>> STRING_MAP = (config, path, def) -> ImmutableMap.copyOf(config.getStringMap(path, ImmutableMap.of()));
@@ -52,6 +53,10 @@ public interface ConfigKeyFactory<T> {
         return key(new Bound<>(BOOLEAN, path, def));
     }
 
+    static SimpleConfigKey<Integer> integerKey(String path, int def) {
+        return key(new Bound<>(INTEGER, path, def));
+    }
+
     static SimpleConfigKey<String> stringKey(String path, String def) {
         return key(new Bound<>(STRING, path, def));
     }
@@ -28,7 +28,9 @@ package me.lucko.luckperms.common.context;
 import me.lucko.luckperms.common.cache.ExpiringCache;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.context.contextset.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.metrics.Timer;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
 
 import net.luckperms.api.context.ContextCalculator;
 import net.luckperms.api.context.ContextConsumer;
@@ -41,7 +43,9 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -60,6 +64,9 @@ public abstract class ContextManager<S, P extends S> {
     // caches static context lookups
     private final StaticLookupCache staticLookupCache = new StaticLookupCache();
 
+    // timings for each registered calculator
+    private final Map<ContextCalculator<?>, Timer> calculatorTimers = new ConcurrentHashMap<>();
+
     protected ContextManager(LuckPermsPlugin plugin, Class<S> subjectClass, Class<P> playerClass) {
         this.plugin = plugin;
         this.subjectClass = subjectClass;
@@ -78,6 +85,21 @@ public abstract class ContextManager<S, P extends S> {
 
     public abstract QueryOptionsSupplier getCacheFor(S subject);
 
+    /**
+     * Gets how long the contexts of a subject should be cached for once calculated.
+     *
+     * @return the cache duration, in nanoseconds
+     */
+    public long getCacheDurationNanos() {
+        if (!this.plugin.getConfiguration().get(ConfigKeys.EVENT_DRIVEN_CONTEXT_CACHE)) {
+            return TimeUnit.MILLISECONDS.toNanos(50L); // expire roughly every tick
+        }
+
+        // otherwise, only expire when invalidated (or once the max age is reached)
+        int maxAge = this.plugin.getConfiguration().get(ConfigKeys.CONTEXT_CACHE_MAX_AGE);
+        return maxAge <= 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(maxAge);
+    }
+
     public QueryOptions getQueryOptions(S subject) {
         return getCacheFor(subject).getQueryOptions();
     }
@@ -115,41 +137,61 @@ public abstract class ContextManager<S, P extends S> {
     protected abstract void invalidateCache(S subject);
 
     public void registerCalculator(ContextCalculator<? super S> calculator) {
+        this.calculatorTimers.put(calculator, this.plugin.getMetrics().getContextCalculatorTimer(getCalculatorClass(calculator)));
         this.calculators.add(calculator);
     }
 
     public void unregisterCalculator(ContextCalculator<? super S> calculator) {
         this.calculators.remove(calculator);
+        this.calculatorTimers.remove(calculator);
     }
 
     protected QueryOptions calculate(S subject) {
+        long calculationStart = System.nanoTime();
         ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
         ContextConsumer consumer = accumulator::add;
 
         for (ContextCalculator<? super S> calculator : this.calculators.calculators()) {
+            long start = System.nanoTime();
             try {
                 calculator.calculate(subject, consumer);
             } catch (Throwable e) {
                 this.plugin.getLogger().warn("An exception was thrown by " + getCalculatorClass(calculator) + " whilst calculating the context of subject " + subject, e);
             }
+
+            recordCalculatorTime(calculator, start);
         }
 
-        return formQueryOptions(subject, accumulator.build());
+        QueryOptions queryOptions = QueryOptionsImpl.intern(formQueryOptions(subject, accumulator.build()));
+        this.plugin.getMetrics().getSubjectQueryOptionsTimer().recordSince(calculationStart);
+        return queryOptions;
     }
 
     private QueryOptions calculateStatic() {
+        long calculationStart = System.nanoTime();
         ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
         ContextConsumer consumer = accumulator::add;
 
         for (StaticContextCalculator calculator : this.calculators.staticCalculators()) {
+            long start = System.nanoTime();
             try {
                 calculator.calculate(consumer);
             } catch (Throwable e) {
                 this.plugin.getLogger().warn("An exception was thrown by " + getCalculatorClass(calculator) + " whilst calculating static contexts", e);
             }
+            recordCalculatorTime(calculator, start);
         }
 
-        return formQueryOptions(accumulator.build());
+        QueryOptions queryOptions = QueryOptionsImpl.intern(formQueryOptions(accumulator.build()));
+        this.plugin.getMetrics().getStaticQueryOptionsTimer().recordSince(calculationStart);
+        return queryOptions;
+    }
+
+    private void recordCalculatorTime(ContextCalculator<?> calculator, long startNanos) {
+        Timer timer = this.calculatorTimers.get(calculator);
+        if (timer != null) {
+            timer.recordSince(startNanos);
+        }
     }
 
     public ImmutableContextSet getPotentialContexts() {
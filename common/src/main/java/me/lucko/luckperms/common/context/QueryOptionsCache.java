@@ -44,7 +44,7 @@ public final class QueryOptionsCache<T> extends ExpiringCache<QueryOptions> impl
     private final ContextManager<T, ?> contextManager;
 
     public QueryOptionsCache(T subject, ContextManager<T, ?> contextManager) {
-        super(50L, TimeUnit.MILLISECONDS); // expire roughly every tick
+        super(contextManager.getCacheDurationNanos(), TimeUnit.NANOSECONDS);
         this.subject = subject;
         this.contextManager = contextManager;
     }
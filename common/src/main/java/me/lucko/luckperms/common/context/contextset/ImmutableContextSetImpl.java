@@ -28,6 +28,8 @@ package me.lucko.luckperms.common.context.contextset;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
@@ -51,6 +53,31 @@ import java.util.Set;
 public final class ImmutableContextSetImpl extends AbstractContextSet implements ImmutableContextSet {
     public static final ImmutableContextSetImpl EMPTY = new ImmutableContextSetImpl(ImmutableSetMultimap.of());
 
+    /**
+     * Pool of canonical instances. Entries are weakly referenced, so sets which
+     * are no longer in use can still be garbage collected.
+     */
+    private static final Interner<ImmutableContextSetImpl> INTERNER = Interners.newWeakInterner();
+
+    /**
+     * Returns the canonical instance of the given context set.
+     *
+     * <p>Equal sets returned by this method are the same instance, so they can be
+     * compared by identity.</p>
+     *
+     * @param contextSet the context set
+     * @return the canonical instance
+     */
+    public static ImmutableContextSet intern(ImmutableContextSet contextSet) {
+        if (contextSet.isEmpty()) {
+            return EMPTY;
+        }
+        if (!(contextSet instanceof ImmutableContextSetImpl)) {
+            return contextSet;
+        }
+        return INTERNER.intern((ImmutableContextSetImpl) contextSet);
+    }
+
     public static ImmutableContextSet of(String key, String value) {
         key = sanitizeKey(key);
         value = sanitizeValue(value);
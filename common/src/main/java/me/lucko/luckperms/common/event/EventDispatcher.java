@@ -124,8 +124,10 @@ public final class EventDispatcher {
     }
 
     private void post(Class<? extends LuckPermsEvent> eventClass, Object... params) {
+        long start = System.nanoTime();
         LuckPermsEvent event = generate(eventClass, params);
         this.eventBus.post(event);
+        this.eventBus.getPlugin().getMetrics().recordEventDispatch(eventClass, start);
     }
 
     private void postAsync(Class<? extends LuckPermsEvent> eventClass, Object... params) {
@@ -25,11 +25,14 @@
 
 package me.lucko.luckperms.common.inheritance;
 
+import me.lucko.luckperms.common.model.PermissionHolder;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.query.QueryOptionsImpl;
 
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.List;
+
 /**
  * Provides {@link InheritanceGraph}s.
  */
@@ -39,6 +42,11 @@ public class InheritanceGraphFactory {
     private final InheritanceGraph nonContextualGraph;
     private final InheritanceGraph defaultContextualGraph;
 
+    /**
+     * Memoised inheritance traversal orders, shared by all holders
+     */
+    private final InheritanceOrderCache orderCache = new InheritanceOrderCache(this);
+
     public InheritanceGraphFactory(LuckPermsPlugin plugin) {
         this.plugin = plugin;
         this.nonContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_NON_CONTEXTUAL);
@@ -55,4 +63,30 @@ public class InheritanceGraphFactory {
         }
     }
 
+    /**
+     * Gets the inheritance traversal order for the given holder.
+     *
+     * @param holder the holder
+     * @param queryOptions the query options
+     * @return the traversal order, starting with the holder itself
+     * @see InheritanceOrderCache
+     */
+    public List<PermissionHolder> getInheritanceOrder(PermissionHolder holder, QueryOptions queryOptions) {
+        return this.orderCache.get(holder, queryOptions);
+    }
+
+    /**
+     * Records that the inheritance order of a holder is about to be invalidated.
+     */
+    public void recordInheritanceOrderChange() {
+        this.orderCache.recordChange();
+    }
+
+    /**
+     * Marks every memoised inheritance traversal as stale.
+     */
+    public void invalidate() {
+        this.orderCache.invalidateAll();
+    }
+
 }
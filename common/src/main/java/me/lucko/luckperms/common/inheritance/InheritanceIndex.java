@@ -0,0 +1,212 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.inheritance;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.nodemap.MutateResult;
+
+import net.luckperms.api.node.types.InheritanceNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A reverse index of the inheritance relationships between loaded holders.
+ *
+ * <p>Maps each group name to the holders which inherit from it directly,
+ * so that a change to a group only needs to invalidate the holders which
+ * actually depend on it, instead of every loaded user and group.</p>
+ *
+ * <p>Holders are weakly referenced (by identity), so unloaded users drop
+ * out of the index once they are garbage collected.</p>
+ */
+public class InheritanceIndex {
+
+    /** group name --> holders which directly inherit the group */
+    private final Map<String, Set<PermissionHolder>> dependents = new HashMap<>();
+
+    /** holder --> names of the groups it directly inherits */
+    private final Map<PermissionHolder, Set<String>> parents = new MapMaker().weakKeys().makeMap();
+
+    private static Set<PermissionHolder> newHolderSet() {
+        return Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+    }
+
+    /**
+     * Re-reads the inheritance nodes of the given holder and updates
+     * the index accordingly.
+     *
+     * <p>Called after a mutation to either of the holder's node maps
+     * which added or removed an {@link InheritanceNode}.</p>
+     *
+     * @param holder the holder
+     */
+    public synchronized void update(PermissionHolder holder) {
+        List<InheritanceNode> nodes = new ArrayList<>();
+        holder.normalData().copyInheritanceNodesTo(nodes);
+        holder.transientData().copyInheritanceNodesTo(nodes);
+
+        Set<String> newParents = new HashSet<>();
+        for (InheritanceNode node : nodes) {
+            newParents.add(node.getGroupName());
+        }
+
+        Set<String> oldParents = newParents.isEmpty() ? this.parents.remove(holder) : this.parents.put(holder, newParents);
+        if (oldParents != null) {
+            for (String parent : oldParents) {
+                if (newParents.contains(parent)) {
+                    continue;
+                }
+                Set<PermissionHolder> set = this.dependents.get(parent);
+                if (set != null) {
+                    set.remove(holder);
+                    if (set.isEmpty()) {
+                        this.dependents.remove(parent);
+                    }
+                }
+            }
+        }
+
+        for (String parent : newParents) {
+            this.dependents.computeIfAbsent(parent, k -> newHolderSet()).add(holder);
+        }
+    }
+
+    /**
+     * Gets the loaded holders which inherit directly from the given group.
+     *
+     * @param groupName the name of the group
+     * @return the direct dependents
+     */
+    public synchronized Set<PermissionHolder> getDirectDependents(String groupName) {
+        Set<PermissionHolder> set = this.dependents.get(groupName);
+        return set == null ? ImmutableSet.of() : ImmutableSet.copyOf(set);
+    }
+
+    /**
+     * Gets the loaded holders which inherit from the given group, either
+     * directly or via another group.
+     *
+     * @param groupName the name of the group
+     * @return the direct and transitive dependents
+     */
+    public synchronized Set<PermissionHolder> getDependents(String groupName) {
+        Set<PermissionHolder> result = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(groupName);
+
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (!visited.add(name)) {
+                continue;
+            }
+
+            Set<PermissionHolder> set = this.dependents.get(name);
+            if (set == null) {
+                continue;
+            }
+
+            for (PermissionHolder holder : set) {
+                if (result.add(holder) && holder instanceof Group) {
+                    queue.add(((Group) holder).getName());
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Updates the cached data of every loaded holder which (directly or
+     * transitively) inherits from the given group, following changes to its nodes.
+     *
+     * <p>The groups own cached data is kept up to date as its nodes change. The
+     * changes made since this method was last called are applied incrementally
+     * where possible, otherwise the dependents are invalidated.</p>
+     *
+     * @param group the group which changed
+     */
+    public void invalidateDependents(Group group) {
+        MutateResult changes = group.pollDependentChanges();
+        if (changes != null && changes.isEmpty()) {
+            return;
+        }
+
+        for (PermissionHolder holder : getDependents(group.getName())) {
+            if (changes == null || !holder.getCachedData().applyInheritedChanges(changes)) {
+                holder.getCachedData().invalidate();
+            }
+        }
+    }
+
+    /**
+     * Gets the names of the groups the given holder directly inherits,
+     * according to the index.
+     *
+     * @param holder the holder
+     * @return the parent group names
+     */
+    public Set<String> getParents(PermissionHolder holder) {
+        Set<String> set = this.parents.get(holder);
+        return set == null ? ImmutableSet.of() : ImmutableSet.copyOf(set);
+    }
+
+    /**
+     * Gets the number of holders currently tracked by the index.
+     *
+     * @return the number of indexed holders
+     */
+    public int getIndexedHolderCount() {
+        return this.parents.size();
+    }
+
+    /**
+     * Gets a snapshot of the number of direct dependents of each group
+     * in the index.
+     *
+     * @return a map of group name to direct dependent count
+     */
+    public synchronized Map<String, Integer> getDependentCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, Set<PermissionHolder>> entry : this.dependents.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().size());
+        }
+        return counts;
+    }
+
+}
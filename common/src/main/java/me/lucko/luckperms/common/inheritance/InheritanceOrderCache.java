@@ -0,0 +1,170 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.inheritance;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.collect.ImmutableList;
+
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoises the flattened inheritance traversal orders of holders, per
+ * {@link QueryOptions}, in a single bounded cache shared by all holders.
+ *
+ * <p>Each entry records the {@link PermissionHolder#getInheritanceOrderVersion()
+ * inheritance order version} of every holder in the order. A change to a group
+ * only bumps the version of that group, so only the orders which actually
+ * pass through it are recalculated. An entry is also discarded if the
+ * global version changes, e.g. when the traversal rules are reloaded.</p>
+ */
+public class InheritanceOrderCache {
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final InheritanceGraphFactory graphFactory;
+    private final Cache<Key, Entry> entries = CaffeineFactory.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterAccess(2, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Incremented to invalidate every order
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Incremented whenever any order is invalidated, so that orders which
+     * were calculated concurrently with the change aren't memoised
+     */
+    private final AtomicLong changeCount = new AtomicLong();
+
+    public InheritanceOrderCache(InheritanceGraphFactory graphFactory) {
+        this.graphFactory = graphFactory;
+    }
+
+    /**
+     * Gets the inheritance traversal order for the holder, according to the
+     * rules defined in the configuration.
+     *
+     * @param holder the holder
+     * @param queryOptions the query options
+     * @return the traversal order, starting with the holder itself
+     */
+    public List<PermissionHolder> get(PermissionHolder holder, QueryOptions queryOptions) {
+        Key key = new Key(holder, queryOptions);
+        long version = this.version.get();
+
+        Entry entry = this.entries.getIfPresent(key);
+        if (entry != null && entry.isValid(version)) {
+            return entry.order;
+        }
+
+        long changeCount = this.changeCount.get();
+        List<PermissionHolder> order = ImmutableList.copyOf(this.graphFactory.getGraph(queryOptions).traverse(holder));
+
+        long[] versions = new long[order.size()];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = order.get(i).getInheritanceOrderVersion();
+        }
+
+        // if something changed during the traversal, the versions we just
+        // read may be newer than the data which was traversed
+        if (this.changeCount.get() == changeCount) {
+            this.entries.put(key, new Entry(version, versions, order));
+        }
+        return order;
+    }
+
+    /**
+     * Records that the inheritance order of a holder is about to be invalidated.
+     *
+     * <p>Must be called before the holders version is incremented.</p>
+     */
+    public void recordChange() {
+        this.changeCount.incrementAndGet();
+    }
+
+    /**
+     * Invalidates the traversal orders of every holder.
+     */
+    public void invalidateAll() {
+        this.changeCount.incrementAndGet();
+        this.version.incrementAndGet();
+    }
+
+    private static final class Key {
+        private final PermissionHolder holder;
+        private final QueryOptions queryOptions;
+
+        Key(PermissionHolder holder, QueryOptions queryOptions) {
+            this.holder = holder;
+            this.queryOptions = queryOptions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return this.holder == other.holder && this.queryOptions.equals(other.queryOptions);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.holder) + this.queryOptions.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final long[] versions;
+        private final List<PermissionHolder> order;
+
+        Entry(long version, long[] versions, List<PermissionHolder> order) {
+            this.version = version;
+            this.versions = versions;
+            this.order = order;
+        }
+
+        boolean isValid(long version) {
+            if (this.version != version) {
+                return false;
+            }
+            for (int i = 0; i < this.versions.length; i++) {
+                if (this.order.get(i).getInheritanceOrderVersion() != this.versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
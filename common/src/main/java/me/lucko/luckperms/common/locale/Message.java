@@ -2845,6 +2845,74 @@ public interface Message {
             .append(FULL_STOP)
     );
 
+    Args0 METRICS_HEADER = () -> prefixed(translatable()
+            // "&bRuntime metrics:"
+            .key("luckperms.command.metrics.header")
+            .color(AQUA)
+            .append(text(':'))
+    );
+
+    Args2<Long, Long> METRICS_CACHE_HIT_RATIO = (checks, misses) -> prefixed(text()
+            // "&3Permission check cache hit ratio: &a{}% &7({} of {} checks)"
+            .color(DARK_AQUA)
+            .append(translatable("luckperms.command.metrics.cache-hit-ratio"))
+            .append(text(": "))
+            .append(text(checks == 0 ? "0" : String.format(Locale.ROOT, "%.2f", (checks - misses) * 100d / checks), GREEN))
+            .append(text('%', GREEN))
+            .append(space())
+            .append(text()
+                    .color(GRAY)
+                    .append(OPEN_BRACKET)
+                    .append(translatable("luckperms.command.metrics.cache-hits", text(checks - misses), text(checks)))
+                    .append(CLOSE_BRACKET)
+            )
+    );
+
+    Args2<String, Long> METRICS_COUNTER_ENTRY = (name, count) -> prefixed(text()
+            // "&f- &3{}: &a{}"
+            .color(DARK_AQUA)
+            .append(text("- ", WHITE))
+            .append(text(name))
+            .append(text(": "))
+            .append(text(count, GREEN))
+    );
+
+    Args2<String, Long> METRICS_GAUGE_ENTRY = (name, value) -> prefixed(text()
+            // "&f- &3{}: &a{}"
+            .color(DARK_AQUA)
+            .append(text("- ", WHITE))
+            .append(text(name))
+            .append(text(": "))
+            .append(text(value, GREEN))
+    );
+
+    Args6<String, Long, Double, Double, Double, Double> METRICS_TIMER_ENTRY = (name, count, meanMillis, p95Millis, p99Millis, maxMillis) -> prefixed(text()
+            // "&f- &3{}: &a{} &7calls, &a{}ms &7avg, &a{}ms &7p95, &a{}ms &7p99, &a{}ms &7max"
+            .color(DARK_AQUA)
+            .append(text("- ", WHITE))
+            .append(text(name))
+            .append(text(": "))
+            .append(translatable()
+                    .key("luckperms.command.metrics.timer-entry")
+                    .color(GRAY)
+                    .args(
+                            text(count, GREEN),
+                            text(String.format(Locale.ROOT, "%.3f", meanMillis), GREEN),
+                            text(String.format(Locale.ROOT, "%.3f", p95Millis), GREEN),
+                            text(String.format(Locale.ROOT, "%.3f", p99Millis), GREEN),
+                            text(String.format(Locale.ROOT, "%.3f", maxMillis), GREEN)
+                    )
+            )
+    );
+
+    Args1<String> METRICS_EXPORT_PROMPT = label -> prefixed(translatable()
+            // "&7Use &a/{} metrics export &7to write these metrics to a file in the Prometheus text format."
+            .key("luckperms.command.metrics.export-prompt")
+            .color(GRAY)
+            .args(text("/" + label + " metrics export", GREEN))
+            .append(FULL_STOP)
+    );
+
     Args4<String, String, Component, Boolean> USER_INFO_GENERAL = (username, uuid, uuidType, online) -> join(newline(),
             // "&b&l> &bUser Info: &f{}"
             // "&f- &3UUID: &f{}"
@@ -32,8 +32,12 @@ import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.cache.BufferedRequest;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.messaging.message.ActionLogMessageImpl;
+import me.lucko.luckperms.common.messaging.message.GroupUpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.TrackUpdateMessageImpl;
 import me.lucko.luckperms.common.messaging.message.UpdateMessageImpl;
 import me.lucko.luckperms.common.messaging.message.UserUpdateMessageImpl;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.util.ExpiringSet;
@@ -46,6 +50,8 @@ import net.luckperms.api.messenger.Messenger;
 import net.luckperms.api.messenger.MessengerProvider;
 import net.luckperms.api.messenger.message.Message;
 import net.luckperms.api.messenger.message.type.ActionLogMessage;
+import net.luckperms.api.messenger.message.type.GroupUpdateMessage;
+import net.luckperms.api.messenger.message.type.TrackUpdateMessage;
 import net.luckperms.api.messenger.message.type.UpdateMessage;
 import net.luckperms.api.messenger.message.type.UserUpdateMessage;
 
@@ -111,6 +117,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
             UUID requestId = generatePingId();
             this.plugin.getLogger().info("[Messaging] Sending ping with id: " + requestId);
+            this.plugin.getMetrics().recordMessageSent(UpdateMessageImpl.TYPE);
             this.messenger.sendOutgoingMessage(new UpdateMessageImpl(requestId));
         });
     }
@@ -120,10 +127,31 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
             UUID requestId = generatePingId();
             this.plugin.getLogger().info("[Messaging] Sending user ping for '" + user.getPlainDisplayName() + "' with id: " + requestId);
+            this.plugin.getMetrics().recordMessageSent(UserUpdateMessageImpl.TYPE);
             this.messenger.sendOutgoingMessage(new UserUpdateMessageImpl(requestId, user.getUniqueId()));
         });
     }
 
+    @Override
+    public void pushGroupUpdate(Group group) {
+        this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+            UUID requestId = generatePingId();
+            this.plugin.getLogger().info("[Messaging] Sending group ping for '" + group.getName() + "' with id: " + requestId);
+            this.plugin.getMetrics().recordMessageSent(GroupUpdateMessageImpl.TYPE);
+            this.messenger.sendOutgoingMessage(new GroupUpdateMessageImpl(requestId, group.getName()));
+        });
+    }
+
+    @Override
+    public void pushTrackUpdate(Track track) {
+        this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+            UUID requestId = generatePingId();
+            this.plugin.getLogger().info("[Messaging] Sending track ping for '" + track.getName() + "' with id: " + requestId);
+            this.plugin.getMetrics().recordMessageSent(TrackUpdateMessageImpl.TYPE);
+            this.messenger.sendOutgoingMessage(new TrackUpdateMessageImpl(requestId, track.getName()));
+        });
+    }
+
     @Override
     public void pushLog(Action logEntry) {
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
@@ -134,6 +162,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             }
 
             this.plugin.getLogger().info("[Messaging] Sending log with id: " + requestId);
+            this.plugin.getMetrics().recordMessageSent(ActionLogMessageImpl.TYPE);
             this.messenger.sendOutgoingMessage(new ActionLogMessageImpl(requestId, logEntry));
         });
     }
@@ -149,6 +178,8 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         // determine if the message can be handled by us
         boolean valid = message instanceof UpdateMessage ||
                 message instanceof UserUpdateMessage ||
+                message instanceof GroupUpdateMessage ||
+                message instanceof TrackUpdateMessage ||
                 message instanceof ActionLogMessage;
 
         // instead of throwing an exception here, just return false
@@ -198,6 +229,12 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             case UserUpdateMessageImpl.TYPE:
                 decoded = UserUpdateMessageImpl.decode(content, id);
                 break;
+            case GroupUpdateMessageImpl.TYPE:
+                decoded = GroupUpdateMessageImpl.decode(content, id);
+                break;
+            case TrackUpdateMessageImpl.TYPE:
+                decoded = TrackUpdateMessageImpl.decode(content, id);
+                break;
             case ActionLogMessageImpl.TYPE:
                 decoded = ActionLogMessageImpl.decode(content, id);
                 break;
@@ -228,6 +265,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
     private void processIncomingMessage(Message message) {
         if (message instanceof UpdateMessage) {
             UpdateMessage msg = (UpdateMessage) message;
+            this.plugin.getMetrics().recordMessageReceived(UpdateMessageImpl.TYPE);
 
             this.plugin.getLogger().info("[Messaging] Received update ping with id: " + msg.getId());
 
@@ -238,6 +276,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             this.plugin.getSyncTaskBuffer().request();
         } else if (message instanceof UserUpdateMessage) {
             UserUpdateMessage msg = (UserUpdateMessage) message;
+            this.plugin.getMetrics().recordMessageReceived(UserUpdateMessageImpl.TYPE);
 
             User user = this.plugin.getUserManager().getIfLoaded(msg.getUserUniqueId());
             if (user == null) {
@@ -251,8 +290,48 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             }
 
             this.plugin.getStorage().loadUser(user.getUniqueId(), null);
+        } else if (message instanceof GroupUpdateMessage) {
+            GroupUpdateMessage msg = (GroupUpdateMessage) message;
+            this.plugin.getMetrics().recordMessageReceived(GroupUpdateMessageImpl.TYPE);
+
+            this.plugin.getLogger().info("[Messaging] Received group update ping for '" + msg.getGroupName() + "' with id: " + msg.getId());
+
+            if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msg.getId())) {
+                return;
+            }
+
+            this.plugin.getStorage().loadGroup(msg.getGroupName()).whenComplete((group, ex) -> {
+                if (ex != null || !group.isPresent()) {
+                    // the group couldn't be reloaded (or no longer exists) - fallback to a full sync
+                    this.plugin.getSyncTaskBuffer().request();
+                    return;
+                }
+
+                this.plugin.getInheritanceIndex().invalidateDependents(group.get());
+            });
+        } else if (message instanceof TrackUpdateMessage) {
+            TrackUpdateMessage msg = (TrackUpdateMessage) message;
+            this.plugin.getMetrics().recordMessageReceived(TrackUpdateMessageImpl.TYPE);
+
+            this.plugin.getLogger().info("[Messaging] Received track update ping for '" + msg.getTrackName() + "' with id: " + msg.getId());
+
+            if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msg.getId())) {
+                return;
+            }
+
+            this.plugin.getStorage().loadTrack(msg.getTrackName()).whenComplete((track, ex) -> {
+                if (ex != null || !track.isPresent()) {
+                    // the track couldn't be reloaded (or no longer exists) - fallback to a full sync
+                    this.plugin.getSyncTaskBuffer().request();
+                    return;
+                }
+
+                this.plugin.getGroupManager().invalidateAllGroupCaches();
+                this.plugin.getUserManager().invalidateAllUserCaches();
+            });
         } else if (message instanceof ActionLogMessage) {
             ActionLogMessage msg = (ActionLogMessage) message;
+            this.plugin.getMetrics().recordMessageReceived(ActionLogMessageImpl.TYPE);
 
             this.plugin.getEventDispatcher().dispatchLogReceive(msg.getId(), msg.getAction());
             this.plugin.getLogDispatcher().dispatchFromRemote((LoggedAction) msg.getAction());
@@ -0,0 +1,118 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A named group of metrics, optionally split by the value of a single label.
+ *
+ * @param <T> the metric type
+ */
+public final class MetricFamily<T> {
+    private final String name;
+    private final String help;
+    private final Type type;
+    private final @Nullable String labelName;
+    private final Supplier<T> factory;
+    private final Map<String, T> children = new ConcurrentHashMap<>();
+
+    MetricFamily(String name, String help, Type type, @Nullable String labelName, Supplier<T> factory) {
+        this.name = name;
+        this.help = help;
+        this.type = type;
+        this.labelName = labelName;
+        this.factory = factory;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getHelp() {
+        return this.help;
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public @Nullable String getLabelName() {
+        return this.labelName;
+    }
+
+    /**
+     * Gets the metric for the given label value, creating it if necessary.
+     *
+     * @param labelValue the label value
+     * @return the metric
+     */
+    public T get(String labelValue) {
+        if (this.labelName == null) {
+            throw new IllegalStateException("Metric " + this.name + " does not have a label");
+        }
+
+        // avoid computeIfAbsent for the common case, it locks the bin even when the key is present
+        T metric = this.children.get(labelValue);
+        if (metric == null) {
+            metric = this.children.computeIfAbsent(labelValue, x -> this.factory.get());
+        }
+        return metric;
+    }
+
+    /**
+     * Gets the metric for an unlabelled family.
+     *
+     * @return the metric
+     */
+    public T get() {
+        if (this.labelName != null) {
+            throw new IllegalStateException("Metric " + this.name + " requires a " + this.labelName + " label");
+        }
+        return this.children.computeIfAbsent("", x -> this.factory.get());
+    }
+
+    /**
+     * Gets the metrics in this family, keyed and sorted by label value.
+     *
+     * <p>Unlabelled families contain a single entry with an empty key.</p>
+     *
+     * @return the metrics
+     */
+    public SortedMap<String, T> getChildren() {
+        return new TreeMap<>(this.children);
+    }
+
+    public enum Type {
+        COUNTER, GAUGE, TIMER
+    }
+}
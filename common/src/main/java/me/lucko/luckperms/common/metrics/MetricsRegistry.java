@@ -0,0 +1,189 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
+
+import net.luckperms.api.event.LuckPermsEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Holds the runtime metrics recorded by the plugin.
+ *
+ * <p>Metrics are kept in memory for the lifetime of the plugin, and are read by
+ * the metrics command, the API and the Prometheus exporter.</p>
+ */
+public class MetricsRegistry {
+    private final List<MetricFamily<?>> families = new ArrayList<>();
+
+    private final MetricFamily<Counter> permissionChecks = counter("luckperms_permission_checks_total", "Permission checks, by origin", "origin");
+    private final MetricFamily<Counter> permissionCacheMisses = counter("luckperms_permission_check_cache_misses_total", "Permission checks which were not answered by the lookup cache", null);
+    private final MetricFamily<Counter> permissionCacheEvictions = counter("luckperms_permission_check_cache_evictions_total", "Results evicted from the permission check lookup caches because they were full", null);
+    private final MetricFamily<Timer> queryOptionsCalculations = timer("luckperms_query_options_calculation_seconds", "Time taken to calculate query options, by subject type", "type");
+    private final MetricFamily<Timer> contextCalculators = timer("luckperms_context_calculator_seconds", "Time taken by context calculators, by calculator class", "calculator");
+    private final MetricFamily<Timer> cacheRebuilds = timer("luckperms_cached_data_rebuild_seconds", "Time taken to rebuild cached permission and meta data", "cache");
+    private final MetricFamily<Timer> storageCalls = timer("luckperms_storage_call_seconds", "Time taken by storage calls, by method", "method");
+    private final MetricFamily<Counter> storageErrors = counter("luckperms_storage_call_errors_total", "Storage calls which threw an exception, by method", "method");
+    private final MetricFamily<Gauge> storageInFlight = gauge("luckperms_storage_calls_in_flight", "Storage calls currently in progress, by method", "method");
+    private final MetricFamily<Timer> storageQueueWait = timer("luckperms_storage_queue_wait_seconds", "Time storage calls spent waiting for an executor thread, by method", "method");
+    private final MetricFamily<Counter> messagesSent = counter("luckperms_messages_sent_total", "Messages sent by the messaging service, by type", "type");
+    private final MetricFamily<Counter> messagesReceived = counter("luckperms_messages_received_total", "Messages received by the messaging service, by type", "type");
+    private final MetricFamily<Timer> eventDispatches = timer("luckperms_event_dispatch_seconds", "Time taken to dispatch events to listeners, by event", "event");
+
+    // resolved up front, as these are recorded on every permission check
+    private final Counter[] permissionChecksByOrigin;
+    private final Counter permissionCacheMissCounter = this.permissionCacheMisses.get();
+    private final Counter permissionCacheEvictionCounter = this.permissionCacheEvictions.get();
+
+    private final Timer subjectQueryOptionsTimer = this.queryOptionsCalculations.get("subject");
+    private final Timer staticQueryOptionsTimer = this.queryOptionsCalculations.get("static");
+    private final Timer permissionCacheRebuildTimer = this.cacheRebuilds.get("permission");
+    private final Timer metaCacheRebuildTimer = this.cacheRebuilds.get("meta");
+    private final Timer permissionCacheUpdateTimer = this.cacheRebuilds.get("permission_incremental");
+
+    public MetricsRegistry() {
+        PermissionCheckEvent.Origin[] origins = PermissionCheckEvent.Origin.values();
+        this.permissionChecksByOrigin = new Counter[origins.length];
+        for (PermissionCheckEvent.Origin origin : origins) {
+            this.permissionChecksByOrigin[origin.ordinal()] = this.permissionChecks.get(origin.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private MetricFamily<Counter> counter(String name, String help, String labelName) {
+        MetricFamily<Counter> family = new MetricFamily<>(name, help, MetricFamily.Type.COUNTER, labelName, Counter::new);
+        this.families.add(family);
+        return family;
+    }
+
+    private MetricFamily<Gauge> gauge(String name, String help, String labelName) {
+        MetricFamily<Gauge> family = new MetricFamily<>(name, help, MetricFamily.Type.GAUGE, labelName, Gauge::new);
+        this.families.add(family);
+        return family;
+    }
+
+    private MetricFamily<Timer> timer(String name, String help, String labelName) {
+        MetricFamily<Timer> family = new MetricFamily<>(name, help, MetricFamily.Type.TIMER, labelName, Timer::new);
+        this.families.add(family);
+        return family;
+    }
+
+    /**
+     * Gets all metric families, in the order they were registered.
+     *
+     * @return the metric families
+     */
+    public List<MetricFamily<?>> getFamilies() {
+        return Collections.unmodifiableList(this.families);
+    }
+
+    public void recordPermissionCheck(PermissionCheckEvent.Origin origin) {
+        this.permissionChecksByOrigin[origin.ordinal()].increment();
+    }
+
+    public void recordPermissionCacheMiss() {
+        this.permissionCacheMissCounter.increment();
+    }
+
+    public void recordPermissionCacheEviction() {
+        this.permissionCacheEvictionCounter.increment();
+    }
+
+    public Timer getSubjectQueryOptionsTimer() {
+        return this.subjectQueryOptionsTimer;
+    }
+
+    public Timer getStaticQueryOptionsTimer() {
+        return this.staticQueryOptionsTimer;
+    }
+
+    public Timer getContextCalculatorTimer(String calculatorClass) {
+        return this.contextCalculators.get(calculatorClass);
+    }
+
+    public Timer getPermissionCacheRebuildTimer() {
+        return this.permissionCacheRebuildTimer;
+    }
+
+    public Timer getMetaCacheRebuildTimer() {
+        return this.metaCacheRebuildTimer;
+    }
+
+    public Timer getPermissionCacheUpdateTimer() {
+        return this.permissionCacheUpdateTimer;
+    }
+
+    public void recordStorageCall(String method, long startNanos, boolean success) {
+        this.storageCalls.get(method).recordSince(startNanos);
+        if (!success) {
+            this.storageErrors.get(method).increment();
+        }
+    }
+
+    public Gauge getStorageInFlight(String method) {
+        return this.storageInFlight.get(method);
+    }
+
+    public void recordStorageQueueWait(String method, long submittedNanos) {
+        this.storageQueueWait.get(method).recordSince(submittedNanos);
+    }
+
+    public void recordMessageSent(String type) {
+        this.messagesSent.get(type).increment();
+    }
+
+    public void recordMessageReceived(String type) {
+        this.messagesReceived.get(type).increment();
+    }
+
+    public void recordEventDispatch(Class<? extends LuckPermsEvent> eventClass, long startNanos) {
+        this.eventDispatches.get(eventClass.getSimpleName()).recordSince(startNanos);
+    }
+
+    /**
+     * Gets the total number of permission checks, across all origins.
+     *
+     * @return the number of permission checks
+     */
+    public long getPermissionChecks() {
+        long total = 0;
+        for (Counter counter : this.permissionChecksByOrigin) {
+            total += counter.getCount();
+        }
+        return total;
+    }
+
+    public long getPermissionCacheMisses() {
+        return this.permissionCacheMissCounter.getCount();
+    }
+
+    public long getPermissionCacheEvictions() {
+        return this.permissionCacheEvictionCounter.getCount();
+    }
+}
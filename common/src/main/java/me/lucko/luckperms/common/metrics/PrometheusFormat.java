@@ -0,0 +1,101 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.util.Map;
+
+/**
+ * Writes the contents of a {@link MetricsRegistry} in the Prometheus text
+ * exposition format.
+ */
+public final class PrometheusFormat {
+    private PrometheusFormat() {}
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    public static String write(MetricsRegistry registry) {
+        StringBuilder sb = new StringBuilder();
+        for (MetricFamily<?> family : registry.getFamilies()) {
+            writeFamily(sb, family);
+        }
+        return sb.toString();
+    }
+
+    private static void writeFamily(StringBuilder sb, MetricFamily<?> family) {
+        String name = family.getName();
+        MetricFamily.Type type = family.getType();
+
+        sb.append("# HELP ").append(name).append(' ').append(family.getHelp()).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(typeName(type)).append('\n');
+
+        for (Map.Entry<String, ?> entry : family.getChildren().entrySet()) {
+            String label = family.getLabelName() == null ? null : family.getLabelName() + "=\"" + escape(entry.getKey()) + "\"";
+
+            if (type == MetricFamily.Type.TIMER) {
+                Timer t = (Timer) entry.getValue();
+                long[] buckets = t.getCumulativeBuckets();
+                for (int i = 0; i < buckets.length; i++) {
+                    String le = i < Timer.BUCKETS.length ? Double.toString(Timer.BUCKETS[i] / NANOS_PER_SECOND) : "+Inf";
+                    String labels = (label == null ? "" : label + ",") + "le=\"" + le + "\"";
+                    writeSample(sb, name + "_bucket", labels, Long.toString(buckets[i]));
+                }
+                writeSample(sb, name + "_sum", label, Double.toString(t.getTotalNanos() / NANOS_PER_SECOND));
+
+                // use the +Inf bucket, so the count is consistent with the buckets
+                writeSample(sb, name + "_count", label, Long.toString(buckets[buckets.length - 1]));
+            } else if (type == MetricFamily.Type.GAUGE) {
+                writeSample(sb, name, label, Long.toString(((Gauge) entry.getValue()).getValue()));
+            } else {
+                writeSample(sb, name, label, Long.toString(((Counter) entry.getValue()).getCount()));
+            }
+        }
+    }
+
+    private static String typeName(MetricFamily.Type type) {
+        switch (type) {
+            case COUNTER:
+                return "counter";
+            case GAUGE:
+                return "gauge";
+            case TIMER:
+                return "histogram";
+            default:
+                throw new AssertionError(type);
+        }
+    }
+
+    private static void writeSample(StringBuilder sb, String name, String labels, String value) {
+        sb.append(name);
+        if (labels != null) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
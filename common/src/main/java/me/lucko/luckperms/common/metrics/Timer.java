@@ -0,0 +1,165 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the count, total, maximum and distribution of durations.
+ */
+public final class Timer {
+
+    /** The upper bounds of each histogram bucket, in nanoseconds */
+    static final long[] BUCKETS = {
+            TimeUnit.MICROSECONDS.toNanos(10),
+            TimeUnit.MICROSECONDS.toNanos(100),
+            TimeUnit.MICROSECONDS.toNanos(500),
+            TimeUnit.MILLISECONDS.toNanos(1),
+            TimeUnit.MILLISECONDS.toNanos(5),
+            TimeUnit.MILLISECONDS.toNanos(10),
+            TimeUnit.MILLISECONDS.toNanos(50),
+            TimeUnit.MILLISECONDS.toNanos(100),
+            TimeUnit.MILLISECONDS.toNanos(500),
+            TimeUnit.SECONDS.toNanos(1),
+            TimeUnit.SECONDS.toNanos(5)
+    };
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    // one extra bucket for values above the largest bound
+    private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+
+    public Timer() {
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        this.count.increment();
+        this.total.add(nanos);
+        this.max.accumulate(nanos);
+
+        int i = 0;
+        while (i < BUCKETS.length && nanos > BUCKETS[i]) {
+            i++;
+        }
+        this.buckets[i].increment();
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()} value.
+     *
+     * @param startNanos the start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public long getTotalNanos() {
+        return this.total.sum();
+    }
+
+    public long getMaxNanos() {
+        return this.max.get();
+    }
+
+    /**
+     * Estimates the duration below which the given fraction of recorded
+     * durations fall.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the estimated duration in nanoseconds
+     */
+    public long getPercentile(double quantile) {
+        return estimatePercentile(getCumulativeBuckets(), getMaxNanos(), quantile);
+    }
+
+    /**
+     * Estimates a percentile from cumulative bucket counts, by interpolating
+     * linearly within the bucket the percentile falls into.
+     *
+     * @param cumulativeBuckets the cumulative bucket counts, as returned by {@link #getCumulativeBuckets()}
+     * @param maxNanos the largest recorded duration, used as the upper bound of the last bucket
+     * @param quantile the quantile, between 0 and 1
+     * @return the estimated duration in nanoseconds
+     */
+    public static long estimatePercentile(long[] cumulativeBuckets, long maxNanos, double quantile) {
+        long total = cumulativeBuckets[cumulativeBuckets.length - 1];
+        if (total == 0) {
+            return 0;
+        }
+
+        double rank = quantile * total;
+        for (int i = 0; i < cumulativeBuckets.length; i++) {
+            if (cumulativeBuckets[i] < rank) {
+                continue;
+            }
+
+            long lower = i == 0 ? 0 : BUCKETS[i - 1];
+            long upper = i < BUCKETS.length ? BUCKETS[i] : Math.max(maxNanos, lower);
+            long below = i == 0 ? 0 : cumulativeBuckets[i - 1];
+            long inBucket = cumulativeBuckets[i] - below;
+
+            double fraction = inBucket == 0 ? 1 : (rank - below) / inBucket;
+            return Math.min(lower + (long) ((upper - lower) * fraction), Math.max(maxNanos, lower));
+        }
+        return maxNanos;
+    }
+
+    /**
+     * Gets the cumulative count of recorded durations which were less than
+     * or equal to each bound in {@link #BUCKETS}, followed by the total count.
+     *
+     * @return the cumulative bucket counts
+     */
+    public long[] getCumulativeBuckets() {
+        long[] counts = new long[this.buckets.length];
+        long sum = 0;
+        for (int i = 0; i < this.buckets.length; i++) {
+            sum += this.buckets[i].sum();
+            counts[i] = sum;
+        }
+        return counts;
+    }
+}
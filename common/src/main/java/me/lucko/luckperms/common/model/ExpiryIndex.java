@@ -0,0 +1,129 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.model;
+
+import com.google.common.collect.MapMaker;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * An index of the loaded holders which have temporary nodes, ordered by the
+ * times at which their nodes expire.
+ *
+ * <p>Allows expired nodes to be removed by only auditing the holders which
+ * actually have a node due to expire, instead of scanning every loaded user
+ * and group.</p>
+ *
+ * <p>Every distinct expiry time is queued when the node is added, so holders
+ * don't need to be rescanned after they have been audited. Times for nodes
+ * which were removed before they expired are left in the queue, and just
+ * result in an audit which finds nothing to remove.</p>
+ *
+ * <p>Holders are weakly referenced, so unloaded users drop out of the index
+ * once they are garbage collected.</p>
+ *
+ * @param <T> the holder type
+ */
+public class ExpiryIndex<T> {
+
+    /** pending entries, ordered by expiry time */
+    private final PriorityQueue<Entry<T>> queue = new PriorityQueue<>();
+
+    /** holder --> the expiry times currently queued for it */
+    private final Map<T, Set<Long>> scheduled = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Schedules the holder to be audited once the given time has passed.
+     *
+     * <p>Does nothing if the holder is already scheduled at the given time.</p>
+     *
+     * @param holder the holder
+     * @param expireAt the expiry time, in unix seconds
+     */
+    public synchronized void schedule(T holder, long expireAt) {
+        if (this.scheduled.computeIfAbsent(holder, h -> new HashSet<>()).add(expireAt)) {
+            this.queue.add(new Entry<>(holder, expireAt));
+        }
+    }
+
+    /**
+     * Removes and returns the holders with a scheduled time before the given time.
+     *
+     * <p>Times equal to {@code now} are left in the index, as nodes are only
+     * considered to have expired once their expiry time has been passed.</p>
+     *
+     * @param now the current time, in unix seconds
+     * @return the holders which are due
+     */
+    public synchronized List<T> pollExpired(long now) {
+        Set<T> due = new LinkedHashSet<>();
+
+        Entry<T> entry;
+        while ((entry = this.queue.peek()) != null && entry.expireAt < now) {
+            this.queue.poll();
+
+            T holder = entry.holder.get();
+            if (holder == null) {
+                continue;
+            }
+
+            Set<Long> times = this.scheduled.get(holder);
+            if (times == null || !times.remove(entry.expireAt)) {
+                continue;
+            }
+
+            if (times.isEmpty()) {
+                this.scheduled.remove(holder);
+            }
+            due.add(holder);
+        }
+
+        // only return each holder once, no matter how many of its times have passed
+        return new ArrayList<>(due);
+    }
+
+    private static final class Entry<T> implements Comparable<Entry<T>> {
+        private final WeakReference<T> holder;
+        private final long expireAt;
+
+        Entry(T holder, long expireAt) {
+            this.holder = new WeakReference<>(holder);
+            this.expireAt = expireAt;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            return Long.compare(this.expireAt, other.expireAt);
+        }
+    }
+
+}
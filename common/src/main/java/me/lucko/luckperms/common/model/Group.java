@@ -30,6 +30,7 @@ import me.lucko.luckperms.common.cache.Cache;
 import me.lucko.luckperms.common.cacheddata.GroupCachedDataManager;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.locale.Message;
+import me.lucko.luckperms.common.model.nodemap.MutateResult;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 
 import net.kyori.adventure.text.Component;
@@ -39,11 +40,14 @@ import net.luckperms.api.node.types.DisplayNameNode;
 import net.luckperms.api.query.QueryOptions;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Optional;
 import java.util.OptionalInt;
 
 public class Group extends PermissionHolder {
+    private static final int MAX_DEPENDENT_CHANGES = 64;
+
     private final ApiGroup apiProxy = new ApiGroup(this);
 
     /**
@@ -66,6 +70,13 @@ public class Group extends PermissionHolder {
      */
     private final GroupCachedDataManager cachedData;
 
+    /**
+     * The changes made to the groups own nodes since they were last applied to
+     * the holders which inherit from it, or null if they should be invalidated
+     */
+    private @Nullable MutateResult dependentChanges = new MutateResult();
+    private final Object dependentChangesLock = new Object();
+
     public Group(String name, LuckPermsPlugin plugin) {
         super(plugin);
         this.name = name.toLowerCase();
@@ -75,12 +86,57 @@ public class Group extends PermissionHolder {
     }
 
     @Override
-    protected void invalidateCache() {
-        super.invalidateCache();
+    protected void invalidateCache(@Nullable MutateResult changes) {
+        super.invalidateCache(changes);
+        recordDependentChanges(changes);
 
         // invalidate our caches
         this.weightCache.invalidate();
         this.displayNameCache.invalidate();
+
+        // the weight of the group affects the order it is inherited in
+        if (isWeightChange(changes)) {
+            invalidateInheritanceOrder();
+        }
+    }
+
+    private static boolean isWeightChange(@Nullable MutateResult changes) {
+        if (changes == null) {
+            return true;
+        }
+        for (MutateResult.Change change : changes.getChanges()) {
+            if (NodeType.WEIGHT.matches(change.getNode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recordDependentChanges(@Nullable MutateResult changes) {
+        synchronized (this.dependentChangesLock) {
+            if (this.dependentChanges == null) {
+                return;
+            }
+
+            // past this point the dependents will be invalidated anyway
+            if (changes == null || this.dependentChanges.mergeFrom(changes).getChanges().size() > MAX_DEPENDENT_CHANGES) {
+                this.dependentChanges = null;
+            }
+        }
+    }
+
+    /**
+     * Gets the changes made to the groups own nodes since this method was
+     * last called, so they can be applied to the holders which inherit from it.
+     *
+     * @return the changes, or null if the changes are unknown
+     */
+    public @Nullable MutateResult pollDependentChanges() {
+        synchronized (this.dependentChangesLock) {
+            MutateResult changes = this.dependentChanges;
+            this.dependentChanges = new MutateResult();
+            return changes;
+        }
     }
 
     // name getters
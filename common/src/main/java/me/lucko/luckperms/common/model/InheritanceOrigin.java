@@ -30,6 +30,8 @@ import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.Objects;
+
 public class InheritanceOrigin implements InheritanceOriginMetadata {
     private final PermissionHolder.Identifier location;
 
@@ -41,4 +43,17 @@ public class InheritanceOrigin implements InheritanceOriginMetadata {
     public PermissionHolder.@NonNull Identifier getOrigin() {
         return this.location;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        InheritanceOrigin that = (InheritanceOrigin) o;
+        return this.location.equals(that.location);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.location);
+    }
 }
@@ -30,7 +30,6 @@ import com.google.common.collect.Iterables;
 import me.lucko.luckperms.common.cacheddata.HolderCachedDataManager;
 import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
 import me.lucko.luckperms.common.inheritance.InheritanceComparator;
-import me.lucko.luckperms.common.inheritance.InheritanceGraph;
 import me.lucko.luckperms.common.model.nodemap.MutateResult;
 import me.lucko.luckperms.common.model.nodemap.NodeMap;
 import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
@@ -61,12 +60,15 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 
@@ -110,7 +112,7 @@ public abstract class PermissionHolder {
      *
      * @see #normalData()
      */
-    private final RecordedNodeMap normalNodes = new RecordedNodeMap(new NodeMapMutable(this));
+    private final RecordedNodeMap normalNodes;
 
     /**
      * The holders transient nodes.
@@ -122,13 +124,19 @@ public abstract class PermissionHolder {
      *
      * @see #transientData()
      */
-    private final NodeMap transientNodes = new NodeMapMutable(this);
+    private final NodeMap transientNodes;
 
     /**
      * Comparator used to ordering groups when calculating inheritance
      */
     private final Comparator<? super PermissionHolder> inheritanceComparator = InheritanceComparator.getFor(this);
 
+    /**
+     * Incremented whenever a change is made which may affect the inheritance
+     * order of this holder, or of any holder which inherits from it
+     */
+    private final AtomicLong inheritanceOrderVersion = new AtomicLong();
+
     /**
      * Creates a new instance
      *
@@ -136,6 +144,10 @@ public abstract class PermissionHolder {
      */
     protected PermissionHolder(LuckPermsPlugin plugin) {
         this.plugin = plugin;
+
+        // the node maps read their config when constructed, so must be created after the plugin is set
+        this.normalNodes = new RecordedNodeMap(new NodeMapMutable(this));
+        this.transientNodes = new NodeMapMutable(this);
     }
 
     // getters
@@ -221,10 +233,60 @@ public abstract class PermissionHolder {
     public abstract HolderType getType();
 
     protected void invalidateCache() {
-        getCachedData().invalidate();
+        invalidateCache(null);
+    }
+
+    /**
+     * Invalidates the holders cached data following a change to its own nodes.
+     *
+     * <p>If the changes are known and can be applied incrementally, the cached
+     * data is updated in place instead of being discarded.</p>
+     *
+     * @param changes the changes which were made, or null if unknown
+     */
+    protected void invalidateCache(@Nullable MutateResult changes) {
+        if (changes == null || !getCachedData().applyChanges(changes)) {
+            getCachedData().invalidate();
+        }
         getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
     }
 
+    /**
+     * Called by the holders node maps after its inheritance nodes have changed.
+     */
+    public void onInheritanceChange() {
+        this.plugin.getInheritanceIndex().update(this);
+        invalidateInheritanceOrder();
+    }
+
+    /**
+     * Called by the holders node maps after a temporary node has been added,
+     * once the map has been unlocked.
+     *
+     * @param expireAt the time the node expires, in unix seconds
+     */
+    public void onTemporaryNodeAdded(long expireAt) {
+        this.plugin.getExpiryIndex().schedule(this, expireAt);
+    }
+
+    /**
+     * Gets the inheritance order version of this holder.
+     *
+     * @return the version
+     */
+    public long getInheritanceOrderVersion() {
+        return this.inheritanceOrderVersion.get();
+    }
+
+    /**
+     * Invalidates the memoised inheritance traversal orders which pass
+     * through this holder.
+     */
+    public void invalidateInheritanceOrder() {
+        this.plugin.getInheritanceGraphFactory().recordInheritanceOrderChange();
+        this.inheritanceOrderVersion.incrementAndGet();
+    }
+
     public void loadNodesFromStorage(Iterable<? extends Node> set) {
         // TODO: should we attempt to "replay" existing changes on top of the new data?
         normalData().discardChanges();
@@ -246,6 +308,25 @@ public abstract class PermissionHolder {
         invalidateCache();
     }
 
+    /**
+     * Applies a batch of changes to the holders data, invalidating the cached
+     * data once afterwards instead of after each individual change.
+     *
+     * <p>No events are dispatched for the changes, as only the caller knows
+     * which events they correspond to.</p>
+     *
+     * @param type the data type to change
+     * @param mutator a function which applies the changes and returns the net result
+     * @return the changes which were made
+     */
+    public MutateResult mutateNodes(DataType type, Function<? super NodeMap, MutateResult> mutator) {
+        MutateResult changes = mutator.apply(getData(type));
+        if (!changes.isEmpty()) {
+            invalidateCache(changes);
+        }
+        return changes;
+    }
+
     private DataType[] queryOrder(QueryOptions queryOptions) {
         return DataSelector.selectOrder(queryOptions, getIdentifier());
     }
@@ -282,14 +363,17 @@ public abstract class PermissionHolder {
         return nodes;
     }
 
+    private List<PermissionHolder> inheritanceOrder(QueryOptions queryOptions) {
+        return this.plugin.getInheritanceGraphFactory().getInheritanceOrder(this, queryOptions);
+    }
+
     public List<Node> resolveInheritedNodes(QueryOptions queryOptions) {
         if (!queryOptions.flag(Flag.RESOLVE_INHERITANCE)) {
             return getOwnNodes(queryOptions);
         }
 
         List<Node> nodes = new ArrayList<>();
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-        for (PermissionHolder holder : graph.traverse(this)) {
+        for (PermissionHolder holder : inheritanceOrder(queryOptions)) {
             for (DataType dataType : holder.queryOrder(queryOptions)) {
                 holder.getData(dataType).copyTo(nodes, queryOptions);
             }
@@ -303,8 +387,7 @@ public abstract class PermissionHolder {
         }
 
         SortedSet<Node> nodes = new TreeSet<>(NodeWithContextComparator.reverse());
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-        for (PermissionHolder holder : graph.traverse(this)) {
+        for (PermissionHolder holder : inheritanceOrder(queryOptions)) {
             for (DataType dataType : holder.queryOrder(queryOptions)) {
                 holder.getData(dataType).copyTo(nodes, queryOptions);
             }
@@ -318,8 +401,7 @@ public abstract class PermissionHolder {
         }
 
         List<T> nodes = new ArrayList<>();
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-        for (PermissionHolder holder : graph.traverse(this)) {
+        for (PermissionHolder holder : inheritanceOrder(queryOptions)) {
             for (DataType dataType : holder.queryOrder(queryOptions)) {
                 holder.getData(dataType).copyTo(nodes, type, queryOptions);
             }
@@ -329,16 +411,15 @@ public abstract class PermissionHolder {
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     public List<Group> resolveInheritanceTree(QueryOptions queryOptions) {
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-
-        List<PermissionHolder> inheritanceTree = new ArrayList<>();
+        List<PermissionHolder> inheritanceTree;
 
         if (queryOptions.flag(Flag.RESOLVE_INHERITANCE)) {
-            Iterables.addAll(inheritanceTree, graph.traverse(this));
+            inheritanceTree = new ArrayList<>(inheritanceOrder(queryOptions));
             inheritanceTree.remove(this);
         } else {
             // if RESOLVE_INHERITANCE is not set, only go up by one level
-            Iterables.addAll(inheritanceTree, graph.successors(this));
+            inheritanceTree = new ArrayList<>();
+            Iterables.addAll(inheritanceTree, this.plugin.getInheritanceGraphFactory().getGraph(queryOptions).successors(this));
         }
 
         // ensure our tree now only consists of groups
@@ -353,6 +434,55 @@ public abstract class PermissionHolder {
         return (List) inheritanceTree;
     }
 
+    /**
+     * Resolves the value of a single permission, consistent with the result of
+     * {@link #exportPermissions(IntFunction, QueryOptions, boolean, boolean)}
+     * when converting to lowercase.
+     *
+     * @param permission the permission, in lowercase
+     * @param queryOptions the query options
+     * @param resolveShorthand if shorthand should be resolved
+     * @return the value, or null if the permission is not set
+     */
+    public @Nullable Boolean resolvePermission(String permission, QueryOptions queryOptions, boolean resolveShorthand) {
+        Iterable<PermissionHolder> holders;
+        if (queryOptions.flag(Flag.RESOLVE_INHERITANCE)) {
+            holders = inheritanceOrder(queryOptions);
+        } else {
+            holders = Collections.singletonList(this);
+        }
+
+        // keys are preferred over shorthand, regardless of their position in the inheritance tree
+        Node match = findFirstInherited(holders, queryOptions, node -> keyEquals(node.getKey(), permission));
+        if (match == null && resolveShorthand) {
+            match = findFirstInherited(holders, queryOptions, node -> {
+                for (String s : node.resolveShorthand()) {
+                    if (keyEquals(s, permission)) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+        return match == null ? null : match.getValue();
+    }
+
+    private static @Nullable Node findFirstInherited(Iterable<PermissionHolder> holders, QueryOptions queryOptions, Predicate<? super Node> predicate) {
+        for (PermissionHolder holder : holders) {
+            for (DataType dataType : holder.queryOrder(queryOptions)) {
+                Node match = holder.getData(dataType).findFirst(queryOptions, predicate);
+                if (match != null) {
+                    return match;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean keyEquals(String key, String lowercasePermission) {
+        return key.equalsIgnoreCase(lowercasePermission) && key.toLowerCase().equals(lowercasePermission);
+    }
+
     public <M extends Map<String, Boolean>> M exportPermissions(IntFunction<M> mapFactory, QueryOptions queryOptions, boolean convertToLowercase, boolean resolveShorthand) {
         List<Node> entries = resolveInheritedNodes(queryOptions);
         M map = mapFactory.apply(entries.size());
@@ -388,8 +518,7 @@ public abstract class PermissionHolder {
     }
 
     public MetaAccumulator accumulateMeta(MetaAccumulator accumulator, QueryOptions queryOptions) {
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-        for (PermissionHolder holder : graph.traverse(this)) {
+        for (PermissionHolder holder : inheritanceOrder(queryOptions)) {
             // accumulate nodes
             for (DataType dataType : holder.queryOrder(queryOptions)) {
                 holder.getData(dataType).forEach(queryOptions, node -> {
@@ -431,7 +560,7 @@ public abstract class PermissionHolder {
     private boolean auditTemporaryNodes(DataType dataType) {
         MutateResult result = getData(dataType).removeIf(Node::hasExpired);
         if (!result.isEmpty()) {
-            invalidateCache();
+            invalidateCache(result);
         }
         this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, result);
         return !result.isEmpty();
@@ -464,7 +593,7 @@ public abstract class PermissionHolder {
         }
 
         MutateResult changes = getData(dataType).add(node);
-        invalidateCache();
+        invalidateCache(changes);
         if (callEvent) {
             this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
         }
@@ -501,7 +630,7 @@ public abstract class PermissionHolder {
                 if (newNode != null) {
                     // Remove the old Node & add the new one.
                     MutateResult changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
@@ -519,7 +648,7 @@ public abstract class PermissionHolder {
         }
 
         MutateResult changes = getData(dataType).remove(node);
-        invalidateCache();
+        invalidateCache(changes);
         this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
         return DataMutateResult.SUCCESS;
@@ -541,7 +670,7 @@ public abstract class PermissionHolder {
 
                     // Remove the old Node & add the new one.
                     MutateResult changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
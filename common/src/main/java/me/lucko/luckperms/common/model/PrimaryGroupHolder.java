@@ -92,6 +92,9 @@ public interface PrimaryGroupHolder {
             } else {
                 this.value = value.toLowerCase();
             }
+
+            // the primary group is used to order groups of equal weight
+            this.user.invalidateInheritanceOrder();
         }
     }
 
@@ -26,6 +26,7 @@
 package me.lucko.luckperms.common.model.manager.group;
 
 import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
 import me.lucko.luckperms.common.model.manager.AbstractManager;
 
 import java.util.Optional;
@@ -64,6 +65,29 @@ public abstract class AbstractGroupManager<T extends Group> extends AbstractMana
         return s.toLowerCase();
     }
 
+    @Override
+    public T getOrMake(String id) {
+        boolean loaded = isLoaded(id);
+        T group = super.getOrMake(id);
+        if (!loaded) {
+            // a newly loaded group may now appear in the inheritance traversals
+            // of the holders which inherit it
+            for (PermissionHolder holder : group.getPlugin().getInheritanceIndex().getDirectDependents(group.getName())) {
+                holder.invalidateInheritanceOrder();
+            }
+        }
+        return group;
+    }
+
+    @Override
+    public void unload(String id) {
+        T group = getIfLoaded(id);
+        super.unload(id);
+        if (group != null) {
+            group.invalidateInheritanceOrder();
+        }
+    }
+
     @Override
     public void invalidateAllGroupCaches() {
         getAll().values().forEach(g -> g.getCachedData().invalidate());
@@ -165,11 +165,7 @@ public abstract class AbstractUserManager<T extends User> extends AbstractManage
         Set<UUID> ids = new HashSet<>(getAll().keySet());
         ids.addAll(this.plugin.getBootstrap().getOnlinePlayers());
 
-        CompletableFuture<?>[] loadTasks = ids.stream()
-                .map(id -> this.plugin.getStorage().loadUser(id, null))
-                .toArray(CompletableFuture[]::new);
-
-        return CompletableFuture.allOf(loadTasks);
+        return this.plugin.getStorage().loadUsers(ids).thenApply(users -> null);
     }
 
     @Override
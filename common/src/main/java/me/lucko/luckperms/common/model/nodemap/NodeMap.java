@@ -38,6 +38,8 @@ import net.luckperms.api.node.NodeType;
 import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.QueryOptions;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
@@ -114,6 +116,16 @@ public interface NodeMap {
 
     void forEach(QueryOptions filter, Consumer<? super Node> consumer);
 
+    /**
+     * Gets the first node which matches the given predicate, iterating in the
+     * same order as {@link #forEach(QueryOptions, Consumer)}.
+     *
+     * @param filter the query options filter
+     * @param predicate the predicate
+     * @return the first matching node, or null
+     */
+    @Nullable Node findFirst(QueryOptions filter, Predicate<? super Node> predicate);
+
     void copyTo(Collection<? super Node> collection);
 
     void copyTo(ImmutableCollection.Builder<? super Node> collection);
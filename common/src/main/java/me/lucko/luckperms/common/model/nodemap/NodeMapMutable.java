@@ -25,6 +25,9 @@
 
 package me.lucko.luckperms.common.model.nodemap;
 
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.context.ContextSetComparator;
 import me.lucko.luckperms.common.model.InheritanceOrigin;
@@ -40,13 +43,22 @@ import net.luckperms.api.node.NodeEqualityPredicate;
 import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
 import net.luckperms.api.node.types.InheritanceNode;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -76,8 +88,30 @@ public class NodeMapMutable extends NodeMapBase {
      * state in the middle of an update from the DB. (see below comment about locking - we don't
      * lock for reads!)
      */
-    private SortedMap<ImmutableContextSet, SortedSet<Node>> map = createMap();
-    private SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap = createMap();
+    private SortedMap<ImmutableContextSet, SortedSet<Node>> map;
+    private SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap;
+
+    /*
+     * When the copy-on-write mode is enabled, the only state kept between mutations is an
+     * immutable snapshot, which is used to serve reads. The snapshot uses array-backed
+     * collections, which are more compact than the skiplists and can be iterated as flat arrays.
+     *
+     * The maps above then only point at the snapshot whilst the lock is held. A working copy
+     * of it is taken the first time a mutation actually changes something, and published as
+     * the new snapshot (then discarded) when the outermost mutation releases the lock, so reads
+     * never see the state in the middle of an update. Mutations which turn out to be no-ops
+     * never copy the snapshot.
+     */
+    private final boolean copyOnWrite;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * If the maps are a working copy of the snapshot, which can be modified.
+     *
+     * Only used in the copy-on-write mode, and reset when the outermost mutation
+     * releases the lock.
+     */
+    private boolean writable = false;
 
     /**
      * This lock is used whilst performing mutations, but *not* reads.
@@ -86,22 +120,120 @@ public class NodeMapMutable extends NodeMapBase {
      * the read methods to do whatever they want without any locking.
      * However, we want mutations to be atomic, so we use the lock to ensure that happens.
      */
-    private final Lock lock = new ReentrantLock();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * If the inheritance map has been modified since the lock was acquired.
+     *
+     * When the outermost mutation releases the lock, the holder is notified
+     * so the inheritance index and memoised traversals can be updated.
+     */
+    private boolean inheritanceChanged = false;
+
+    /**
+     * If the content of the maps has been modified since the lock was acquired.
+     *
+     * When the outermost mutation releases the lock, a new snapshot is published
+     * if the copy-on-write mode is enabled.
+     */
+    private boolean contentChanged = false;
+
+    /**
+     * The expiry times of the temporary nodes added since the lock was acquired.
+     *
+     * The holder is notified of them once the outermost mutation has released the
+     * lock, so the expiry index isn't locked whilst the node map is.
+     */
+    private Set<Long> addedExpiryTimes = null;
 
     protected final PermissionHolder holder;
 
+    /**
+     * The origin metadata added to nodes in this map, shared between all of its nodes.
+     */
+    private InheritanceOriginMetadata inheritanceOrigin = null;
+
     public NodeMapMutable(PermissionHolder holder) {
         this.holder = holder;
+        this.copyOnWrite = holder.getPlugin().getConfiguration().get(ConfigKeys.COPY_ON_WRITE_NODE_MAPS);
+        if (!this.copyOnWrite) {
+            this.map = createMap();
+            this.inheritanceMap = createMap();
+        }
+    }
+
+    private void lock() {
+        this.lock.lock();
+        if (this.copyOnWrite && this.lock.getHoldCount() == 1) {
+            Snapshot snapshot = this.snapshot;
+            this.map = snapshot.map;
+            this.inheritanceMap = snapshot.inheritanceMap;
+        }
+    }
+
+    /**
+     * Makes sure the maps can be modified, taking a working copy of the
+     * snapshot if this is the first change since the lock was acquired.
+     *
+     * <p>Must be called with the lock held, before the maps are modified.</p>
+     */
+    private void beginWrite() {
+        if (this.copyOnWrite && !this.writable) {
+            this.map = workingCopy(this.map);
+            this.inheritanceMap = workingCopy(this.inheritanceMap);
+            this.writable = true;
+        }
+    }
+
+    private void unlock(MutateResult result) {
+        if (!result.isEmpty()) {
+            this.contentChanged = true;
+        }
+        unlock();
+    }
+
+    private void unlock() {
+        boolean notify = false;
+        Set<Long> addedExpiryTimes = null;
+        if (this.lock.getHoldCount() == 1) {
+            if (this.copyOnWrite) {
+                if (this.contentChanged || this.inheritanceChanged) {
+                    this.snapshot = new Snapshot(this.map, this.inheritanceMap);
+                }
+                this.map = null;
+                this.inheritanceMap = null;
+                this.writable = false;
+            }
+            this.contentChanged = false;
+
+            addedExpiryTimes = this.addedExpiryTimes;
+            this.addedExpiryTimes = null;
+
+            if (this.inheritanceChanged) {
+                this.inheritanceChanged = false;
+                notify = true;
+            }
+        }
+        this.lock.unlock();
+
+        if (notify) {
+            this.holder.onInheritanceChange();
+        }
+        if (addedExpiryTimes != null) {
+            for (long expireAt : addedExpiryTimes) {
+                this.holder.onTemporaryNodeAdded(expireAt);
+            }
+        }
     }
 
     @Override
     protected SortedMap<ImmutableContextSet, SortedSet<Node>> map() {
-        return this.map;
+        return this.copyOnWrite ? this.snapshot.map : this.map;
     }
 
     @Override
     protected SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap() {
-        return this.inheritanceMap;
+        return this.copyOnWrite ? this.snapshot.inheritanceMap : this.inheritanceMap;
     }
 
     @Override
@@ -115,7 +247,12 @@ public class NodeMapMutable extends NodeMapBase {
             return node;
         }
 
-        return node.toBuilder().withMetadata(InheritanceOriginMetadata.KEY, new InheritanceOrigin(this.holder.getIdentifier())).build();
+        InheritanceOriginMetadata origin = this.inheritanceOrigin;
+        if (origin == null) {
+            origin = this.inheritanceOrigin = new InheritanceOrigin(this.holder.getIdentifier());
+        }
+
+        return node.toBuilder().withMetadata(InheritanceOriginMetadata.KEY, origin).build();
     }
 
     @Override
@@ -125,18 +262,31 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = node.getContexts();
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
-            SortedSet<Node> nodes = this.map.computeIfAbsent(context, VALUE_SET_SUPPLIER);
-
-            // add the new node to the set - if it was already there, return
-            if (!nodes.add(node)) {
+            // if the node is already in the set, return
+            SortedSet<Node> existing = this.map.get(context);
+            if (existing != null && existing.contains(node)) {
                 return result;
             }
 
+            beginWrite();
+            SortedSet<Node> nodes = this.map.computeIfAbsent(context, VALUE_SET_SUPPLIER);
+
+            // add the new node to the set
+            nodes.add(node);
+
             // mark that we added the node in the results
             result.recordChange(ChangeType.ADD, node);
 
+            // make sure the holder is audited once the node expires
+            if (node.hasExpiry()) {
+                if (this.addedExpiryTimes == null) {
+                    this.addedExpiryTimes = new HashSet<>();
+                }
+                this.addedExpiryTimes.add(node.getExpiry().getEpochSecond());
+            }
+
             // remove any others that were in the set already with a different value/expiry time
             removeMatchingButNotSame(nodes.iterator(), node, result);
 
@@ -149,10 +299,11 @@ public class NodeMapMutable extends NodeMapBase {
                 if (node.getValue()) {
                     inhNodes.add((InheritanceNode) node);
                 }
+                this.inheritanceChanged = true;
             }
 
         } finally {
-            this.lock.unlock();
+            unlock(result);
         }
 
         return result;
@@ -163,7 +314,7 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = node.getContexts();
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
             SortedSet<Node> nodes = this.map.get(context);
             if (nodes == null) {
@@ -171,33 +322,14 @@ public class NodeMapMutable extends NodeMapBase {
             }
 
             // remove any nodes that match, record to results
-            removeMatching(nodes.iterator(), node, result);
-
-            // update inheritance map too
-            if (node instanceof InheritanceNode) {
-                SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.get(context);
-                if (inhNodes != null) {
-                    inhNodes.removeIf(el -> node.equals(el, NodeEqualityPredicate.IGNORE_EXPIRY_TIME_AND_VALUE));
-                }
-            }
-
+            removeAll(findMatching(nodes, el -> node.equals(el, NodeEqualityPredicate.IGNORE_EXPIRY_TIME_AND_VALUE), null), result);
         } finally {
-            this.lock.unlock();
+            unlock(result);
         }
 
         return result;
     }
 
-    private static void removeMatching(Iterator<Node> it, Node node, MutateResult result) {
-        while (it.hasNext()) {
-            Node el = it.next();
-            if (node.equals(el, NodeEqualityPredicate.IGNORE_EXPIRY_TIME_AND_VALUE)) {
-                it.remove();
-                result.recordChange(ChangeType.REMOVE, el);
-            }
-        }
-    }
-
     private static void removeMatchingButNotSame(Iterator<Node> it, Node node, MutateResult result) {
         while (it.hasNext()) {
             Node el = it.next();
@@ -213,29 +345,15 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = node.getContexts();
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
-            SortedSet<Node> nodes = this.map.get(context);
-            if (nodes == null) {
-                return result;
-            }
-
             // try to remove an exact match
-            if (nodes.remove(node)) {
-                // if we removed something, record to results
-                result.recordChange(ChangeType.REMOVE, node);
-
-                // update inheritance map too if necessary
-                if (node instanceof InheritanceNode && node.getValue()) {
-                    SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.get(context);
-                    if (inhNodes != null) {
-                        inhNodes.remove(node);
-                    }
-                }
+            SortedSet<Node> nodes = this.map.get(context);
+            if (nodes != null && nodes.contains(node)) {
+                removeAll(Collections.singletonList(node), result);
             }
-
         } finally {
-            this.lock.unlock();
+            unlock(result);
         }
 
         return result;
@@ -245,13 +363,15 @@ public class NodeMapMutable extends NodeMapBase {
     public MutateResult removeIf(Predicate<? super Node> predicate) {
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
+            List<Node> matching = null;
             for (SortedSet<Node> nodes : this.map.values()) {
-                removeMatching(nodes.iterator(), predicate, result);
+                matching = findMatching(nodes, predicate, matching);
             }
+            removeAll(matching, result);
         } finally {
-            this.lock.unlock();
+            unlock(result);
         }
 
         return result;
@@ -262,35 +382,59 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = contextSet.immutableCopy();
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
             SortedSet<Node> nodes = this.map.get(context);
             if (nodes == null) {
                 return result;
             }
-            removeMatching(nodes.iterator(), predicate, result);
+            removeAll(findMatching(nodes, predicate, null), result);
         } finally {
-            this.lock.unlock();
+            unlock(result);
         }
 
         return result;
     }
 
-    private void removeMatching(Iterator<Node> it, Predicate<? super Node> predicate, MutateResult result) {
-        while (it.hasNext()) {
-            Node node = it.next();
-
-            // if the predicate passes, remove the node from the set & record to results
+    /**
+     * Finds the nodes in a set which match a predicate.
+     *
+     * <p>Matches are found before anything is removed, so that removals which
+     * match nothing don't need to modify the maps.</p>
+     *
+     * @param nodes the nodes to search
+     * @param predicate the predicate
+     * @param matching the list to add matches to, or null if one hasn't been created yet
+     * @return the list of matches, or null if there are none
+     */
+    private static @Nullable List<Node> findMatching(SortedSet<Node> nodes, Predicate<? super Node> predicate, @Nullable List<Node> matching) {
+        for (Node node : nodes) {
             if (predicate.test(node)) {
-                it.remove();
-                result.recordChange(ChangeType.REMOVE, node);
-
-                // update inheritance map too if necessary
-                if (node instanceof InheritanceNode && node.getValue()) {
-                    SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.get(node.getContexts());
-                    if (inhNodes != null) {
-                        inhNodes.remove(node);
-                    }
+                if (matching == null) {
+                    matching = new ArrayList<>();
+                }
+                matching.add(node);
+            }
+        }
+        return matching;
+    }
+
+    private void removeAll(@Nullable List<Node> nodes, MutateResult result) {
+        if (nodes == null || nodes.isEmpty()) {
+            return;
+        }
+
+        beginWrite();
+        for (Node node : nodes) {
+            // remove the node from the set & record to results
+            this.map.get(node.getContexts()).remove(node);
+            result.recordChange(ChangeType.REMOVE, node);
+
+            // update inheritance map too if necessary
+            if (node instanceof InheritanceNode && node.getValue()) {
+                SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.get(node.getContexts());
+                if (inhNodes != null && inhNodes.remove(node)) {
+                    this.inheritanceChanged = true;
                 }
             }
         }
@@ -302,11 +446,11 @@ public class NodeMapMutable extends NodeMapBase {
             return new MutateResult();
         }
 
-        this.lock.lock();
+        lock();
         try {
             return removeExact(nodeToRemove).mergeFrom(add(nodeToAdd));
         } finally {
-            this.lock.unlock();
+            unlock();
         }
     }
 
@@ -314,8 +458,12 @@ public class NodeMapMutable extends NodeMapBase {
     public MutateResult clear() {
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
+            if (this.map.isEmpty()) {
+                return result;
+            }
+
             // log removals
             for (SortedSet<Node> nodes : this.map.values()) {
                 result.recordChanges(ChangeType.REMOVE, nodes);
@@ -323,10 +471,16 @@ public class NodeMapMutable extends NodeMapBase {
 
             // replace the map - this means any client reading async won't be affected
             // by any race conditions between this call to clear and any subsequent call to setContent
+            if (!this.inheritanceMap.isEmpty()) {
+                this.inheritanceChanged = true;
+            }
             this.map = createMap();
             this.inheritanceMap = createMap();
+
+            // the new maps are a (now empty) working copy
+            this.writable = this.copyOnWrite;
         } finally {
-            this.lock.unlock();
+            unlock(result);
         }
 
         return result;
@@ -337,15 +491,22 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = contextSet.immutableCopy();
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
+            if (!this.map.containsKey(context)) {
+                return result;
+            }
+
+            beginWrite();
             SortedSet<Node> removed = this.map.remove(context);
             if (removed != null) {
                 result.recordChanges(ChangeType.REMOVE, removed);
-                this.inheritanceMap.remove(context);
+                if (this.inheritanceMap.remove(context) != null) {
+                    this.inheritanceChanged = true;
+                }
             }
         } finally {
-            this.lock.unlock();
+            unlock(result);
         }
 
         return result;
@@ -355,12 +516,12 @@ public class NodeMapMutable extends NodeMapBase {
     public MutateResult setContent(Iterable<? extends Node> set) {
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
             result.mergeFrom(clear());
             result.mergeFrom(addAll(set));
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -370,12 +531,12 @@ public class NodeMapMutable extends NodeMapBase {
     public MutateResult setContent(Stream<? extends Node> stream) {
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
             result.mergeFrom(clear());
             result.mergeFrom(addAll(stream));
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -385,13 +546,13 @@ public class NodeMapMutable extends NodeMapBase {
     public MutateResult addAll(Iterable<? extends Node> set) {
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
             for (Node n : set) {
                 result.mergeFrom(add(n));
             }
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -401,14 +562,53 @@ public class NodeMapMutable extends NodeMapBase {
     public MutateResult addAll(Stream<? extends Node> stream) {
         MutateResult result = new MutateResult();
 
-        this.lock.lock();
+        lock();
         try {
             stream.forEach(n -> result.mergeFrom(add(n)));
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
     }
 
+    /**
+     * Creates a mutable copy of a snapshot map, to apply changes to whilst the lock is held.
+     *
+     * <p>The copy is only accessed by the thread holding the lock, so it doesn't need to
+     * be thread safe.</p>
+     */
+    private static <N extends Node> SortedMap<ImmutableContextSet, SortedSet<N>> workingCopy(SortedMap<ImmutableContextSet, SortedSet<N>> map) {
+        SortedMap<ImmutableContextSet, SortedSet<N>> copy = new TreeMap<>(ContextSetComparator.reverse());
+        for (Map.Entry<ImmutableContextSet, SortedSet<N>> e : map.entrySet()) {
+            copy.put(e.getKey(), new TreeSet<>(e.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * An immutable, array-backed copy of the node maps.
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(createMap(), createMap());
+
+        final SortedMap<ImmutableContextSet, SortedSet<Node>> map;
+        final SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap;
+
+        Snapshot(SortedMap<ImmutableContextSet, SortedSet<Node>> map, SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap) {
+            this.map = copy(map);
+            this.inheritanceMap = copy(inheritanceMap);
+        }
+
+        private static <N extends Node> SortedMap<ImmutableContextSet, SortedSet<N>> copy(SortedMap<ImmutableContextSet, SortedSet<N>> map) {
+            ImmutableSortedMap.Builder<ImmutableContextSet, SortedSet<N>> builder = ImmutableSortedMap.orderedBy(ContextSetComparator.reverse());
+            for (Map.Entry<ImmutableContextSet, SortedSet<N>> e : map.entrySet()) {
+                if (!e.getValue().isEmpty()) {
+                    builder.put(e.getKey(), ImmutableSortedSet.copyOfSorted(e.getValue()));
+                }
+            }
+            return builder.build();
+        }
+    }
+
 }
@@ -35,6 +35,8 @@ import net.luckperms.api.node.NodeType;
 import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.QueryOptions;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -86,6 +88,21 @@ public class RecordedNodeMap implements NodeMap {
         }
     }
 
+    /**
+     * Puts back changes which were exported but couldn't be saved, ahead of
+     * any changes which have been recorded since.
+     *
+     * @param exported the exported changes
+     */
+    public void restoreChanges(MutateResult exported) {
+        this.lock.lock();
+        try {
+            this.changes = new MutateResult().mergeFrom(exported).mergeFrom(this.changes);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     private MutateResult record(MutateResult result) {
         this.lock.lock();
         try {
@@ -174,6 +191,7 @@ public class RecordedNodeMap implements NodeMap {
     @Override public Map<ImmutableContextSet, Collection<InheritanceNode>> inheritanceAsMap() { return this.delegate.inheritanceAsMap(); }
     @Override public void forEach(Consumer<? super Node> consumer) { this.delegate.forEach(consumer); }
     @Override public void forEach(QueryOptions filter, Consumer<? super Node> consumer) { this.delegate.forEach(filter, consumer); }
+    @Override public @Nullable Node findFirst(QueryOptions filter, Predicate<? super Node> predicate) { return this.delegate.findFirst(filter, predicate); }
     @Override public void copyTo(Collection<? super Node> collection) { this.delegate.copyTo(collection); }
     @Override public void copyTo(ImmutableCollection.Builder<? super Node> collection) { this.delegate.copyTo(collection); }
     @Override public void copyTo(Collection<? super Node> collection, QueryOptions filter) { this.delegate.copyTo(collection, filter); }
@@ -27,7 +27,10 @@ package me.lucko.luckperms.common.node;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
+import me.lucko.luckperms.common.context.contextset.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.node.utils.ShorthandParser;
 
 import net.luckperms.api.context.ImmutableContextSet;
@@ -57,6 +60,23 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
     public static final char NODE_SEPARATOR = '.';
     public static final String NODE_SEPARATOR_STRING = String.valueOf(NODE_SEPARATOR);
 
+    /*
+     * Pools used to share the immutable parts of nodes between instances, so that equal nodes
+     * held by different holders don't each keep their own copy.
+     */
+    private static final Interner<String> STRING_INTERNER = Interners.newWeakInterner();
+    private static final Interner<Map<NodeMetadataKey<?>, Object>> METADATA_INTERNER = Interners.newWeakInterner();
+
+    /**
+     * Returns the canonical instance of a string used by a node.
+     *
+     * @param string the string
+     * @return the canonical instance
+     */
+    protected static String intern(String string) {
+        return STRING_INTERNER.intern(string);
+    }
+
     // node attributes
     protected final String key;
     protected final boolean value;
@@ -70,11 +90,11 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
     private final int hashCode;
 
     protected AbstractNode(String key, boolean value, long expireAt, ImmutableContextSet contexts, Map<NodeMetadataKey<?>, Object> metadata) {
-        this.key = key;
+        this.key = intern(key);
         this.value = value;
         this.expireAt = expireAt;
-        this.contexts = contexts;
-        this.metadata = ImmutableMap.copyOf(metadata);
+        this.contexts = ImmutableContextSetImpl.intern(contexts);
+        this.metadata = metadata.isEmpty() ? ImmutableMap.of() : METADATA_INTERNER.intern(ImmutableMap.copyOf(metadata));
 
         this.resolvedShorthand = this instanceof PermissionNode ? ImmutableList.copyOf(ShorthandParser.expandShorthand(this.key)) : ImmutableList.of();
 
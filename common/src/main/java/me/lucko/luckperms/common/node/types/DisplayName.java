@@ -58,7 +58,7 @@ public class DisplayName extends AbstractNode<DisplayNameNode, DisplayNameNode.B
 
     public DisplayName(String displayName, boolean value, long expireAt, ImmutableContextSet contexts, Map<NodeMetadataKey<?>, Object> metadata) {
         super(key(displayName), value, expireAt, contexts, metadata);
-        this.displayName = displayName;
+        this.displayName = intern(displayName);
     }
 
     @Override
@@ -59,7 +59,7 @@ public class Inheritance extends AbstractNode<InheritanceNode, InheritanceNode.B
 
     public Inheritance(String groupName, boolean value, long expireAt, ImmutableContextSet contexts, Map<NodeMetadataKey<?>, Object> metadata) {
         super(key(groupName), value, expireAt, contexts, metadata);
-        this.groupName = groupName.toLowerCase();
+        this.groupName = intern(groupName.toLowerCase());
     }
 
     @Override
@@ -61,8 +61,8 @@ public class Meta extends AbstractNode<MetaNode, MetaNode.Builder> implements Me
 
     public Meta(String metaKey, String metaValue, boolean value, long expireAt, ImmutableContextSet contexts, Map<NodeMetadataKey<?>, Object> metadata) {
         super(key(metaKey, metaValue), value, expireAt, contexts, metadata);
-        this.metaKey = metaKey.toLowerCase();
-        this.metaValue = metaValue;
+        this.metaKey = intern(metaKey.toLowerCase());
+        this.metaValue = intern(metaValue);
     }
 
     @Override
@@ -62,7 +62,7 @@ public class Prefix extends AbstractNode<PrefixNode, PrefixNode.Builder> impleme
 
     public Prefix(String prefix, int priority, boolean value, long expireAt, ImmutableContextSet contexts, Map<NodeMetadataKey<?>, Object> metadata) {
         super(key(priority, prefix), value, expireAt, contexts, metadata);
-        this.prefix = prefix;
+        this.prefix = intern(prefix);
         this.priority = priority;
     }
 
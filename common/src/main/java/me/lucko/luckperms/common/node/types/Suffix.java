@@ -62,7 +62,7 @@ public class Suffix extends AbstractNode<SuffixNode, SuffixNode.Builder> impleme
 
     public Suffix(String suffix, int priority, boolean value, long expireAt, ImmutableContextSet contexts, Map<NodeMetadataKey<?>, Object> metadata) {
         super(key(priority, suffix), value, expireAt, contexts, metadata);
-        this.suffix = suffix;
+        this.suffix = intern(suffix);
         this.priority = priority;
     }
 
@@ -41,11 +41,15 @@ import me.lucko.luckperms.common.event.gen.GeneratedEventClass;
 import me.lucko.luckperms.common.extension.SimpleExtensionManager;
 import me.lucko.luckperms.common.http.BytebinClient;
 import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.inheritance.InheritanceIndex;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.locale.TranslationRepository;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
 import me.lucko.luckperms.common.messaging.MessagingFactory;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
+import me.lucko.luckperms.common.model.ExpiryIndex;
+import me.lucko.luckperms.common.model.PermissionHolder;
 import me.lucko.luckperms.common.plugin.logging.PluginLogger;
 import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.storage.StorageFactory;
@@ -54,6 +58,7 @@ import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher
 import me.lucko.luckperms.common.storage.misc.DataConstraints;
 import me.lucko.luckperms.common.tasks.CacheHousekeepingTask;
 import me.lucko.luckperms.common.tasks.ExpireTemporaryTask;
+import me.lucko.luckperms.common.tasks.MetricsExportTask;
 import me.lucko.luckperms.common.tasks.SyncTask;
 import me.lucko.luckperms.common.treeview.PermissionRegistry;
 import me.lucko.luckperms.common.verbose.VerboseHandler;
@@ -85,6 +90,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     // init during enable
     private VerboseHandler verboseHandler;
     private PermissionRegistry permissionRegistry;
+    private MetricsRegistry metrics;
     private LogDispatcher logDispatcher;
     private LuckPermsConfiguration configuration;
     private BytebinClient bytebin;
@@ -94,6 +100,8 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     private InternalMessagingService messagingService = null;
     private SyncTask.Buffer syncTaskBuffer;
     private InheritanceGraphFactory inheritanceGraphFactory;
+    private InheritanceIndex inheritanceIndex;
+    private ExpiryIndex<PermissionHolder> expiryIndex;
     private CalculatorFactory calculatorFactory;
     private LuckPermsApiProvider apiProvider;
     private EventDispatcher eventDispatcher;
@@ -121,6 +129,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         // load some utilities early
         this.verboseHandler = new VerboseHandler(getBootstrap().getScheduler());
         this.permissionRegistry = new PermissionRegistry(getBootstrap().getScheduler());
+        this.metrics = new MetricsRegistry();
         this.logDispatcher = new LogDispatcher(this);
 
         // load configuration
@@ -171,6 +180,8 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         // load internal managers
         getLogger().info("Loading internal permission managers...");
         this.inheritanceGraphFactory = new InheritanceGraphFactory(this);
+        this.inheritanceIndex = new InheritanceIndex();
+        this.expiryIndex = new ExpiryIndex<>();
 
         // setup user/group/track manager
         setupManagers();
@@ -279,8 +290,13 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     // hooks called during enable
 
     protected void registerHousekeepingTasks() {
-        getBootstrap().getScheduler().asyncRepeating(new ExpireTemporaryTask(this), 3, TimeUnit.SECONDS);
+        getBootstrap().getScheduler().asyncRepeating(new ExpireTemporaryTask(this), 1, TimeUnit.SECONDS);
         getBootstrap().getScheduler().asyncRepeating(new CacheHousekeepingTask(this), 2, TimeUnit.MINUTES);
+
+        int metricsExportInterval = getConfiguration().get(ConfigKeys.METRICS_EXPORT_INTERVAL);
+        if (metricsExportInterval > 0) {
+            getBootstrap().getScheduler().asyncRepeating(new MetricsExportTask(this), metricsExportInterval, TimeUnit.SECONDS);
+        }
     }
 
     protected abstract void setupSenderFactory();
@@ -400,6 +416,11 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return this.permissionRegistry;
     }
 
+    @Override
+    public MetricsRegistry getMetrics() {
+        return this.metrics;
+    }
+
     @Override
     public LogDispatcher getLogDispatcher() {
         return this.logDispatcher;
@@ -445,6 +466,16 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return this.inheritanceGraphFactory;
     }
 
+    @Override
+    public InheritanceIndex getInheritanceIndex() {
+        return this.inheritanceIndex;
+    }
+
+    @Override
+    public ExpiryIndex<PermissionHolder> getExpiryIndex() {
+        return this.expiryIndex;
+    }
+
     @Override
     public CalculatorFactory getCalculatorFactory() {
         return this.calculatorFactory;
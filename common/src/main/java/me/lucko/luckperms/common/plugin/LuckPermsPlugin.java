@@ -37,10 +37,14 @@ import me.lucko.luckperms.common.event.EventDispatcher;
 import me.lucko.luckperms.common.extension.SimpleExtensionManager;
 import me.lucko.luckperms.common.http.BytebinClient;
 import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.inheritance.InheritanceIndex;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.locale.TranslationRepository;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
+import me.lucko.luckperms.common.model.ExpiryIndex;
 import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
@@ -206,6 +210,20 @@ public interface LuckPermsPlugin {
      */
     InheritanceGraphFactory getInheritanceGraphFactory();
 
+    /**
+     * Gets the reverse inheritance index
+     *
+     * @return the inheritance index
+     */
+    InheritanceIndex getInheritanceIndex();
+
+    /**
+     * Gets the index of holders with temporary nodes
+     *
+     * @return the expiry index
+     */
+    ExpiryIndex<PermissionHolder> getExpiryIndex();
+
     /**
      * Gets the class responsible for constructing PermissionCalculators on this platform.
      *
@@ -227,6 +245,13 @@ public interface LuckPermsPlugin {
      */
     PermissionRegistry getPermissionRegistry();
 
+    /**
+     * Gets the registry of runtime metrics.
+     *
+     * @return the metrics registry
+     */
+    MetricsRegistry getMetrics();
+
     /**
      * Gets the log dispatcher running on the platform
      *
@@ -27,6 +27,8 @@ package me.lucko.luckperms.common.query;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 import me.lucko.luckperms.common.context.contextset.ImmutableContextSetImpl;
 
@@ -50,6 +52,35 @@ public class QueryOptionsImpl implements QueryOptions {
     public static final QueryOptions DEFAULT_CONTEXTUAL = new QueryOptionsImpl(QueryMode.CONTEXTUAL, ImmutableContextSetImpl.EMPTY, FlagUtils.ALL_FLAGS, null);
     public static final QueryOptions DEFAULT_NON_CONTEXTUAL = new QueryOptionsImpl(QueryMode.NON_CONTEXTUAL, null, FlagUtils.ALL_FLAGS, null);
 
+    /**
+     * Pool of canonical instances, in the same way as {@link ImmutableContextSetImpl#intern}.
+     */
+    private static final Interner<QueryOptionsImpl> INTERNER = Interners.newWeakInterner();
+
+    /**
+     * Returns the canonical instance of the given query options.
+     *
+     * <p>The context set is interned as well, so equal instances returned by this
+     * method are the same instance and share the same context set.</p>
+     *
+     * @param queryOptions the query options
+     * @return the canonical instance
+     */
+    public static QueryOptions intern(QueryOptions queryOptions) {
+        if (!(queryOptions instanceof QueryOptionsImpl)) {
+            return queryOptions;
+        }
+
+        QueryOptionsImpl impl = (QueryOptionsImpl) queryOptions;
+        if (impl.context != null) {
+            ImmutableContextSet context = ImmutableContextSetImpl.intern(impl.context);
+            if (context != impl.context) {
+                impl = new QueryOptionsImpl(impl.mode, context, impl.flags, impl.options);
+            }
+        }
+        return INTERNER.intern(impl);
+    }
+
     // state
     private final QueryMode mode;
     private final ImmutableContextSet context;
@@ -145,7 +176,8 @@ public class QueryOptionsImpl implements QueryOptions {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         QueryOptionsImpl that = (QueryOptionsImpl) o;
-        return this.flags == that.flags &&
+        return this.hashCode == that.hashCode &&
+                this.flags == that.flags &&
                 this.mode == that.mode &&
                 Objects.equals(this.context, that.context) &&
                 Objects.equals(this.options, that.options);
@@ -0,0 +1,153 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.util.Throwing;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key into a single storage call.
+ *
+ * <p>A caller may only share a load which has not yet started executing. Once a load
+ * has started reading from the storage, a caller arriving afterwards may have observed
+ * a write which the load will miss, so a fresh load is started instead.</p>
+ *
+ * @param <K> the key type
+ * @param <A> the type of the argument passed to the load
+ * @param <T> the result type
+ */
+public final class LoadCoalescer<K, A, T> {
+    private final Map<K, PendingLoad<A, T>> pending = new ConcurrentHashMap<>();
+    private final BinaryOperator<A> argumentMerger;
+
+    /** The number of loads which were avoided by sharing a pending load */
+    private final LongAdder coalescedLoads = new LongAdder();
+
+    /**
+     * Creates a new coalescer.
+     *
+     * @param argumentMerger combines the argument of a pending load with the argument
+     *                       of a caller joining it
+     */
+    public LoadCoalescer(BinaryOperator<A> argumentMerger) {
+        this.argumentMerger = argumentMerger;
+    }
+
+    public LoadCoalescer() {
+        this((current, joining) -> current);
+    }
+
+    /**
+     * Returns a future for the load of the given key, sharing a pending load
+     * for the same key if there is one which hasn't started yet.
+     *
+     * @param key the key identifying the load
+     * @param argument the argument for the load
+     * @param submitter submits the load for execution
+     * @param loader the load
+     * @return the future
+     */
+    public CompletableFuture<T> load(K key, A argument, Function<Callable<T>, CompletableFuture<T>> submitter, Throwing.Function<A, T> loader) {
+        while (true) {
+            PendingLoad<A, T> load = new PendingLoad<>(argument);
+            PendingLoad<A, T> existing = this.pending.putIfAbsent(key, load);
+
+            if (existing == null) {
+                CompletableFuture<T> submitted;
+                try {
+                    submitted = submitter.apply(() -> {
+                        A mergedArgument = load.start();
+                        this.pending.remove(key, load);
+                        return loader.apply(mergedArgument);
+                    });
+                } catch (Throwable e) {
+                    // the load couldn't be submitted (e.g. the executor has been shutdown),
+                    // so don't leave it pending for later callers to join
+                    this.pending.remove(key, load);
+                    load.future.completeExceptionally(e);
+                    return load.future;
+                }
+
+                submitted.whenComplete((result, ex) -> {
+                    this.pending.remove(key, load);
+                    if (ex != null) {
+                        load.future.completeExceptionally(ex);
+                    } else {
+                        load.future.complete(result);
+                    }
+                });
+                return load.future;
+            }
+
+            if (existing.join(argument, this.argumentMerger)) {
+                this.coalescedLoads.increment();
+                return existing.future;
+            }
+
+            // the existing load has already started - replace it
+            this.pending.remove(key, existing);
+        }
+    }
+
+    /**
+     * Gets the number of loads which were avoided by sharing a pending load.
+     *
+     * @return the number of coalesced loads
+     */
+    public long getCoalescedLoads() {
+        return this.coalescedLoads.sum();
+    }
+
+    private static final class PendingLoad<A, T> {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private A argument;
+        private boolean started = false;
+
+        PendingLoad(A argument) {
+            this.argument = argument;
+        }
+
+        synchronized A start() {
+            this.started = true;
+            return this.argument;
+        }
+
+        synchronized boolean join(A argument, BinaryOperator<A> merger) {
+            if (this.started) {
+                return false;
+            }
+            this.argument = merger.apply(this.argument, argument);
+            return true;
+        }
+    }
+}
@@ -27,8 +27,11 @@ package me.lucko.luckperms.common.storage;
 
 import com.google.common.collect.ImmutableList;
 
+import me.lucko.luckperms.common.actionlog.ActionFilter;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
@@ -36,10 +39,12 @@ import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.implementation.split.SplitStorage;
+import me.lucko.luckperms.common.storage.implementation.timed.TimedStorage;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
 import me.lucko.luckperms.common.util.Throwing;
 
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.event.cause.CreationCause;
 import net.luckperms.api.event.cause.DeletionCause;
@@ -48,6 +53,7 @@ import net.luckperms.api.node.Node;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -56,6 +62,7 @@ import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 /**
  * Provides a {@link CompletableFuture} based API for interacting with a {@link StorageImplementation}.
@@ -64,9 +71,21 @@ public class Storage {
     private final LuckPermsPlugin plugin;
     private final StorageImplementation implementation;
 
+    // buffers user and group saves, or null if saves should be written straight away
+    private final WriteBehindBuffer writeBehindBuffer;
+
+    // coalesces concurrent requests for the same user/group/track into a single load.
+    // for users, a load requested with a username takes precedence over one without
+    private final LoadCoalescer<UUID, String, User> userLoads = new LoadCoalescer<>((current, joining) -> current != null ? current : joining);
+    private final LoadCoalescer<String, Void, Optional<Group>> groupLoads = new LoadCoalescer<>();
+    private final LoadCoalescer<String, Void, Optional<Track>> trackLoads = new LoadCoalescer<>();
+
     public Storage(LuckPermsPlugin plugin, StorageImplementation implementation) {
         this.plugin = plugin;
         this.implementation = implementation;
+
+        int writeBehindDelay = plugin.getConfiguration().get(ConfigKeys.WRITE_BEHIND_DELAY);
+        this.writeBehindBuffer = writeBehindDelay > 0 ? new WriteBehindBuffer(plugin, implementation, writeBehindDelay) : null;
     }
 
     public StorageImplementation getImplementation() {
@@ -75,14 +94,26 @@ public class Storage {
 
     public Collection<StorageImplementation> getImplementations() {
         if (this.implementation instanceof SplitStorage) {
-            return ((SplitStorage) this.implementation).getImplementations().values();
+            return ((SplitStorage) this.implementation).getImplementations().values().stream()
+                    .map(Storage::unwrap)
+                    .collect(Collectors.toList());
         } else {
-            return Collections.singleton(this.implementation);
+            return Collections.singleton(unwrap(this.implementation));
         }
     }
 
-    private <T> CompletableFuture<T> future(Callable<T> supplier) {
+    private static StorageImplementation unwrap(StorageImplementation implementation) {
+        if (implementation instanceof TimedStorage) {
+            return ((TimedStorage) implementation).getDelegate();
+        }
+        return implementation;
+    }
+
+    private <T> CompletableFuture<T> future(String method, Callable<T> supplier) {
+        long submitted = System.nanoTime();
         return CompletableFuture.supplyAsync(() -> {
+            // the time taken by the call itself is recorded by TimedStorage
+            this.plugin.getMetrics().recordStorageQueueWait(method, submitted);
             try {
                 return supplier.call();
             } catch (Exception e) {
@@ -94,17 +125,33 @@ public class Storage {
         }, this.plugin.getBootstrap().getScheduler().async());
     }
 
-    private CompletableFuture<Void> future(Throwing.Runnable runnable) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                runnable.run();
-            } catch (Exception e) {
-                if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
-                }
-                throw new CompletionException(e);
-            }
-        }, this.plugin.getBootstrap().getScheduler().async());
+    private CompletableFuture<Void> future(String method, Throwing.Runnable runnable) {
+        return future(method, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Gets the number of loads which were avoided because an identical load
+     * was already in progress.
+     *
+     * @return the number of coalesced loads
+     */
+    public long getCoalescedLoads() {
+        return this.userLoads.getCoalescedLoads() + this.groupLoads.getCoalescedLoads() + this.trackLoads.getCoalescedLoads();
+    }
+
+    /**
+     * Writes any saves which are waiting in the write-behind buffer.
+     *
+     * <p>Called before operations which read or replace data in the storage,
+     * so they don't miss (or get overwritten by) pending changes.</p>
+     */
+    private void flushPendingSaves() {
+        if (this.writeBehindBuffer != null) {
+            this.writeBehindBuffer.flush();
+        }
     }
 
     public String getName() {
@@ -120,6 +167,12 @@ public class Storage {
     }
 
     public void shutdown() {
+        try {
+            flushPendingSaves();
+        } catch (Exception e) {
+            this.plugin.getLogger().severe("Failed to write pending saves to storage", e);
+        }
+
         try {
             this.implementation.shutdown();
         } catch (Exception e) {
@@ -128,24 +181,37 @@ public class Storage {
     }
 
     public Map<Component, Component> getMeta() {
-        return this.implementation.getMeta();
+        Map<Component, Component> meta = new LinkedHashMap<>(this.implementation.getMeta());
+        meta.put(
+                Component.translatable("luckperms.command.info.storage.meta.coalesced-loads-key"),
+                Component.text(getCoalescedLoads(), NamedTextColor.GREEN)
+        );
+        return meta;
     }
 
     public CompletableFuture<Void> logAction(Action entry) {
-        return future(() -> this.implementation.logAction(entry));
+        return future("logAction", () -> this.implementation.logAction(entry));
     }
 
     public CompletableFuture<Log> getLog() {
-        return future(this.implementation::getLog);
+        return future("getLog", this.implementation::getLog);
+    }
+
+    public CompletableFuture<LogPage> getLogPage(ActionFilter filter, LogPage.Parameters page) {
+        return future("getLogPage", () -> this.implementation.getLogPage(filter, page));
     }
 
     public CompletableFuture<Void> applyBulkUpdate(BulkUpdate bulkUpdate) {
-        return future(() -> this.implementation.applyBulkUpdate(bulkUpdate));
+        return future("applyBulkUpdate", () -> {
+            flushPendingSaves();
+            this.implementation.applyBulkUpdate(bulkUpdate);
+        });
     }
 
     public CompletableFuture<User> loadUser(UUID uniqueId, String username) {
-        return future(() -> {
-            User user = this.implementation.loadUser(uniqueId, username);
+        return this.userLoads.load(uniqueId, username, load -> future("loadUser", load), name -> {
+            flushPendingSaves();
+            User user = this.implementation.loadUser(uniqueId, name);
             if (user != null) {
                 this.plugin.getEventDispatcher().dispatchUserLoad(user);
             }
@@ -153,16 +219,34 @@ public class Storage {
         });
     }
 
+    public CompletableFuture<Map<UUID, User>> loadUsers(Set<UUID> uniqueIds) {
+        return future("loadUsers", () -> {
+            flushPendingSaves();
+            Map<UUID, User> users = this.implementation.loadUsers(uniqueIds);
+            for (User user : users.values()) {
+                this.plugin.getEventDispatcher().dispatchUserLoad(user);
+            }
+            return users;
+        });
+    }
+
     public CompletableFuture<Void> saveUser(User user) {
-        return future(() -> this.implementation.saveUser(user));
+        if (this.writeBehindBuffer != null) {
+            return this.writeBehindBuffer.saveUser(user);
+        }
+        return future("saveUser", () -> this.implementation.saveUser(user));
     }
 
     public CompletableFuture<Set<UUID>> getUniqueUsers() {
-        return future(this.implementation::getUniqueUsers);
+        return future("getUniqueUsers", () -> {
+            flushPendingSaves();
+            return this.implementation.getUniqueUsers();
+        });
     }
 
     public <N extends Node> CompletableFuture<List<NodeEntry<UUID, N>>> searchUserNodes(ConstraintNodeMatcher<N> constraint) {
-        return future(() -> {
+        return future("searchUserNodes", () -> {
+            flushPendingSaves();
             List<NodeEntry<UUID, N>> result = this.implementation.searchUserNodes(constraint);
             result.removeIf(entry -> entry.getNode().hasExpired());
             return ImmutableList.copyOf(result);
@@ -170,7 +254,7 @@ public class Storage {
     }
 
     public CompletableFuture<Group> createAndLoadGroup(String name, CreationCause cause) {
-        return future(() -> {
+        return future("createAndLoadGroup", () -> {
             Group group = this.implementation.createAndLoadGroup(name.toLowerCase());
             if (group != null) {
                 this.plugin.getEventDispatcher().dispatchGroupCreate(group, cause);
@@ -180,8 +264,10 @@ public class Storage {
     }
 
     public CompletableFuture<Optional<Group>> loadGroup(String name) {
-        return future(() -> {
-            Optional<Group> group = this.implementation.loadGroup(name.toLowerCase());
+        String groupName = name.toLowerCase();
+        return this.groupLoads.load(groupName, null, load -> future("loadGroup", load), x -> {
+            flushPendingSaves();
+            Optional<Group> group = this.implementation.loadGroup(groupName);
             if (group.isPresent()) {
                 this.plugin.getEventDispatcher().dispatchGroupLoad(group.get());
             }
@@ -190,25 +276,31 @@ public class Storage {
     }
 
     public CompletableFuture<Void> loadAllGroups() {
-        return future(() -> {
+        return future("loadAllGroups", () -> {
+            flushPendingSaves();
             this.implementation.loadAllGroups();
             this.plugin.getEventDispatcher().dispatchGroupLoadAll();
         });
     }
 
     public CompletableFuture<Void> saveGroup(Group group) {
-        return future(() -> this.implementation.saveGroup(group));
+        if (this.writeBehindBuffer != null) {
+            return this.writeBehindBuffer.saveGroup(group);
+        }
+        return future("saveGroup", () -> this.implementation.saveGroup(group));
     }
 
     public CompletableFuture<Void> deleteGroup(Group group, DeletionCause cause) {
-        return future(() -> {
+        return future("deleteGroup", () -> {
+            flushPendingSaves();
             this.implementation.deleteGroup(group);
             this.plugin.getEventDispatcher().dispatchGroupDelete(group, cause);
         });
     }
 
     public <N extends Node> CompletableFuture<List<NodeEntry<String, N>>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) {
-        return future(() -> {
+        return future("searchGroupNodes", () -> {
+            flushPendingSaves();
             List<NodeEntry<String, N>> result = this.implementation.searchGroupNodes(constraint);
             result.removeIf(entry -> entry.getNode().hasExpired());
             return ImmutableList.copyOf(result);
@@ -216,7 +308,7 @@ public class Storage {
     }
 
     public CompletableFuture<Track> createAndLoadTrack(String name, CreationCause cause) {
-        return future(() -> {
+        return future("createAndLoadTrack", () -> {
             Track track = this.implementation.createAndLoadTrack(name.toLowerCase());
             if (track != null) {
                 this.plugin.getEventDispatcher().dispatchTrackCreate(track, cause);
@@ -226,8 +318,9 @@ public class Storage {
     }
 
     public CompletableFuture<Optional<Track>> loadTrack(String name) {
-        return future(() -> {
-            Optional<Track> track = this.implementation.loadTrack(name.toLowerCase());
+        String trackName = name.toLowerCase();
+        return this.trackLoads.load(trackName, null, load -> future("loadTrack", load), x -> {
+            Optional<Track> track = this.implementation.loadTrack(trackName);
             if (track.isPresent()) {
                 this.plugin.getEventDispatcher().dispatchTrackLoad(track.get());
             }
@@ -236,25 +329,25 @@ public class Storage {
     }
 
     public CompletableFuture<Void> loadAllTracks() {
-        return future(() -> {
+        return future("loadAllTracks", () -> {
             this.implementation.loadAllTracks();
             this.plugin.getEventDispatcher().dispatchTrackLoadAll();
         });
     }
 
     public CompletableFuture<Void> saveTrack(Track track) {
-        return future(() -> this.implementation.saveTrack(track));
+        return future("saveTrack", () -> this.implementation.saveTrack(track));
     }
 
     public CompletableFuture<Void> deleteTrack(Track track, DeletionCause cause) {
-        return future(() -> {
+        return future("deleteTrack", () -> {
             this.implementation.deleteTrack(track);
             this.plugin.getEventDispatcher().dispatchTrackDelete(track, cause);
          });
     }
 
     public CompletableFuture<PlayerSaveResult> savePlayerData(UUID uniqueId, String username) {
-        return future(() -> {
+        return future("savePlayerData", () -> {
             PlayerSaveResult result = this.implementation.savePlayerData(uniqueId, username);
             if (result != null) {
                 this.plugin.getEventDispatcher().dispatchPlayerDataSave(uniqueId, username, result);
@@ -264,14 +357,17 @@ public class Storage {
     }
 
     public CompletableFuture<Void> deletePlayerData(UUID uniqueId) {
-        return future(() -> this.implementation.deletePlayerData(uniqueId));
+        return future("deletePlayerData", () -> {
+            flushPendingSaves();
+            this.implementation.deletePlayerData(uniqueId);
+        });
     }
 
     public CompletableFuture<UUID> getPlayerUniqueId(String username) {
-        return future(() -> this.implementation.getPlayerUniqueId(username));
+        return future("getPlayerUniqueId", () -> this.implementation.getPlayerUniqueId(username));
     }
 
     public CompletableFuture<String> getPlayerName(UUID uniqueId) {
-        return future(() -> this.implementation.getPlayerName(uniqueId));
+        return future("getPlayerName", () -> this.implementation.getPlayerName(uniqueId));
     }
 }
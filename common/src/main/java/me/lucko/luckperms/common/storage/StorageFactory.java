@@ -46,6 +46,7 @@ import me.lucko.luckperms.common.storage.implementation.sql.connection.file.Sqli
 import me.lucko.luckperms.common.storage.implementation.sql.connection.hikari.MariaDbConnectionFactory;
 import me.lucko.luckperms.common.storage.implementation.sql.connection.hikari.MySqlConnectionFactory;
 import me.lucko.luckperms.common.storage.implementation.sql.connection.hikari.PostgreConnectionFactory;
+import me.lucko.luckperms.common.storage.implementation.timed.TimedStorage;
 import me.lucko.luckperms.common.util.ImmutableCollectors;
 
 import java.util.Map;
@@ -74,7 +75,7 @@ public class StorageFactory {
             Map<SplitStorageType, StorageType> mappedTypes = this.plugin.getConfiguration().get(ConfigKeys.SPLIT_STORAGE_OPTIONS);
             Map<StorageType, StorageImplementation> backing = mappedTypes.values().stream()
                     .distinct()
-                    .collect(ImmutableCollectors.toEnumMap(StorageType.class, e -> e, this::createNewImplementation));
+                    .collect(ImmutableCollectors.toEnumMap(StorageType.class, e -> e, this::createTimedImplementation));
 
             // make a base implementation
             storage = new Storage(this.plugin, new SplitStorage(this.plugin, backing, mappedTypes));
@@ -82,13 +83,17 @@ public class StorageFactory {
         } else {
             StorageType type = this.plugin.getConfiguration().get(ConfigKeys.STORAGE_METHOD);
             this.plugin.getLogger().info("Loading storage provider... [" + type.name() + "]");
-            storage = new Storage(this.plugin, createNewImplementation(type));
+            storage = new Storage(this.plugin, createTimedImplementation(type));
         }
 
         storage.init();
         return storage;
     }
 
+    private StorageImplementation createTimedImplementation(StorageType method) {
+        return new TimedStorage(this.plugin, createNewImplementation(method));
+    }
+
     private StorageImplementation createNewImplementation(StorageType method) {
         switch (method) {
             case CUSTOM:
@@ -0,0 +1,136 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.util.Throwing;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delays user and group saves for a short time, so that repeated saves for the
+ * same holder are merged, and many holders can be written to storage together.
+ *
+ * <p>Holders record their own changes until they are exported by the storage
+ * implementation, so merging saves only requires deduplicating the holders
+ * waiting to be saved.</p>
+ */
+class WriteBehindBuffer {
+    private final LuckPermsPlugin plugin;
+    private final StorageImplementation implementation;
+    private final long delayMillis;
+
+    /** Guards the pending maps and flush flag */
+    private final Object lock = new Object();
+
+    /** Held whilst writing, so that saves for the same holder are never written out of order */
+    private final Object flushLock = new Object();
+
+    private Map<User, CompletableFuture<Void>> pendingUsers = new IdentityHashMap<>();
+    private Map<Group, CompletableFuture<Void>> pendingGroups = new IdentityHashMap<>();
+    private boolean flushScheduled = false;
+
+    WriteBehindBuffer(LuckPermsPlugin plugin, StorageImplementation implementation, long delayMillis) {
+        this.plugin = plugin;
+        this.implementation = implementation;
+        this.delayMillis = delayMillis;
+    }
+
+    public CompletableFuture<Void> saveUser(User user) {
+        synchronized (this.lock) {
+            CompletableFuture<Void> future = this.pendingUsers.computeIfAbsent(user, u -> new CompletableFuture<>());
+            scheduleFlush();
+            return future;
+        }
+    }
+
+    public CompletableFuture<Void> saveGroup(Group group) {
+        synchronized (this.lock) {
+            CompletableFuture<Void> future = this.pendingGroups.computeIfAbsent(group, g -> new CompletableFuture<>());
+            scheduleFlush();
+            return future;
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!this.flushScheduled) {
+            this.flushScheduled = true;
+            this.plugin.getBootstrap().getScheduler().asyncLater(this::flush, this.delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all pending saves to the storage, blocking until complete.
+     */
+    public void flush() {
+        synchronized (this.flushLock) {
+            Map<User, CompletableFuture<Void>> users;
+            Map<Group, CompletableFuture<Void>> groups;
+            synchronized (this.lock) {
+                if (this.pendingUsers.isEmpty() && this.pendingGroups.isEmpty()) {
+                    return;
+                }
+
+                users = this.pendingUsers;
+                groups = this.pendingGroups;
+                this.pendingUsers = new IdentityHashMap<>();
+                this.pendingGroups = new IdentityHashMap<>();
+                this.flushScheduled = false;
+            }
+
+            if (!groups.isEmpty()) {
+                write(groups.values(), () -> this.implementation.saveGroups(groups.keySet()));
+            }
+            if (!users.isEmpty()) {
+                write(users.values(), () -> this.implementation.saveUsers(users.keySet()));
+            }
+        }
+    }
+
+    private void write(Collection<CompletableFuture<Void>> futures, Throwing.Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Exception e) {
+            this.plugin.getLogger().warn("Exception whilst writing pending saves to storage", e);
+            for (CompletableFuture<Void> future : futures) {
+                future.completeExceptionally(e);
+            }
+            return;
+        }
+
+        for (CompletableFuture<Void> future : futures) {
+            future.complete(null);
+        }
+    }
+
+}
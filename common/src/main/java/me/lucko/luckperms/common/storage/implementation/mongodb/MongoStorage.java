@@ -34,12 +34,26 @@ import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
 import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 
+import me.lucko.luckperms.common.actionlog.ActionFilter;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.action.DeleteAction;
+import me.lucko.luckperms.common.bulkupdate.comparison.Constraint;
+import me.lucko.luckperms.common.bulkupdate.comparison.StandardComparison;
+import me.lucko.luckperms.common.bulkupdate.query.Query;
+import me.lucko.luckperms.common.bulkupdate.query.QueryField;
 import me.lucko.luckperms.common.context.contextset.MutableContextSetImpl;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.model.Group;
@@ -68,10 +82,13 @@ import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeBuilder;
 
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -79,6 +96,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class MongoStorage implements StorageImplementation {
@@ -90,6 +108,14 @@ public class MongoStorage implements StorageImplementation {
     private final String prefix;
     private final String connectionUri;
 
+    // the number of replacements to send to the server at once when applying bulk updates
+    private static final int BULK_WRITE_BATCH_SIZE = 1000;
+
+    // set once the action collection is known not to contain entries in the old
+    // (pre source/target) format. new entries are never written in that format, so
+    // this doesn't need to be checked again
+    private volatile boolean noLegacyActions = false;
+
     public MongoStorage(LuckPermsPlugin plugin, StorageCredentials configuration, String prefix, String connectionUri) {
         this.plugin = plugin;
         this.configuration = configuration;
@@ -134,6 +160,16 @@ public class MongoStorage implements StorageImplementation {
         }
         
         this.database = this.mongoClient.getDatabase(this.configuration.getDatabase());
+
+        MongoCollection<Document> actions = this.database.getCollection(this.prefix + "action");
+        actions.createIndex(Indexes.ascending("timestamp", "_id"));
+        actions.createIndex(Indexes.ascending("source.uniqueId"));
+        actions.createIndex(Indexes.ascending("target.uniqueId"));
+        actions.createIndex(Indexes.ascending("target.name"));
+
+        // used to find the holders of a node when searching / applying bulk updates
+        this.database.getCollection(this.prefix + "users").createIndex(Indexes.ascending("permissions.key"));
+        this.database.getCollection(this.prefix + "groups").createIndex(Indexes.ascending("permissions.key"));
     }
 
     @Override
@@ -201,82 +237,153 @@ public class MongoStorage implements StorageImplementation {
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
         try (MongoCursor<Document> cursor = c.find().iterator()) {
             while (cursor.hasNext()) {
-                Document d = cursor.next();
+                log.add(actionFromDoc(cursor.next()));
+            }
+        }
+        return log.build();
+    }
 
-                if (d.containsKey("source")) {
-                    // new format
-                    Document source = d.get("source", Document.class);
-                    Document target = d.get("target", Document.class);
+    @Override
+    public LogPage getLogPage(ActionFilter filter, LogPage.Parameters page) {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
 
-                    UUID targetUniqueId = null;
-                    if (target.containsKey("uniqueId")) {
-                        targetUniqueId = target.get("uniqueId", UUID.class);
-                    }
+        // entries in the old format can't be matched by the query below, so fallback to
+        // filtering in memory if there are any
+        if (!this.noLegacyActions) {
+            if (c.find(Filters.exists("source", false)).first() != null) {
+                return LogPage.of(getLog().getContent(), filter, page);
+            }
+            this.noLegacyActions = true;
+        }
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(source.get("uniqueId", UUID.class))
-                            .sourceName(source.getString("name"))
-                            .targetType(LoggedAction.parseType(target.getString("type")))
-                            .target(targetUniqueId)
-                            .targetName(target.getString("name"))
-                            .description(d.getString("description"))
-                            .build();
-
-                    log.add(e);
-                } else {
-                    // old format
-                    UUID actedUuid = null;
-                    if (d.containsKey("acted")) {
-                        actedUuid = d.get("acted", UUID.class);
-                    }
+        Bson query = actionFilterToBson(filter);
+        int total = (int) c.countDocuments(query);
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(d.get("actor", UUID.class))
-                            .sourceName(d.getString("actorName"))
-                            .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
-                            .target(actedUuid)
-                            .targetName(d.getString("actedName"))
-                            .description(d.getString("action"))
-                            .build();
-
-                    log.add(e);
-                }
+        int offset = page.resolveOffsetFromNewest(total);
+        if (offset == -1) {
+            return new LogPage(Collections.emptyList(), page, total);
+        }
+
+        // newest first, so the most recent page can be read from the start of the timestamp index
+        List<LoggedAction> content = new ArrayList<>(page.getPageSize());
+        try (MongoCursor<Document> cursor = c.find(query).sort(Sorts.descending("timestamp", "_id")).skip(offset).limit(page.resolveLength(total)).iterator()) {
+            while (cursor.hasNext()) {
+                content.add(actionFromDoc(cursor.next()));
             }
         }
-        return log.build();
+        return LogPage.fromNewest(content, page, total);
+    }
+
+    private static Bson actionFilterToBson(ActionFilter filter) {
+        List<Bson> conditions = new ArrayList<>();
+        if (filter.getSourceUniqueId() != null) {
+            conditions.add(Filters.eq("source.uniqueId", filter.getSourceUniqueId()));
+        }
+        if (filter.getTargetType() != null) {
+            conditions.add(Filters.eq("target.type", filter.getTargetType().name()));
+        }
+        if (filter.getTargetUniqueId() != null) {
+            conditions.add(Filters.eq("target.uniqueId", filter.getTargetUniqueId()));
+        }
+        if (filter.getTargetName() != null) {
+            conditions.add(Filters.eq("target.name", filter.getTargetName()));
+        }
+        if (filter.getSearch() != null) {
+            Pattern pattern = Pattern.compile(Pattern.quote(filter.getSearch()), Pattern.CASE_INSENSITIVE);
+            conditions.add(Filters.or(
+                    Filters.regex("source.name", pattern),
+                    Filters.regex("target.name", pattern),
+                    Filters.regex("description", pattern)
+            ));
+        }
+        if (filter.getSince() != null) {
+            conditions.add(Filters.gte("timestamp", filter.getSince().getEpochSecond()));
+        }
+        if (filter.getUntil() != null) {
+            conditions.add(Filters.lt("timestamp", filter.getUntil().getEpochSecond()));
+        }
+        return conditions.isEmpty() ? new Document() : Filters.and(conditions);
     }
 
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) {
         if (bulkUpdate.getDataType().isIncludingUsers()) {
-            MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
-            try (MongoCursor<Document> cursor = c.find().iterator()) {
-                while (cursor.hasNext()) {
-                    Document d = cursor.next();
-                    UUID uuid = getDocumentId(d);
-                    Document results = processBulkUpdate(d, bulkUpdate, HolderType.USER);
-                    if (results != null) {
-                        c.replaceOne(new Document("_id", uuid), results);
-                    }
-                }
-            }
+            applyBulkUpdate(this.database.getCollection(this.prefix + "users"), bulkUpdate, HolderType.USER);
         }
 
         if (bulkUpdate.getDataType().isIncludingGroups()) {
-            MongoCollection<Document> c = this.database.getCollection(this.prefix + "groups");
-            try (MongoCursor<Document> cursor = c.find().iterator()) {
-                while (cursor.hasNext()) {
-                    Document d = cursor.next();
-                    String holder = d.getString("_id");
-                    Document results = processBulkUpdate(d, bulkUpdate, HolderType.GROUP);
-                    if (results != null) {
-                        c.replaceOne(new Document("_id", holder), results);
-                    }
+            applyBulkUpdate(this.database.getCollection(this.prefix + "groups"), bulkUpdate, HolderType.GROUP);
+        }
+    }
+
+    private void applyBulkUpdate(MongoCollection<Document> c, BulkUpdate bulkUpdate, HolderType holderType) {
+        // translate the constraints on the permission key into a filter, so only documents which
+        // might be affected by the update are read. the remaining constraints are checked in memory
+        List<Bson> keyConditions = new ArrayList<>();
+        boolean allKeyConditions = true;
+        for (Query query : bulkUpdate.getQueries()) {
+            Pattern pattern = query.getField() == QueryField.PERMISSION ? nodeKeyPattern(query.getConstraint()) : null;
+            if (pattern != null) {
+                keyConditions.add(Filters.regex("key", pattern));
+            } else {
+                allKeyConditions = false;
+            }
+        }
+
+        Bson filter = keyConditions.isEmpty() ? new Document() : Filters.elemMatch("permissions", Filters.and(keyConditions));
+
+        // deletions which only depend on the key can be applied entirely by the server,
+        // so long as we don't need to count the affected nodes
+        if (bulkUpdate.getAction() instanceof DeleteAction && allKeyConditions && !keyConditions.isEmpty() && !bulkUpdate.isTrackingStatistics()) {
+            c.updateMany(filter, Updates.pull("permissions", Filters.and(keyConditions)));
+            return;
+        }
+
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        try (MongoCursor<Document> cursor = c.find(filter).iterator()) {
+            while (cursor.hasNext()) {
+                Document d = cursor.next();
+                Object id = d.get("_id");
+                Document results = processBulkUpdate(d, bulkUpdate, holderType);
+                if (results != null) {
+                    writes.add(new ReplaceOneModel<>(new Document("_id", id), results));
+                }
+
+                if (writes.size() >= BULK_WRITE_BATCH_SIZE) {
+                    c.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                    writes.clear();
                 }
             }
         }
+
+        if (!writes.isEmpty()) {
+            c.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        }
+    }
+
+    /**
+     * Translates a constraint on a node key into an (anchored, case insensitive) regex
+     * which can be evaluated by the server.
+     *
+     * @param constraint the constraint
+     * @return the pattern, or null if the constraint can't be used to narrow the search
+     */
+    private static @Nullable Pattern nodeKeyPattern(Constraint constraint) {
+        if (constraint.getComparison() == StandardComparison.EQUAL) {
+            return Pattern.compile("^" + Pattern.quote(constraint.getExpressionValue()) + "$", Pattern.CASE_INSENSITIVE);
+        }
+        if (constraint.getComparison() == StandardComparison.SIMILAR) {
+            Pattern like = StandardComparison.compilePatternForLikeSyntax(constraint.getExpressionValue());
+            return Pattern.compile("^(?:" + like.pattern() + ")$", Pattern.CASE_INSENSITIVE);
+        }
+
+        // negated comparisons match almost every holder, so there's nothing to gain
+        return null;
+    }
+
+    private static Bson nodeSearchFilter(ConstraintNodeMatcher<?> constraint) {
+        Pattern pattern = nodeKeyPattern(constraint.getConstraint());
+        return pattern == null ? new Document() : Filters.elemMatch("permissions", Filters.regex("key", pattern));
     }
 
     private Document processBulkUpdate(Document document, BulkUpdate bulkUpdate, HolderType holderType) {
@@ -302,29 +409,60 @@ public class MongoStorage implements StorageImplementation {
         try (MongoCursor<Document> cursor = c.find(new Document("_id", user.getUniqueId())).iterator()) {
             if (cursor.hasNext()) {
                 // User exists, let's load.
+                loadUserFromDoc(c, user, cursor.next());
+            } else {
+                loadMissingUser(user);
+            }
+        }
+        return user;
+    }
+
+    @Override
+    public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) {
+        Map<UUID, User> users = new HashMap<>();
+        for (UUID uniqueId : uniqueIds) {
+            users.put(uniqueId, this.plugin.getUserManager().getOrMake(uniqueId));
+        }
+
+        Set<UUID> missing = new HashSet<>(uniqueIds);
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
+        try (MongoCursor<Document> cursor = c.find(Filters.in("_id", uniqueIds)).iterator()) {
+            while (cursor.hasNext()) {
                 Document d = cursor.next();
-                String name = d.getString("name");
+                User user = users.get(getDocumentId(d));
+                if (user != null && missing.remove(user.getUniqueId())) {
+                    loadUserFromDoc(c, user, d);
+                }
+            }
+        }
 
-                user.getPrimaryGroup().setStoredValue(d.getString("primaryGroup"));
-                user.setUsername(name, true);
+        for (UUID uniqueId : missing) {
+            loadMissingUser(users.get(uniqueId));
+        }
+        return users;
+    }
 
-                user.loadNodesFromStorage(nodesFromDoc(d));
-                this.plugin.getUserManager().giveDefaultIfNeeded(user);
+    private void loadUserFromDoc(MongoCollection<Document> c, User user, Document d) {
+        String name = d.getString("name");
 
+        user.getPrimaryGroup().setStoredValue(d.getString("primaryGroup"));
+        user.setUsername(name, true);
 
-                boolean updatedUsername = user.getUsername().isPresent() && (name == null || !user.getUsername().get().equalsIgnoreCase(name));
-                if (updatedUsername | user.auditTemporaryNodes()) {
-                    c.replaceOne(new Document("_id", user.getUniqueId()), userToDoc(user));
-                }
-            } else {
-                if (this.plugin.getUserManager().isNonDefaultUser(user)) {
-                    user.loadNodesFromStorage(Collections.emptyList());
-                    user.getPrimaryGroup().setStoredValue(null);
-                    this.plugin.getUserManager().giveDefaultIfNeeded(user);
-                }
-            }
+        user.loadNodesFromStorage(nodesFromDoc(d));
+        this.plugin.getUserManager().giveDefaultIfNeeded(user);
+
+        boolean updatedUsername = user.getUsername().isPresent() && (name == null || !user.getUsername().get().equalsIgnoreCase(name));
+        if (updatedUsername | user.auditTemporaryNodes()) {
+            c.replaceOne(new Document("_id", user.getUniqueId()), userToDoc(user));
+        }
+    }
+
+    private void loadMissingUser(User user) {
+        if (this.plugin.getUserManager().isNonDefaultUser(user)) {
+            user.loadNodesFromStorage(Collections.emptyList());
+            user.getPrimaryGroup().setStoredValue(null);
+            this.plugin.getUserManager().giveDefaultIfNeeded(user);
         }
-        return user;
     }
 
     @Override
@@ -358,7 +496,7 @@ public class MongoStorage implements StorageImplementation {
     public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws Exception {
         List<NodeEntry<UUID, N>> held = new ArrayList<>();
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
-        try (MongoCursor<Document> cursor = c.find().iterator()) {
+        try (MongoCursor<Document> cursor = c.find(nodeSearchFilter(constraint)).projection(Projections.include("permissions")).iterator()) {
             while (cursor.hasNext()) {
                 Document d = cursor.next();
                 UUID holder = getDocumentId(d);
@@ -440,7 +578,7 @@ public class MongoStorage implements StorageImplementation {
     public <N extends Node> List<NodeEntry<String, N>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) throws Exception {
         List<NodeEntry<String, N>> held = new ArrayList<>();
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "groups");
-        try (MongoCursor<Document> cursor = c.find().iterator()) {
+        try (MongoCursor<Document> cursor = c.find(nodeSearchFilter(constraint)).projection(Projections.include("permissions")).iterator()) {
             while (cursor.hasNext()) {
                 Document d = cursor.next();
                 String holder = d.getString("_id");
@@ -577,6 +715,45 @@ public class MongoStorage implements StorageImplementation {
         return null;
     }
 
+    private static LoggedAction actionFromDoc(Document d) {
+        if (d.containsKey("source")) {
+            // new format
+            Document source = d.get("source", Document.class);
+            Document target = d.get("target", Document.class);
+
+            UUID targetUniqueId = null;
+            if (target.containsKey("uniqueId")) {
+                targetUniqueId = target.get("uniqueId", UUID.class);
+            }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(source.get("uniqueId", UUID.class))
+                    .sourceName(source.getString("name"))
+                    .targetType(LoggedAction.parseType(target.getString("type")))
+                    .target(targetUniqueId)
+                    .targetName(target.getString("name"))
+                    .description(d.getString("description"))
+                    .build();
+        } else {
+            // old format
+            UUID actedUuid = null;
+            if (d.containsKey("acted")) {
+                actedUuid = d.get("acted", UUID.class);
+            }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(d.get("actor", UUID.class))
+                    .sourceName(d.getString("actorName"))
+                    .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
+                    .target(actedUuid)
+                    .targetName(d.getString("actedName"))
+                    .description(d.getString("action"))
+                    .build();
+        }
+    }
+
     private static UUID getDocumentId(Document document) {
         Object id = document.get("_id");
         if (id instanceof UUID) {
@@ -27,9 +27,12 @@ package me.lucko.luckperms.common.storage.implementation.sql;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.gson.reflect.TypeToken;
 
+import me.lucko.luckperms.common.actionlog.ActionFilter;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdateStatistics;
@@ -47,6 +50,7 @@ import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.implementation.sql.connection.ConnectionFactory;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
 import me.lucko.luckperms.common.storage.misc.PlayerSaveResultImpl;
+import me.lucko.luckperms.common.util.Iterators;
 import me.lucko.luckperms.common.util.Uuids;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
 
@@ -62,6 +66,7 @@ import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -69,25 +74,40 @@ import java.sql.Statement;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class SqlStorage implements StorageImplementation {
     private static final Type LIST_STRING_TYPE = new TypeToken<List<String>>(){}.getType();
 
+    // the maximum number of users/groups to select in a single 'IN (...)' query
+    private static final int USER_SELECT_BATCH_SIZE = 500;
+    private static final int GROUP_SELECT_BATCH_SIZE = 500;
+
+    // how often loadAllGroups ignores the group versions and reloads every group.
+    // servers running older versions of LuckPerms (and manual edits to the database)
+    // change group permissions without bumping the version, so the version check alone
+    // would never pick those changes up
+    private static final long GROUP_FULL_RELOAD_INTERVAL = TimeUnit.MINUTES.toMillis(15);
+
     private static final String USER_PERMISSIONS_SELECT = "SELECT id, permission, value, server, world, expiry, contexts FROM '{prefix}user_permissions' WHERE uuid=?";
     private static final String USER_PERMISSIONS_DELETE_SPECIFIC = "DELETE FROM '{prefix}user_permissions' WHERE id=?";
     private static final String USER_PERMISSIONS_DELETE_SPECIFIC_PROPS = "DELETE FROM '{prefix}user_permissions' WHERE uuid=? AND permission=? AND value=? AND server=? AND world=? AND expiry=? AND contexts=?";
     private static final String USER_PERMISSIONS_DELETE = "DELETE FROM '{prefix}user_permissions' WHERE uuid=?";
     private static final String USER_PERMISSIONS_INSERT = "INSERT INTO '{prefix}user_permissions' (uuid, permission, value, server, world, expiry, contexts) VALUES(?, ?, ?, ?, ?, ?, ?)";
     private static final String USER_PERMISSIONS_SELECT_DISTINCT = "SELECT DISTINCT uuid FROM '{prefix}user_permissions'";
+    private static final String USER_PERMISSIONS_SELECT_MULTIPLE = "SELECT uuid, id, permission, value, server, world, expiry, contexts FROM '{prefix}user_permissions' WHERE uuid IN ";
     private static final String USER_PERMISSIONS_SELECT_PERMISSION = "SELECT uuid, id, permission, value, server, world, expiry, contexts FROM '{prefix}user_permissions' WHERE ";
 
     private static final String PLAYER_SELECT_UUID_BY_USERNAME = "SELECT uuid FROM '{prefix}players' WHERE username=? LIMIT 1";
@@ -98,11 +118,13 @@ public class SqlStorage implements StorageImplementation {
     private static final String PLAYER_SELECT_ALL_UUIDS_BY_USERNAME = "SELECT uuid FROM '{prefix}players' WHERE username=? AND NOT uuid=?";
     private static final String PLAYER_DELETE_ALL_UUIDS_BY_USERNAME = "DELETE FROM '{prefix}players' WHERE username=? AND NOT uuid=?";
     private static final String PLAYER_SELECT_BY_UUID = "SELECT username, primary_group FROM '{prefix}players' WHERE uuid=?";
+    private static final String PLAYER_SELECT_BY_UUIDS = "SELECT uuid, username, primary_group FROM '{prefix}players' WHERE uuid IN ";
     private static final String PLAYER_SELECT_PRIMARY_GROUP_BY_UUID = "SELECT primary_group FROM '{prefix}players' WHERE uuid=? LIMIT 1";
     private static final String PLAYER_UPDATE_PRIMARY_GROUP_BY_UUID = "UPDATE '{prefix}players' SET primary_group=? WHERE uuid=?";
 
     private static final String GROUP_PERMISSIONS_SELECT = "SELECT id, permission, value, server, world, expiry, contexts FROM '{prefix}group_permissions' WHERE name=?";
     private static final String GROUP_PERMISSIONS_SELECT_ALL = "SELECT name, id, permission, value, server, world, expiry, contexts FROM '{prefix}group_permissions'";
+    private static final String GROUP_PERMISSIONS_SELECT_MULTIPLE = "SELECT name, id, permission, value, server, world, expiry, contexts FROM '{prefix}group_permissions' WHERE name IN ";
     private static final String GROUP_PERMISSIONS_DELETE_SPECIFIC = "DELETE FROM '{prefix}group_permissions' WHERE id=?";
     private static final String GROUP_PERMISSIONS_DELETE_SPECIFIC_PROPS = "DELETE FROM '{prefix}group_permissions' WHERE name=? AND permission=? AND value=? AND server=? AND world=? AND expiry=? AND contexts=?";
     private static final String GROUP_PERMISSIONS_DELETE = "DELETE FROM '{prefix}group_permissions' WHERE name=?";
@@ -110,6 +132,11 @@ public class SqlStorage implements StorageImplementation {
     private static final String GROUP_PERMISSIONS_SELECT_PERMISSION = "SELECT name, id, permission, value, server, world, expiry, contexts FROM '{prefix}group_permissions' WHERE ";
 
     private static final String GROUP_SELECT_ALL = "SELECT name FROM '{prefix}groups'";
+    private static final String GROUP_SELECT_VERSION = "SELECT version FROM '{prefix}groups' WHERE name=?";
+    private static final String GROUP_SELECT_ALL_VERSIONS = "SELECT name, version FROM '{prefix}groups'";
+    private static final String GROUP_UPDATE_VERSION = "UPDATE '{prefix}groups' SET version=version+1 WHERE name=?";
+    private static final String GROUP_UPDATE_ALL_VERSIONS = "UPDATE '{prefix}groups' SET version=version+1";
+    private static final String GROUP_ADD_VERSION_COLUMN = "ALTER TABLE '{prefix}groups' ADD COLUMN version BIGINT NOT NULL DEFAULT 0";
     private static final Map<String, String> GROUP_INSERT = ImmutableMap.of(
             "H2", "MERGE INTO '{prefix}groups' (name) VALUES(?)",
             "SQLite", "INSERT OR IGNORE INTO '{prefix}groups' (name) VALUES(?)",
@@ -126,12 +153,30 @@ public class SqlStorage implements StorageImplementation {
 
     private static final String ACTION_INSERT = "INSERT INTO '{prefix}actions' (time, actor_uuid, actor_name, type, acted_uuid, acted_name, action) VALUES(?, ?, ?, ?, ?, ?, ?)";
     private static final String ACTION_SELECT_ALL = "SELECT * FROM '{prefix}actions'";
+    private static final String ACTION_COUNT = "SELECT COUNT(*) FROM '{prefix}actions'";
+    // newest first, so the most recent page can be read from the start of the time index
+    private static final String ACTION_ORDER_AND_LIMIT = " ORDER BY time DESC, id DESC LIMIT ? OFFSET ?";
+    private static final String ACTION_LIKE_ESCAPE = "!";
+
+    // index name (without prefix) --> column, for the indexes used to query the action log
+    private static final Map<String, String> ACTION_INDEXES = ImmutableMap.of(
+            "actions_time", "time",
+            "actions_actor_uuid", "actor_uuid",
+            "actions_acted_uuid", "acted_uuid",
+            "actions_acted_name", "acted_name"
+    );
 
     private final LuckPermsPlugin plugin;
     
     private final ConnectionFactory connectionFactory;
     private final Function<String, String> statementProcessor;
 
+    // the version of each group when it was last loaded from the database
+    private final Map<String, Long> groupVersions = new ConcurrentHashMap<>();
+
+    // the time when every group was last reloaded regardless of version
+    private volatile long lastFullGroupReload = 0;
+
     public SqlStorage(LuckPermsPlugin plugin, ConnectionFactory connectionFactory, String tablePrefix) {
         this.plugin = plugin;
         this.connectionFactory = connectionFactory;
@@ -167,6 +212,38 @@ public class SqlStorage implements StorageImplementation {
 
         if (!tableExists) {
             applySchema();
+        } else {
+            migrateGroupVersions();
+            migrateActionIndexes();
+        }
+    }
+
+    private void migrateActionIndexes() throws SQLException {
+        try (Connection c = this.connectionFactory.getConnection()) {
+            String table = this.statementProcessor.apply("{prefix}actions");
+            for (Map.Entry<String, String> index : ACTION_INDEXES.entrySet()) {
+                if (indexExists(c, table, this.statementProcessor.apply("{prefix}" + index.getKey()))) {
+                    continue;
+                }
+
+                this.plugin.getLogger().info("Adding " + index.getValue() + " index to the actions table...");
+                try (Statement s = c.createStatement()) {
+                    s.execute(this.statementProcessor.apply("CREATE INDEX '{prefix}" + index.getKey() + "' ON '{prefix}actions' (" + index.getValue() + ")"));
+                }
+            }
+        }
+    }
+
+    private void migrateGroupVersions() throws SQLException {
+        try (Connection c = this.connectionFactory.getConnection()) {
+            if (columnExists(c, this.statementProcessor.apply("{prefix}groups"), "version")) {
+                return;
+            }
+
+            this.plugin.getLogger().info("Adding version column to the groups table...");
+            try (Statement s = c.createStatement()) {
+                s.execute(this.statementProcessor.apply(GROUP_ADD_VERSION_COLUMN));
+            }
         }
     }
 
@@ -255,6 +332,105 @@ public class SqlStorage implements StorageImplementation {
         return log.build();
     }
 
+    @Override
+    public LogPage getLogPage(ActionFilter filter, LogPage.Parameters page) throws SQLException {
+        StringBuilder where = new StringBuilder();
+        List<Object> variables = new ArrayList<>();
+        appendActionFilter(filter, where, variables);
+
+        try (Connection c = this.connectionFactory.getConnection()) {
+            int total = 0;
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(ACTION_COUNT + where))) {
+                setVariables(ps, variables);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        total = rs.getInt(1);
+                    }
+                }
+            }
+
+            int offset = page.resolveOffsetFromNewest(total);
+            if (offset == -1) {
+                return new LogPage(Collections.emptyList(), page, total);
+            }
+
+            variables.add(page.resolveLength(total));
+            variables.add(offset);
+
+            List<LoggedAction> content = new ArrayList<>(page.getPageSize());
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(ACTION_SELECT_ALL + where + ACTION_ORDER_AND_LIMIT))) {
+                setVariables(ps, variables);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        content.add(readAction(rs));
+                    }
+                }
+            }
+            return LogPage.fromNewest(content, page, total);
+        }
+    }
+
+    private static void appendActionFilter(ActionFilter filter, StringBuilder sql, List<Object> variables) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getSourceUniqueId() != null) {
+            conditions.add("actor_uuid = ?");
+            variables.add(filter.getSourceUniqueId().toString());
+        }
+        if (filter.getTargetType() != null) {
+            conditions.add("type = ?");
+            variables.add(Character.toString(LoggedAction.getTypeCharacter(filter.getTargetType())));
+        }
+        if (filter.getTargetUniqueId() != null) {
+            conditions.add("acted_uuid = ?");
+            variables.add(filter.getTargetUniqueId().toString());
+        }
+        if (filter.getTargetName() != null) {
+            conditions.add("acted_name = ?");
+            variables.add(filter.getTargetName());
+        }
+        if (filter.getSearch() != null) {
+            // the escape character is passed as a variable, as quotes in the statement are
+            // replaced by the statement processor
+            String pattern = "%" + escapeLikePattern(filter.getSearch()) + "%";
+            conditions.add("(LOWER(actor_name) LIKE ? ESCAPE ? OR LOWER(acted_name) LIKE ? ESCAPE ? OR LOWER(action) LIKE ? ESCAPE ?)");
+            for (int i = 0; i < 3; i++) {
+                variables.add(pattern);
+                variables.add(ACTION_LIKE_ESCAPE);
+            }
+        }
+        if (filter.getSince() != null) {
+            conditions.add("time >= ?");
+            variables.add(filter.getSince().getEpochSecond());
+        }
+        if (filter.getUntil() != null) {
+            conditions.add("time < ?");
+            variables.add(filter.getUntil().getEpochSecond());
+        }
+
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+    }
+
+    private static String escapeLikePattern(String s) {
+        return s.replace(ACTION_LIKE_ESCAPE, ACTION_LIKE_ESCAPE + ACTION_LIKE_ESCAPE)
+                .replace("%", ACTION_LIKE_ESCAPE + "%")
+                .replace("_", ACTION_LIKE_ESCAPE + "_");
+    }
+
+    private static void setVariables(PreparedStatement ps, List<Object> variables) throws SQLException {
+        for (int i = 0; i < variables.size(); i++) {
+            Object variable = variables.get(i);
+            if (variable instanceof Long) {
+                ps.setLong(i + 1, (Long) variable);
+            } else if (variable instanceof Integer) {
+                ps.setInt(i + 1, (Integer) variable);
+            } else {
+                ps.setString(i + 1, (String) variable);
+            }
+        }
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws SQLException {
         BulkUpdateStatistics stats = bulkUpdate.getStatistics();
@@ -312,6 +488,11 @@ public class SqlStorage implements StorageImplementation {
                         ps.execute();
                     }
                 }
+
+                // we don't know which groups were affected, so they all need to be reloaded
+                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_UPDATE_ALL_VERSIONS))) {
+                    ps.execute();
+                }
             }
         }
     }
@@ -328,6 +509,32 @@ public class SqlStorage implements StorageImplementation {
             playerData = selectPlayerData(c, user.getUniqueId());
         }
 
+        applyUserData(user, nodes, playerData);
+        return user;
+    }
+
+    @Override
+    public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws SQLException {
+        Map<UUID, List<Node>> nodes = new HashMap<>();
+        Map<UUID, SqlPlayerData> playerData = new HashMap<>();
+
+        try (Connection c = this.connectionFactory.getConnection()) {
+            for (List<UUID> batch : Iterators.divideIterable(uniqueIds, USER_SELECT_BATCH_SIZE)) {
+                selectUserPermissions(c, batch, nodes);
+                selectPlayerData(c, batch, playerData);
+            }
+        }
+
+        Map<UUID, User> users = new HashMap<>();
+        for (UUID uniqueId : uniqueIds) {
+            User user = this.plugin.getUserManager().getOrMake(uniqueId);
+            applyUserData(user, nodes.getOrDefault(uniqueId, Collections.emptyList()), playerData.get(uniqueId));
+            users.put(uniqueId, user);
+        }
+        return users;
+    }
+
+    private void applyUserData(User user, List<Node> nodes, SqlPlayerData playerData) throws SQLException {
         if (playerData != null) {
             if (playerData.primaryGroup != null) {
                 user.getPrimaryGroup().setStoredValue(playerData.primaryGroup);
@@ -344,13 +551,67 @@ public class SqlStorage implements StorageImplementation {
         if (user.auditTemporaryNodes()) {
             saveUser(user);
         }
-
-        return user;
     }
 
     @Override
     public void saveUser(User user) throws SQLException {
-        MutateResult changes = user.normalData().exportChanges(results -> {
+        MutateResult changes = exportUserChanges(user);
+        if (changes == null) {
+            try (Connection c = this.connectionFactory.getConnection()) {
+                deleteUser(c, user.getUniqueId());
+            }
+            return;
+        }
+
+        try (Connection c = this.connectionFactory.getConnection()) {
+            updateUserPermissions(c, user.getUniqueId(), changes.getAdded(), changes.getRemoved());
+            insertPlayerData(c, user.getUniqueId(), getPlayerData(user));
+        }
+    }
+
+    @Override
+    public void saveUsers(Collection<User> users) throws SQLException {
+        Map<String, Set<Node>> add = new HashMap<>();
+        Map<String, Set<Node>> delete = new HashMap<>();
+        List<User> deleted = new ArrayList<>();
+        Map<User, MutateResult> updated = new HashMap<>();
+
+        for (User user : users) {
+            MutateResult changes = exportUserChanges(user);
+            if (changes == null) {
+                deleted.add(user);
+            } else {
+                add.put(user.getUniqueId().toString(), changes.getAdded());
+                delete.put(user.getUniqueId().toString(), changes.getRemoved());
+                updated.put(user, changes);
+            }
+        }
+
+        try {
+            runBatch(c -> {
+                for (User user : deleted) {
+                    deleteUser(c, user.getUniqueId());
+                }
+                updatePermissions(c, add, delete, USER_PERMISSIONS_DELETE_SPECIFIC, USER_PERMISSIONS_DELETE_SPECIFIC_PROPS, USER_PERMISSIONS_INSERT);
+                for (User user : updated.keySet()) {
+                    insertPlayerData(c, user.getUniqueId(), getPlayerData(user));
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            // the batch wasn't saved, so put the changes back to be written by the next save
+            updated.forEach((user, changes) -> user.normalData().restoreChanges(changes));
+            throw e;
+        }
+    }
+
+    /**
+     * Exports the changes made to the given user since it was last saved.
+     *
+     * @param user the user
+     * @return the changes, or null if the user's data should be deleted
+     */
+    private MutateResult exportUserChanges(User user) {
+        return user.normalData().exportChanges(results -> {
             if (this.plugin.getUserManager().isNonDefaultUser(user)) {
                 return true;
             }
@@ -363,21 +624,13 @@ public class SqlStorage implements StorageImplementation {
 
             return true;
         });
+    }
 
-        if (changes == null) {
-            try (Connection c = this.connectionFactory.getConnection()) {
-                deleteUser(c, user.getUniqueId());
-            }
-            return;
-        }
-
-        try (Connection c = this.connectionFactory.getConnection()) {
-            updateUserPermissions(c, user.getUniqueId(), changes.getAdded(), changes.getRemoved());
-            insertPlayerData(c, user.getUniqueId(), new SqlPlayerData(
-                    user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME),
-                    user.getUsername().orElse("null").toLowerCase()
-            ));
-        }
+    private static SqlPlayerData getPlayerData(User user) {
+        return new SqlPlayerData(
+                user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME),
+                user.getUsername().orElse("null").toLowerCase()
+        );
     }
 
     @Override
@@ -441,40 +694,63 @@ public class SqlStorage implements StorageImplementation {
 
     @Override
     public Optional<Group> loadGroup(String name) throws SQLException {
-        Set<String> groups;
-        try (Connection c = this.connectionFactory.getConnection()) {
-            groups = selectGroups(c);
-        }
-
-        if (!groups.contains(name)) {
-            return Optional.empty();
-        }
-
-        Group group = this.plugin.getGroupManager().getOrMake(name);
+        Long version;
         List<Node> nodes;
         try (Connection c = this.connectionFactory.getConnection()) {
-            nodes = selectGroupPermissions(c, group.getName());
+            version = selectGroupVersion(c, name);
+            if (version == null) {
+                return Optional.empty();
+            }
+            nodes = selectGroupPermissions(c, name);
         }
 
+        Group group = this.plugin.getGroupManager().getOrMake(name);
         group.loadNodesFromStorage(nodes);
+        this.groupVersions.put(group.getName(), version);
         return Optional.of(group);
     }
 
     @Override
     public void loadAllGroups() throws SQLException {
+        Map<String, Long> versions;
         Map<String, Collection<Node>> groups = new HashMap<>();
+
+        long now = System.currentTimeMillis();
+        boolean fullReload = now - this.lastFullGroupReload >= GROUP_FULL_RELOAD_INTERVAL;
+        if (fullReload) {
+            this.lastFullGroupReload = now;
+        }
+
         try (Connection c = this.connectionFactory.getConnection()) {
-            selectGroups(c).forEach(name -> groups.put(name, new ArrayList<>()));
-            selectAllGroupPermissions(groups, c);
+            versions = selectGroupVersions(c);
+
+            // only reload groups which have changed since they were last loaded,
+            // unless it is time for a periodic full reload
+            for (Map.Entry<String, Long> entry : versions.entrySet()) {
+                String name = entry.getKey();
+                if (fullReload || !entry.getValue().equals(this.groupVersions.get(name)) || !this.plugin.getGroupManager().isLoaded(name)) {
+                    groups.put(name, new ArrayList<>());
+                }
+            }
+
+            if (groups.size() == versions.size()) {
+                selectAllGroupPermissions(groups, c);
+            } else {
+                for (List<String> batch : Iterators.divideIterable(groups.keySet(), GROUP_SELECT_BATCH_SIZE)) {
+                    selectGroupPermissions(c, batch, groups);
+                }
+            }
         }
 
         for (Map.Entry<String, Collection<Node>> entry : groups.entrySet()) {
             Group group = this.plugin.getGroupManager().getOrMake(entry.getKey());
             Collection<Node> nodes = entry.getValue();
             group.loadNodesFromStorage(nodes);
+            this.groupVersions.put(group.getName(), versions.get(entry.getKey()));
         }
 
-        this.plugin.getGroupManager().retainAll(groups.keySet());
+        this.plugin.getGroupManager().retainAll(versions.keySet());
+        this.groupVersions.keySet().retainAll(versions.keySet());
     }
 
     @Override
@@ -484,8 +760,42 @@ public class SqlStorage implements StorageImplementation {
         if (!changes.isEmpty()) {
             try (Connection c = this.connectionFactory.getConnection()) {
                 updateGroupPermissions(c, group.getName(), changes.getAdded(), changes.getRemoved());
+                updateGroupVersion(c, group.getName());
+            }
+        }
+    }
+
+    @Override
+    public void saveGroups(Collection<Group> groups) throws SQLException {
+        Map<String, Set<Node>> add = new HashMap<>();
+        Map<String, Set<Node>> delete = new HashMap<>();
+        Map<Group, MutateResult> updated = new HashMap<>();
+
+        for (Group group : groups) {
+            MutateResult changes = group.normalData().exportChanges(c -> true);
+            if (!changes.isEmpty()) {
+                add.put(group.getName(), changes.getAdded());
+                delete.put(group.getName(), changes.getRemoved());
+                updated.put(group, changes);
             }
         }
+
+        if (add.isEmpty()) {
+            return;
+        }
+
+        try {
+            runBatch(c -> {
+                updatePermissions(c, add, delete, GROUP_PERMISSIONS_DELETE_SPECIFIC, GROUP_PERMISSIONS_DELETE_SPECIFIC_PROPS, GROUP_PERMISSIONS_INSERT);
+                for (String group : add.keySet()) {
+                    updateGroupVersion(c, group);
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            // the batch wasn't saved, so put the changes back to be written by the next save
+            updated.forEach((group, changes) -> group.normalData().restoreChanges(changes));
+            throw e;
+        }
     }
 
     @Override
@@ -500,6 +810,7 @@ public class SqlStorage implements StorageImplementation {
         }
 
         this.plugin.getGroupManager().unload(group.getName());
+        this.groupVersions.remove(group.getName());
     }
 
     @Override
@@ -788,46 +1099,95 @@ public class SqlStorage implements StorageImplementation {
         updatePermissions(c, group, add, delete, GROUP_PERMISSIONS_DELETE_SPECIFIC, GROUP_PERMISSIONS_DELETE_SPECIFIC_PROPS, GROUP_PERMISSIONS_INSERT);
     }
 
+    /**
+     * Runs a batch of writes, in a single transaction if the connection factory
+     * supports them.
+     *
+     * <p>If the connections can't be used for transactions, some of the writes
+     * may have been made when an exception is thrown.</p>
+     *
+     * @param batch the batch of writes
+     * @throws SQLException if the batch couldn't be written
+     */
+    private void runBatch(BatchWriter batch) throws SQLException {
+        try (Connection c = this.connectionFactory.getConnection()) {
+            if (!this.connectionFactory.supportsTransactions()) {
+                batch.write(c);
+                return;
+            }
+
+            c.setAutoCommit(false);
+            try {
+                batch.write(c);
+                c.commit();
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter {
+        void write(Connection c) throws SQLException;
+    }
+
     private void updatePermissions(Connection c, String holder, Set<Node> add, Set<Node> delete, String deleteSpecificQuery, String deleteQuery, String insertQuery) throws SQLException {
-        if (!delete.isEmpty()) {
-            List<Long> deleteRows = new ArrayList<>(delete.size());
-            List<Node> deleteNodes = new ArrayList<>(delete.size());
-            for (Node node : delete) {
+        updatePermissions(c, Collections.singletonMap(holder, add), Collections.singletonMap(holder, delete), deleteSpecificQuery, deleteQuery, insertQuery);
+    }
+
+    private void updatePermissions(Connection c, Map<String, Set<Node>> add, Map<String, Set<Node>> delete, String deleteSpecificQuery, String deleteQuery, String insertQuery) throws SQLException {
+        List<Long> deleteRows = new ArrayList<>();
+        List<Map.Entry<String, Node>> deleteNodes = new ArrayList<>();
+        for (Map.Entry<String, Set<Node>> entry : delete.entrySet()) {
+            for (Node node : entry.getValue()) {
                 SqlRowId rowId = node.getMetadata(SqlRowId.KEY).orElse(null);
                 if (rowId != null) {
                     deleteRows.add(rowId.getRowId());
                 } else {
-                    deleteNodes.add(node);
+                    deleteNodes.add(Maps.immutableEntry(entry.getKey(), node));
                 }
             }
+        }
 
-            if (!deleteRows.isEmpty()) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(deleteSpecificQuery))) {
-                    for (Long id : deleteRows) {
-                        ps.setLong(1, id);
-                        ps.addBatch();
-                    }
-                    ps.executeBatch();
+        if (!deleteRows.isEmpty()) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(deleteSpecificQuery))) {
+                for (Long id : deleteRows) {
+                    ps.setLong(1, id);
+                    ps.addBatch();
                 }
+                ps.executeBatch();
             }
-            if (!deleteNodes.isEmpty()) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(deleteQuery))) {
-                    for (Node node : deleteNodes) {
-                        ps.setString(1, holder);
-                        writeNode(node, ps);
-                        ps.addBatch();
-                    }
-                    ps.executeBatch();
+        }
+        if (!deleteNodes.isEmpty()) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(deleteQuery))) {
+                for (Map.Entry<String, Node> entry : deleteNodes) {
+                    ps.setString(1, entry.getKey());
+                    writeNode(entry.getValue(), ps);
+                    ps.addBatch();
                 }
+                ps.executeBatch();
             }
         }
 
-        if (!add.isEmpty()) {
+        boolean hasAdditions = false;
+        for (Set<Node> nodes : add.values()) {
+            if (!nodes.isEmpty()) {
+                hasAdditions = true;
+                break;
+            }
+        }
+
+        if (hasAdditions) {
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(insertQuery))) {
-                for (Node node : add) {
-                    ps.setString(1, holder);
-                    writeNode(node, ps);
-                    ps.addBatch();
+                for (Map.Entry<String, Set<Node>> entry : add.entrySet()) {
+                    for (Node node : entry.getValue()) {
+                        ps.setString(1, entry.getKey());
+                        writeNode(node, ps);
+                        ps.addBatch();
+                    }
                 }
                 ps.executeBatch();
             }
@@ -850,6 +1210,50 @@ public class SqlStorage implements StorageImplementation {
         return nodes;
     }
 
+    private void selectUserPermissions(Connection c, List<UUID> users, Map<UUID, List<Node>> nodes) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(USER_PERMISSIONS_SELECT_MULTIPLE + placeholders(users.size())))) {
+            for (int i = 0; i < users.size(); i++) {
+                ps.setString(i + 1, users.get(i).toString());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid = Uuids.fromString(rs.getString("uuid"));
+                    Node node = readNode(rs);
+                    if (uuid != null && node != null) {
+                        nodes.computeIfAbsent(uuid, x -> new ArrayList<>()).add(node);
+                    }
+                }
+            }
+        }
+    }
+
+    private void selectPlayerData(Connection c, List<UUID> users, Map<UUID, SqlPlayerData> playerData) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_SELECT_BY_UUIDS + placeholders(users.size())))) {
+            for (int i = 0; i < users.size(); i++) {
+                ps.setString(i + 1, users.get(i).toString());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid = Uuids.fromString(rs.getString("uuid"));
+                    if (uuid != null) {
+                        playerData.put(uuid, new SqlPlayerData(rs.getString("primary_group"), rs.getString("username")));
+                    }
+                }
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < count; i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            sb.append("?");
+        }
+        return sb.append(")").toString();
+    }
+
     private SqlPlayerData selectPlayerData(Connection c, UUID user) throws SQLException {
         try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_SELECT_BY_UUID))) {
             ps.setString(1, user.toString());
@@ -914,6 +1318,38 @@ public class SqlStorage implements StorageImplementation {
         return groups;
     }
 
+    private Long selectGroupVersion(Connection c, String group) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_SELECT_VERSION))) {
+            ps.setString(1, group);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong("version");
+                } else {
+                    return null;
+                }
+            }
+        }
+    }
+
+    private Map<String, Long> selectGroupVersions(Connection c) throws SQLException {
+        Map<String, Long> versions = new HashMap<>();
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_SELECT_ALL_VERSIONS))) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    versions.put(rs.getString("name").toLowerCase(), rs.getLong("version"));
+                }
+            }
+        }
+        return versions;
+    }
+
+    private void updateGroupVersion(Connection c, String group) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_UPDATE_VERSION))) {
+            ps.setString(1, group);
+            ps.execute();
+        }
+    }
+
     private List<Node> selectGroupPermissions(Connection c, String group) throws SQLException {
         List<Node> nodes = new ArrayList<>();
         try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_PERMISSIONS_SELECT))) {
@@ -930,11 +1366,30 @@ public class SqlStorage implements StorageImplementation {
         return nodes;
     }
 
+    private void selectGroupPermissions(Connection c, List<String> groups, Map<String, Collection<Node>> nodes) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_PERMISSIONS_SELECT_MULTIPLE + placeholders(groups.size())))) {
+            for (int i = 0; i < groups.size(); i++) {
+                ps.setString(i + 1, groups.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Collection<Node> list = nodes.get(rs.getString("name").toLowerCase());
+                    if (list != null) {
+                        Node node = readNode(rs);
+                        if (node != null) {
+                            list.add(node);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private void selectAllGroupPermissions(Map<String, Collection<Node>> nodes, Connection c) throws SQLException {
         try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_PERMISSIONS_SELECT_ALL))) {
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    String holder = rs.getString("name");
+                    String holder = rs.getString("name").toLowerCase();
                     Collection<Node> list = nodes.get(holder);
                     if (list != null) {
                         Node node = readNode(rs);
@@ -1010,6 +1465,55 @@ public class SqlStorage implements StorageImplementation {
         }
     }
 
+    private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getColumns(connection.getCatalog(), currentSchema(connection), identifier(metaData, table), identifier(metaData, column))) {
+            while (rs.next()) {
+                // the names are patterns, so '_' could match any character
+                if (rs.getString("TABLE_NAME").equalsIgnoreCase(table) && rs.getString("COLUMN_NAME").equalsIgnoreCase(column)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static boolean indexExists(Connection connection, String table, String index) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), currentSchema(connection), identifier(metaData, table), false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                if (indexName != null && indexName.equalsIgnoreCase(index)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Converts an identifier to the case the database stores unquoted identifiers in,
+     * so it can be passed to {@link DatabaseMetaData} lookups.
+     */
+    private static String identifier(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase(Locale.ROOT);
+        }
+        return identifier;
+    }
+
+    private static String currentSchema(Connection connection) {
+        try {
+            return connection.getSchema();
+        } catch (SQLException | AbstractMethodError e) {
+            // older drivers don't support schemas - match any
+            return null;
+        }
+    }
+
     private static final class SqlPlayerData {
         private final String primaryGroup;
         private final String username;
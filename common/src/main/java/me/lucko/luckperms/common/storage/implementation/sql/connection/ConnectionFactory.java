@@ -51,4 +51,14 @@ public interface ConnectionFactory {
 
     Connection getConnection() throws SQLException;
 
+    /**
+     * Gets if connections returned by {@link #getConnection()} are only used by
+     * the caller until they are closed, so can safely be used for a transaction.
+     *
+     * @return if connections can be used for transactions
+     */
+    default boolean supportsTransactions() {
+        return true;
+    }
+
 }
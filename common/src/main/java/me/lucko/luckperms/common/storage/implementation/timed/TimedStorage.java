@@ -0,0 +1,287 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.implementation.timed;
+
+import me.lucko.luckperms.common.actionlog.ActionFilter;
+import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.metrics.Gauge;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.util.Throwing;
+
+import net.kyori.adventure.text.Component;
+import net.luckperms.api.actionlog.Action;
+import net.luckperms.api.model.PlayerSaveResult;
+import net.luckperms.api.node.Node;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link StorageImplementation} which records the latency and concurrency of
+ * each call to the implementation it wraps, and logs calls which are slow.
+ */
+public class TimedStorage implements StorageImplementation {
+    private final LuckPermsPlugin plugin;
+    private final StorageImplementation delegate;
+
+    public TimedStorage(LuckPermsPlugin plugin, StorageImplementation delegate) {
+        this.plugin = plugin;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Gets the implementation calls are forwarded to.
+     *
+     * @return the wrapped implementation
+     */
+    public StorageImplementation getDelegate() {
+        return this.delegate;
+    }
+
+    private <T> T time(String method, Object subject, Callable<T> call) throws Exception {
+        Gauge inFlight = this.plugin.getMetrics().getStorageInFlight(method);
+        inFlight.increment();
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.call();
+            success = true;
+            return result;
+        } finally {
+            inFlight.decrement();
+            this.plugin.getMetrics().recordStorageCall(method, start, success);
+            checkSlowCall(method, subject, System.nanoTime() - start);
+        }
+    }
+
+    private void time(String method, Object subject, Throwing.Runnable call) throws Exception {
+        time(method, subject, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private void checkSlowCall(String method, Object subject, long durationNanos) {
+        int threshold = this.plugin.getConfiguration().get(ConfigKeys.STORAGE_SLOW_CALL_THRESHOLD);
+        if (threshold <= 0) {
+            return;
+        }
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        if (durationMillis >= threshold) {
+            String target = subject == null ? "" : " for " + describe(subject);
+            this.plugin.getLogger().warn("[Storage] " + getImplementationName() + " took " + durationMillis + "ms to " + method + target);
+        }
+    }
+
+    private static String describe(Object subject) {
+        if (subject instanceof User) {
+            User user = (User) subject;
+            return "user " + user.getUniqueId() + user.getUsername().map(name -> " (" + name + ")").orElse("");
+        } else if (subject instanceof UUID) {
+            return "user " + subject;
+        } else if (subject instanceof Group) {
+            return "group " + ((Group) subject).getName();
+        } else if (subject instanceof Track) {
+            return "track " + ((Track) subject).getName();
+        } else if (subject instanceof Collection) {
+            return ((Collection<?>) subject).size() + " entries";
+        } else {
+            return subject.toString();
+        }
+    }
+
+    @Override
+    public LuckPermsPlugin getPlugin() {
+        return this.delegate.getPlugin();
+    }
+
+    @Override
+    public String getImplementationName() {
+        return this.delegate.getImplementationName();
+    }
+
+    @Override
+    public void init() throws Exception {
+        time("init", null, this.delegate::init);
+    }
+
+    @Override
+    public void shutdown() {
+        this.delegate.shutdown();
+    }
+
+    @Override
+    public Map<Component, Component> getMeta() {
+        return this.delegate.getMeta();
+    }
+
+    @Override
+    public void logAction(Action entry) throws Exception {
+        time("logAction", null, () -> this.delegate.logAction(entry));
+    }
+
+    @Override
+    public Log getLog() throws Exception {
+        return time("getLog", null, this.delegate::getLog);
+    }
+
+    @Override
+    public LogPage getLogPage(ActionFilter filter, LogPage.Parameters page) throws Exception {
+        return time("getLogPage", null, () -> this.delegate.getLogPage(filter, page));
+    }
+
+    @Override
+    public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
+        time("applyBulkUpdate", null, () -> this.delegate.applyBulkUpdate(bulkUpdate));
+    }
+
+    @Override
+    public User loadUser(UUID uniqueId, String username) throws Exception {
+        return time("loadUser", uniqueId, () -> this.delegate.loadUser(uniqueId, username));
+    }
+
+    @Override
+    public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception {
+        return time("loadUsers", uniqueIds, () -> this.delegate.loadUsers(uniqueIds));
+    }
+
+    @Override
+    public void saveUser(User user) throws Exception {
+        time("saveUser", user, () -> this.delegate.saveUser(user));
+    }
+
+    @Override
+    public void saveUsers(Collection<User> users) throws Exception {
+        time("saveUsers", users, () -> this.delegate.saveUsers(users));
+    }
+
+    @Override
+    public Set<UUID> getUniqueUsers() throws Exception {
+        return time("getUniqueUsers", null, this.delegate::getUniqueUsers);
+    }
+
+    @Override
+    public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws Exception {
+        return time("searchUserNodes", null, () -> this.delegate.searchUserNodes(constraint));
+    }
+
+    @Override
+    public Group createAndLoadGroup(String name) throws Exception {
+        return time("createAndLoadGroup", "group " + name, () -> this.delegate.createAndLoadGroup(name));
+    }
+
+    @Override
+    public Optional<Group> loadGroup(String name) throws Exception {
+        return time("loadGroup", "group " + name, () -> this.delegate.loadGroup(name));
+    }
+
+    @Override
+    public void loadAllGroups() throws Exception {
+        time("loadAllGroups", null, this.delegate::loadAllGroups);
+    }
+
+    @Override
+    public void saveGroup(Group group) throws Exception {
+        time("saveGroup", group, () -> this.delegate.saveGroup(group));
+    }
+
+    @Override
+    public void saveGroups(Collection<Group> groups) throws Exception {
+        time("saveGroups", groups, () -> this.delegate.saveGroups(groups));
+    }
+
+    @Override
+    public void deleteGroup(Group group) throws Exception {
+        time("deleteGroup", group, () -> this.delegate.deleteGroup(group));
+    }
+
+    @Override
+    public <N extends Node> List<NodeEntry<String, N>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) throws Exception {
+        return time("searchGroupNodes", null, () -> this.delegate.searchGroupNodes(constraint));
+    }
+
+    @Override
+    public Track createAndLoadTrack(String name) throws Exception {
+        return time("createAndLoadTrack", "track " + name, () -> this.delegate.createAndLoadTrack(name));
+    }
+
+    @Override
+    public Optional<Track> loadTrack(String name) throws Exception {
+        return time("loadTrack", "track " + name, () -> this.delegate.loadTrack(name));
+    }
+
+    @Override
+    public void loadAllTracks() throws Exception {
+        time("loadAllTracks", null, this.delegate::loadAllTracks);
+    }
+
+    @Override
+    public void saveTrack(Track track) throws Exception {
+        time("saveTrack", track, () -> this.delegate.saveTrack(track));
+    }
+
+    @Override
+    public void deleteTrack(Track track) throws Exception {
+        time("deleteTrack", track, () -> this.delegate.deleteTrack(track));
+    }
+
+    @Override
+    public PlayerSaveResult savePlayerData(UUID uniqueId, String username) throws Exception {
+        return time("savePlayerData", uniqueId, () -> this.delegate.savePlayerData(uniqueId, username));
+    }
+
+    @Override
+    public void deletePlayerData(UUID uniqueId) throws Exception {
+        time("deletePlayerData", uniqueId, () -> this.delegate.deletePlayerData(uniqueId));
+    }
+
+    @Override
+    public UUID getPlayerUniqueId(String username) throws Exception {
+        return time("getPlayerUniqueId", "username " + username, () -> this.delegate.getPlayerUniqueId(username));
+    }
+
+    @Override
+    public String getPlayerName(UUID uniqueId) throws Exception {
+        return time("getPlayerName", uniqueId, () -> this.delegate.getPlayerName(uniqueId));
+    }
+}
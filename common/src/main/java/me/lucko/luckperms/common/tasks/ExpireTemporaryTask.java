@@ -26,9 +26,13 @@
 package me.lucko.luckperms.common.tasks;
 
 import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ExpireTemporaryTask implements Runnable {
     private final LuckPermsPlugin plugin;
 
@@ -38,23 +42,45 @@ public class ExpireTemporaryTask implements Runnable {
 
     @Override
     public void run() {
-        boolean groupChanges = false;
-        for (Group group : this.plugin.getGroupManager().getAll().values()) {
-            if (group.auditTemporaryNodes()) {
-                this.plugin.getStorage().saveGroup(group);
-                groupChanges = true;
+        long now = System.currentTimeMillis() / 1000L;
+
+        List<Group> changedGroups = new ArrayList<>();
+        for (PermissionHolder holder : this.plugin.getExpiryIndex().pollExpired(now)) {
+            if (!isLoaded(holder)) {
+                continue;
             }
-        }
 
-        for (User user : this.plugin.getUserManager().getAll().values()) {
-            if (user.auditTemporaryNodes()) {
-                this.plugin.getStorage().saveUser(user);
+            if (holder.auditTemporaryNodes()) {
+                if (holder instanceof Group) {
+                    this.plugin.getStorage().saveGroup((Group) holder);
+                    changedGroups.add((Group) holder);
+                } else if (holder instanceof User) {
+                    this.plugin.getStorage().saveUser((User) holder);
+                }
             }
         }
 
-        if (groupChanges) {
-            this.plugin.getGroupManager().invalidateAllGroupCaches();
-            this.plugin.getUserManager().invalidateAllUserCaches();
+        for (Group group : changedGroups) {
+            this.plugin.getInheritanceIndex().invalidateDependents(group);
+        }
+    }
+
+    /**
+     * Gets if the given holder is the instance currently loaded by its manager.
+     *
+     * <p>Holders which have since been unloaded (or replaced) shouldn't be
+     * audited, as saving them would overwrite newer data in storage.</p>
+     *
+     * @param holder the holder
+     * @return if the holder is loaded
+     */
+    private boolean isLoaded(PermissionHolder holder) {
+        if (holder instanceof User) {
+            return this.plugin.getUserManager().getIfLoaded(((User) holder).getUniqueId()) == holder;
+        } else if (holder instanceof Group) {
+            return this.plugin.getGroupManager().getIfLoaded(((Group) holder).getName()) == holder;
+        } else {
+            return false;
         }
     }
 
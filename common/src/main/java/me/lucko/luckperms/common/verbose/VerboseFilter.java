@@ -25,11 +25,15 @@
 
 package me.lucko.luckperms.common.verbose;
 
+import me.lucko.luckperms.common.calculator.result.TristateResult;
+import me.lucko.luckperms.common.verbose.event.MetaCheckEvent;
+import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
 import me.lucko.luckperms.common.verbose.event.VerboseEvent;
 import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler;
 import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.AST;
 import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.LexerException;
 import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.ParserException;
+import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.VariableEvaluator;
 
 /**
  * Represents a verbose filter expression.
@@ -38,6 +42,10 @@ import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.Pa
  * evaluations should be relatively fast.</p>
  */
 public final class VerboseFilter {
+
+    /** Reusable evaluators, used to test checks before an event is created for them */
+    private static final ThreadLocal<CheckEvaluator> CHECK_EVALUATORS = ThreadLocal.withInitial(CheckEvaluator::new);
+
     private final String expression;
     private final AST ast;
 
@@ -77,6 +85,58 @@ public final class VerboseFilter {
         }
     }
 
+    /**
+     * Evaluates whether a permission check passes the filter, without
+     * creating an event for it.
+     *
+     * @param checkTarget the target of the check
+     * @param permission the permission which was checked for
+     * @param result the result of the check
+     * @return if the check passes the filter
+     */
+    public boolean evaluatePermissionCheck(VerboseCheckTarget checkTarget, String permission, TristateResult result) {
+        if (isBlank()) {
+            return true;
+        }
+
+        CheckEvaluator evaluator = CHECK_EVALUATORS.get();
+        evaluator.permissionCheck(checkTarget, permission, result);
+        try {
+            return this.ast.eval(evaluator);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            evaluator.clear();
+        }
+    }
+
+    /**
+     * Evaluates whether a meta check passes the filter, without
+     * creating an event for it.
+     *
+     * @param checkTarget the target of the check
+     * @param key the meta key which was checked for
+     * @param result the result of the check
+     * @return if the check passes the filter
+     */
+    public boolean evaluateMetaCheck(VerboseCheckTarget checkTarget, String key, String result) {
+        if (isBlank()) {
+            return true;
+        }
+
+        CheckEvaluator evaluator = CHECK_EVALUATORS.get();
+        evaluator.metaCheck(checkTarget, key, result);
+        try {
+            return this.ast.eval(evaluator);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            evaluator.clear();
+        }
+    }
+
     public boolean isBlank() {
         return this.ast == AST.ALWAYS_TRUE;
     }
@@ -85,4 +145,43 @@ public final class VerboseFilter {
     public String toString() {
         return isBlank() ? "any" : this.expression;
     }
+
+    /**
+     * A mutable {@link VariableEvaluator} for a single check, reused between
+     * evaluations on the same thread.
+     */
+    private static final class CheckEvaluator implements VariableEvaluator {
+        private VerboseCheckTarget checkTarget;
+        private String key;
+        private TristateResult permissionResult;
+        private String metaResult;
+
+        void permissionCheck(VerboseCheckTarget checkTarget, String permission, TristateResult result) {
+            this.checkTarget = checkTarget;
+            this.key = permission;
+            this.permissionResult = result;
+        }
+
+        void metaCheck(VerboseCheckTarget checkTarget, String key, String result) {
+            this.checkTarget = checkTarget;
+            this.key = key;
+            this.metaResult = result;
+        }
+
+        void clear() {
+            this.checkTarget = null;
+            this.key = null;
+            this.permissionResult = null;
+            this.metaResult = null;
+        }
+
+        @Override
+        public boolean eval(String variable) {
+            if (this.permissionResult != null) {
+                return PermissionCheckEvent.eval(variable, this.checkTarget, this.key, this.permissionResult);
+            } else {
+                return MetaCheckEvent.eval(variable, this.checkTarget, this.key, this.metaResult);
+            }
+        }
+    }
 }
@@ -35,22 +35,38 @@ import me.lucko.luckperms.common.verbose.event.VerboseEvent;
 
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Accepts {@link VerboseEvent}s and passes them onto registered {@link VerboseListener}s.
  */
 public class VerboseHandler implements AutoCloseable {
 
+    /** The maximum number of events which can be waiting to be handled */
+    private static final int QUEUE_CAPACITY = 10000;
+    /** How often a stack trace is captured for events which only match listeners that don't need every trace */
+    private static final int TRACE_SAMPLE_INTERVAL = 100;
+
     /** A map of currently registered listeners */
     private final Map<UUID, VerboseListener> listeners;
-    /** A queue of verbose events to be handled */
+    /** The filters of the currently registered listeners, those which need every trace first */
+    private volatile VerboseFilters filters = new VerboseFilters(new VerboseFilter[0], 0);
+    /** A bounded queue of verbose events to be handled */
     private final Queue<VerboseEvent> queue;
+    /** The number of events which didn't match any listener, since the last flush */
+    private final AtomicInteger unmatched = new AtomicInteger(0);
+    /** The number of events dropped because the queue was full, since the last flush */
+    private final AtomicInteger dropped = new AtomicInteger(0);
+    /** Counts events which are sampled for a stack trace */
+    private final AtomicInteger traceSamples = new AtomicInteger(0);
     /** If there are any listeners registered */
     private boolean listening = false;
     /** The tick task */
@@ -58,7 +74,7 @@ public class VerboseHandler implements AutoCloseable {
 
     public VerboseHandler(SchedulerAdapter scheduler) {
         this.listeners = new ConcurrentHashMap<>();
-        this.queue = new ConcurrentLinkedQueue<>();
+        this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
         this.task = scheduler.asyncRepeating(this::tick, 100, TimeUnit.MILLISECONDS);
     }
 
@@ -68,6 +84,10 @@ public class VerboseHandler implements AutoCloseable {
      * <p>The check data is added to a queue to be processed later, to avoid blocking
      * the main thread each time a permission check is made.</p>
      *
+     * <p>An event is only created if the check passes the filter of at least one
+     * listener. Its stack trace is captured if a listener which needs every trace
+     * matched, otherwise only for a sample of the events.</p>
+     *
      * @param origin the origin of the check
      * @param checkTarget the target of the permission check
      * @param checkQueryOptions the query options used for the check
@@ -80,12 +100,24 @@ public class VerboseHandler implements AutoCloseable {
             return;
         }
 
+        // if no listener is interested in the check, just count it
+        VerboseFilters filters = this.filters;
+        int match = -1;
+        for (int i = 0; i < filters.filters.length; i++) {
+            if (filters.filters[i].evaluatePermissionCheck(checkTarget, permission, result)) {
+                match = i;
+                break;
+            }
+        }
+        if (match == -1) {
+            this.unmatched.incrementAndGet();
+            return;
+        }
+
         long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
         String thread = Thread.currentThread().getName();
 
-        // add the check data to a queue to be processed later.
-        this.queue.offer(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, permission, result));
+        offer(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, thread, permission, result), filters.needsEveryTrace(match));
     }
 
     /**
@@ -94,6 +126,10 @@ public class VerboseHandler implements AutoCloseable {
      * <p>The check data is added to a queue to be processed later, to avoid blocking
      * the main thread each time a meta check is made.</p>
      *
+     * <p>An event is only created if the check passes the filter of at least one
+     * listener. Its stack trace is captured if a listener which needs every trace
+     * matched, otherwise only for a sample of the events.</p>
+     *
      * @param origin the origin of the check
      * @param checkTarget the target of the meta check
      * @param checkQueryOptions the query options used for the check
@@ -106,12 +142,50 @@ public class VerboseHandler implements AutoCloseable {
             return;
         }
 
+        // if no listener is interested in the check, just count it
+        VerboseFilters filters = this.filters;
+        int match = -1;
+        for (int i = 0; i < filters.filters.length; i++) {
+            if (filters.filters[i].evaluateMetaCheck(checkTarget, key, result)) {
+                match = i;
+                break;
+            }
+        }
+        if (match == -1) {
+            this.unmatched.incrementAndGet();
+            return;
+        }
+
         long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
         String thread = Thread.currentThread().getName();
 
+        offer(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, thread, key, result), filters.needsEveryTrace(match));
+    }
+
+    private void offer(VerboseEvent event, boolean needsTrace) {
+        // capturing the trace is expensive, so when recording every check without
+        // a filter, only capture it for a sample of the events
+        if (needsTrace || this.traceSamples.getAndIncrement() % TRACE_SAMPLE_INTERVAL == 0) {
+            event.captureTrace();
+        }
+
         // add the check data to a queue to be processed later.
-        this.queue.offer(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, key, result));
+        if (!this.queue.offer(event)) {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    private void updateFilters() {
+        List<VerboseFilter> filters = new ArrayList<>(this.listeners.size());
+        int everyTrace = 0;
+        for (VerboseListener listener : this.listeners.values()) {
+            if (listener.needsEveryTrace()) {
+                filters.add(everyTrace++, listener.getFilter());
+            } else {
+                filters.add(listener.getFilter());
+            }
+        }
+        this.filters = new VerboseFilters(filters.toArray(new VerboseFilter[0]), everyTrace);
     }
 
     /**
@@ -126,6 +200,7 @@ public class VerboseHandler implements AutoCloseable {
         flush();
 
         this.listeners.put(sender.getUniqueId(), new VerboseListener(sender, filter, notify));
+        updateFilters();
         this.listening = true;
     }
 
@@ -139,12 +214,16 @@ public class VerboseHandler implements AutoCloseable {
         // immediately flush, so the listener gets all current data
         flush();
 
-        return this.listeners.remove(sender.getUniqueId());
+        VerboseListener listener = this.listeners.remove(sender.getUniqueId());
+        updateFilters();
+        return listener;
     }
 
     private void tick() {
         // remove listeners where the sender is no longer valid
-        this.listeners.values().removeIf(l -> !l.getNotifiedSender().isValid());
+        if (this.listeners.values().removeIf(l -> !l.getNotifiedSender().isValid())) {
+            updateFilters();
+        }
 
         // handle all events in the queue
         flush();
@@ -162,6 +241,14 @@ public class VerboseHandler implements AutoCloseable {
                 listener.acceptEvent(e);
             }
         }
+
+        int unmatched = this.unmatched.getAndSet(0);
+        int dropped = this.dropped.getAndSet(0);
+        if (unmatched != 0 || dropped != 0) {
+            for (VerboseListener listener : this.listeners.values()) {
+                listener.acceptSkipped(unmatched, dropped);
+            }
+        }
     }
 
     @Override
@@ -169,4 +256,29 @@ public class VerboseHandler implements AutoCloseable {
         this.task.cancel();
     }
 
+    private static final class VerboseFilters {
+        private final VerboseFilter[] filters;
+
+        // the number of filters at the start of the array whose listeners need every trace
+        private final int everyTrace;
+
+        VerboseFilters(VerboseFilter[] filters, int everyTrace) {
+            this.filters = filters;
+            this.everyTrace = everyTrace;
+        }
+
+        /**
+         * Gets if a check should always have its trace captured, given the
+         * index of the first filter it matched.
+         *
+         * @param match the index of the first matching filter
+         * @return if the trace should be captured
+         */
+        boolean needsEveryTrace(int match) {
+            // filters which need every trace come first, so if the first match
+            // isn't one of them, none of the filters which need it matched
+            return match < this.everyTrace;
+        }
+    }
+
 }
@@ -112,6 +112,8 @@ public class VerboseListener {
     // the number of events we have processed and accepted, based on the filter rules for this
     // listener
     private final AtomicInteger matchedCounter = new AtomicInteger(0);
+    // the number of events which were dropped by the handler before we could process them
+    private final AtomicInteger droppedCounter = new AtomicInteger(0);
     // the events which passed the filter, up to a max size of #DATA_TRUNCATION
     private final List<VerboseEvent> results = new ArrayList<>(DATA_TRUNCATION / 10);
 
@@ -149,6 +151,17 @@ public class VerboseListener {
         }
     }
 
+    /**
+     * Accounts for events which were not passed to the listener.
+     *
+     * @param unmatched the number of events which didn't pass any listeners filter
+     * @param dropped the number of events which were dropped because the handler queue was full
+     */
+    public void acceptSkipped(int unmatched, int dropped) {
+        this.counter.addAndGet(unmatched + dropped);
+        this.droppedCounter.addAndGet(dropped);
+    }
+
     private void sendNotification(VerboseEvent event) {
         if (this.notifiedSender.isConsole()) {
             // just send as a raw message
@@ -293,6 +306,7 @@ public class VerboseListener {
                 .add("count", new JObject()
                         .add("matched", this.matchedCounter.get())
                         .add("total", this.counter.get())
+                        .add("dropped", this.droppedCounter.get())
                 )
                 .add("uploader", new JObject()
                         .add("name", this.notifiedSender.getNameWithLocation())
@@ -326,6 +340,22 @@ public class VerboseListener {
         return this.notifiedSender;
     }
 
+    public VerboseFilter getFilter() {
+        return this.filter;
+    }
+
+    /**
+     * Gets if this listener needs a stack trace for every check it matches.
+     *
+     * <p>Notified senders can see the trace of each check, and filtered listeners
+     * only match a small number of checks, so both get a trace every time.</p>
+     *
+     * @return if a trace should be captured for every matched check
+     */
+    public boolean needsEveryTrace() {
+        return this.notify || !this.filter.isBlank();
+    }
+
     public int getMatchedCount() {
         return this.matchedCounter.get();
     }
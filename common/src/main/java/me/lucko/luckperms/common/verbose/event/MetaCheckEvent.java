@@ -47,8 +47,8 @@ public class MetaCheckEvent extends VerboseEvent {
      */
     private final String result;
 
-    public MetaCheckEvent(Origin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread, String key, String result) {
-        super(checkTarget, checkQueryOptions, checkTime, checkTrace, checkThread);
+    public MetaCheckEvent(Origin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, String checkThread, String key, String result) {
+        super(checkTarget, checkQueryOptions, checkTime, checkThread);
         this.origin = origin;
         this.key = key;
         this.result = result;
@@ -76,10 +76,23 @@ public class MetaCheckEvent extends VerboseEvent {
 
     @Override
     public boolean eval(String variable) {
+        return eval(variable, getCheckTarget(), this.key, this.result);
+    }
+
+    /**
+     * Evaluates the value of a filter variable for a meta check.
+     *
+     * @param variable the variable
+     * @param checkTarget the target of the check
+     * @param key the meta key which was checked for
+     * @param result the result of the check
+     * @return the result
+     */
+    public static boolean eval(String variable, VerboseCheckTarget checkTarget, String key, String result) {
         return variable.equals("meta") ||
-                getCheckTarget().describe().equalsIgnoreCase(variable) ||
-                getKey().toLowerCase().startsWith(variable.toLowerCase()) ||
-                getResult().equalsIgnoreCase(variable);
+                checkTarget.describe().equalsIgnoreCase(variable) ||
+                key.regionMatches(true, 0, variable, 0, variable.length()) ||
+                result.equalsIgnoreCase(variable);
     }
 
     /**
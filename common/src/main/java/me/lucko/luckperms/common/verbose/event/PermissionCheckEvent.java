@@ -48,8 +48,8 @@ public class PermissionCheckEvent extends VerboseEvent {
      */
     private final TristateResult result;
 
-    public PermissionCheckEvent(Origin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread, String permission, TristateResult result) {
-        super(checkTarget, checkQueryOptions, checkTime, checkTrace, checkThread);
+    public PermissionCheckEvent(Origin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, String checkThread, String permission, TristateResult result) {
+        super(checkTarget, checkQueryOptions, checkTime, checkThread);
         this.origin = origin;
         this.permission = permission;
         this.result = result;
@@ -89,10 +89,23 @@ public class PermissionCheckEvent extends VerboseEvent {
 
     @Override
     public boolean eval(String variable) {
+        return eval(variable, getCheckTarget(), this.permission, this.result);
+    }
+
+    /**
+     * Evaluates the value of a filter variable for a permission check.
+     *
+     * @param variable the variable
+     * @param checkTarget the target of the check
+     * @param permission the permission which was checked for
+     * @param result the result of the check
+     * @return the result
+     */
+    public static boolean eval(String variable, VerboseCheckTarget checkTarget, String permission, TristateResult result) {
         return variable.equals("permission") ||
-                getCheckTarget().describe().equalsIgnoreCase(variable) ||
-                getPermission().toLowerCase().startsWith(variable.toLowerCase()) ||
-                getResult().result().name().equalsIgnoreCase(variable);
+                checkTarget.describe().equalsIgnoreCase(variable) ||
+                permission.regionMatches(true, 0, variable, 0, variable.length()) ||
+                result.result().name().equalsIgnoreCase(variable);
     }
 
     /**
@@ -44,6 +44,7 @@ import java.util.UUID;
  * Represents a verbose event.
  */
 public abstract class VerboseEvent implements VariableEvaluator {
+    private static final StackTraceElement[] EMPTY_TRACE = new StackTraceElement[0];
 
     /**
      * The name of the entity which was checked
@@ -61,23 +62,31 @@ public abstract class VerboseEvent implements VariableEvaluator {
     private final long checkTime;
 
     /**
-     * The throwable created when the check took place
+     * The throwable created when the check took place, or null if a trace wasn't captured
      */
-    private final Throwable checkTrace;
+    private Throwable checkTrace = null;
 
     /**
      * The name of the thread where the check took place
      */
     private final String checkThread;
 
-    protected VerboseEvent(VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread) {
+    protected VerboseEvent(VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, String checkThread) {
         this.checkTarget = checkTarget;
         this.checkQueryOptions = checkQueryOptions;
         this.checkTime = checkTime;
-        this.checkTrace = checkTrace;
         this.checkThread = checkThread;
     }
 
+    /**
+     * Captures the stack trace of the current thread for the event.
+     *
+     * <p>Must be called from the thread where the check took place.</p>
+     */
+    public void captureTrace() {
+        this.checkTrace = new Throwable();
+    }
+
     public VerboseCheckTarget getCheckTarget() {
         return this.checkTarget;
     }
@@ -91,7 +100,7 @@ public abstract class VerboseEvent implements VariableEvaluator {
     }
 
     public StackTraceElement[] getCheckTrace() {
-        return this.checkTrace.getStackTrace();
+        return this.checkTrace == null ? EMPTY_TRACE : this.checkTrace.getStackTrace();
     }
 
     public String getCheckThread() {
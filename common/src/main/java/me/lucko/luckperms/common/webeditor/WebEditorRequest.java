@@ -61,10 +61,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
 
@@ -250,17 +253,19 @@ public class WebEditorRequest {
                     .distinct();
         }
 
-        stream.filter(uuid -> !users.containsKey(uuid))
+        Set<UUID> toLoad = stream.filter(uuid -> !users.containsKey(uuid))
                 .sorted()
                 .limit(MAX_USERS - users.size())
-                .map(uuid -> plugin.getStorage().loadUser(uuid, null))
-                .forEach(fut -> {
-                    User user = fut.join();
-                    if (user != null) {
-                        users.put(user.getUniqueId(), user);
-                        plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
-                    }
-                });
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<UUID, User> loaded = plugin.getStorage().loadUsers(toLoad).join();
+        for (UUID uuid : toLoad) {
+            User user = loaded.get(uuid);
+            if (user != null) {
+                users.put(user.getUniqueId(), user);
+                plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
+            }
+        }
     }
 
 }
@@ -0,0 +1,122 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.actionlog;
+
+import com.google.common.collect.ImmutableList;
+
+import net.luckperms.api.actionlog.Action;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogPageTest {
+    private static final UUID SOURCE = UUID.randomUUID();
+
+    private static LoggedAction action(int timestamp, String group, String description) {
+        return LoggedAction.build()
+                .timestamp(Instant.ofEpochSecond(timestamp))
+                .source(SOURCE)
+                .sourceName("Luck")
+                .targetType(Action.Target.Type.GROUP)
+                .targetName(group)
+                .description(description)
+                .build();
+    }
+
+    private static List<LoggedAction> log() {
+        List<LoggedAction> log = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            log.add(action(i, "default", "permission set test." + i));
+        }
+        log.add(action(6, "admin", "permission set test.6"));
+        return log;
+    }
+
+    @Test
+    void testPages() {
+        LogPage first = LogPage.of(log(), ActionFilter.any(), LogPage.Parameters.page(1, 4));
+        assertEquals(6, first.getTotalEntries());
+        assertEquals(2, first.getMaxPages());
+        assertEquals(1, first.getPageNumber());
+        assertEquals(4, first.getContent().size());
+        assertEquals(1, first.getNumberedContent().get(0).position());
+
+        LogPage last = LogPage.of(log(), ActionFilter.any(), LogPage.Parameters.lastPage(4));
+        assertEquals(2, last.getPageNumber());
+        assertEquals(2, last.getContent().size());
+        assertEquals(5, last.getNumberedContent().get(0).position());
+        assertEquals(6, last.getNumberedContent().get(1).position());
+    }
+
+    @Test
+    void testOutOfRange() {
+        assertTrue(LogPage.of(log(), ActionFilter.any(), LogPage.Parameters.page(3, 4)).getContent().isEmpty());
+        assertTrue(LogPage.of(log(), ActionFilter.any(), LogPage.Parameters.page(0, 4)).getContent().isEmpty());
+
+        LogPage empty = LogPage.of(ImmutableList.of(), ActionFilter.any(), LogPage.Parameters.lastPage(4));
+        assertEquals(0, empty.getMaxPages());
+        assertTrue(empty.getContent().isEmpty());
+    }
+
+    @Test
+    void testFilters() {
+        assertEquals(5, LogPage.of(log(), ActionFilter.group("default"), LogPage.Parameters.lastPage(10)).getTotalEntries());
+        assertEquals(1, LogPage.of(log(), ActionFilter.search("TEST.6"), LogPage.Parameters.lastPage(10)).getTotalEntries());
+        assertEquals(0, LogPage.of(log(), ActionFilter.track("default"), LogPage.Parameters.lastPage(10)).getTotalEntries());
+
+        ActionFilter range = ActionFilter.source(SOURCE).between(Instant.ofEpochSecond(2), Instant.ofEpochSecond(4));
+        LogPage page = LogPage.of(log(), range, LogPage.Parameters.lastPage(10));
+        assertEquals(2, page.getTotalEntries());
+        assertEquals(Instant.ofEpochSecond(2), page.getContent().get(0).getTimestamp());
+    }
+
+    @Test
+    void testFromNewest() {
+        LogPage.Parameters first = LogPage.Parameters.page(1, 4);
+        assertEquals(2, first.resolveOffsetFromNewest(6));
+        assertEquals(4, first.resolveLength(6));
+
+        LogPage.Parameters last = LogPage.Parameters.lastPage(4);
+        assertEquals(0, last.resolveOffsetFromNewest(6));
+        assertEquals(2, last.resolveLength(6));
+        assertEquals(-1, LogPage.Parameters.page(3, 4).resolveOffsetFromNewest(6));
+
+        // duplicates within the page are removed, and the page is returned oldest first
+        List<LoggedAction> newestFirst = ImmutableList.of(action(6, "admin", "a"), action(5, "default", "b"), action(5, "default", "b"));
+        LogPage page = LogPage.fromNewest(newestFirst, last, 6);
+        assertEquals(2, page.getContent().size());
+        assertEquals(Instant.ofEpochSecond(5), page.getContent().get(0).getTimestamp());
+        assertEquals(Instant.ofEpochSecond(6), page.getContent().get(1).getTimestamp());
+    }
+
+}
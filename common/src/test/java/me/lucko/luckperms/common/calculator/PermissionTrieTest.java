@@ -0,0 +1,141 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import me.lucko.luckperms.common.calculator.processor.AbstractPermissionProcessor;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.calculator.result.TristateResult;
+
+import net.luckperms.api.util.Tristate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PermissionTrieTest {
+
+    private static final Map<String, Boolean> SOURCE = ImmutableMap.<String, Boolean>builder()
+            .put("essentials.home", true)
+            .put("essentials.home.other", false)
+            .put("essentials.*", true)
+            .put("essentials.warp.*", false)
+            .put("worldedit", true)
+            .put("a..b", true)
+            .put("a..*", false)
+            .put(".x", true)
+            .build();
+
+    private static final String[] PERMISSIONS = {
+            "essentials.home", "essentials.home.other", "essentials.home.other.x", "essentials.warp",
+            "essentials.warp.spawn", "essentials.warp.*", "essentials", "worldedit.wand", "worldedit",
+            "a..b", "a..c", "a.b", ".x", ".x.y", ".", "", "unknown", "unknown.essentials.home"
+    };
+
+    private static void assertSame(AbstractPermissionProcessor processor, PermissionTrie trie) {
+        processor.setSource(SOURCE);
+        processor.refresh();
+
+        for (String permission : PERMISSIONS) {
+            TristateResult expected = processor.hasPermission(permission);
+            TristateResult actual = processor.hasPermission(permission, trie.walk(permission));
+            assertEquals(expected.result(), actual.result(), permission);
+            assertEquals(expected.cause(), actual.cause(), permission);
+        }
+    }
+
+    @Test
+    void testMatchesProcessors() {
+        PermissionTrie trie = PermissionTrie.compile(SOURCE);
+        assertSame(new DirectProcessor(), trie);
+        assertSame(new WildcardProcessor(), trie);
+        assertSame(new SpongeWildcardProcessor(), trie);
+    }
+
+    @Test
+    void testWalk() {
+        PermissionTrie trie = PermissionTrie.compile(SOURCE);
+
+        PermissionTrie.Walk walk = trie.walk("essentials.warp.spawn");
+        assertEquals(Tristate.UNDEFINED, walk.direct());
+        assertEquals("essentials.warp", walk.wildcardMatch());
+        assertEquals(Tristate.FALSE, walk.wildcardValue());
+        assertNull(walk.prefixMatch());
+
+        walk = trie.walk("essentials.home.other");
+        assertEquals(Tristate.FALSE, walk.direct());
+        assertEquals("essentials", walk.wildcardMatch());
+        assertEquals("essentials.home", walk.prefixMatch());
+        assertEquals(Tristate.TRUE, walk.prefixValue());
+
+        walk = PermissionTrie.EMPTY.walk("essentials.home");
+        assertEquals(Tristate.UNDEFINED, walk.direct());
+        assertNull(walk.wildcardMatch());
+        assertNull(walk.prefixMatch());
+    }
+
+    private static void assertSameWalks(PermissionTrie expected, PermissionTrie actual) {
+        for (String permission : PERMISSIONS) {
+            PermissionTrie.Walk expectedWalk = expected.walk(permission);
+            PermissionTrie.Walk actualWalk = actual.walk(permission);
+            assertEquals(expectedWalk.direct(), actualWalk.direct(), permission);
+            assertEquals(expectedWalk.wildcardMatch(), actualWalk.wildcardMatch(), permission);
+            assertEquals(expectedWalk.wildcardValue(), actualWalk.wildcardValue(), permission);
+            assertEquals(expectedWalk.prefixMatch(), actualWalk.prefixMatch(), permission);
+            assertEquals(expectedWalk.prefixValue(), actualWalk.prefixValue(), permission);
+        }
+    }
+
+    @Test
+    void testUpdate() {
+        Map<String, Boolean> source = new HashMap<>(SOURCE);
+        source.remove("essentials.*");
+        source.put("essentials.home", false);
+        source.put("worldedit.wand", true);
+
+        // apply the differences to a trie compiled from the modified map
+        PermissionTrie trie = PermissionTrie.compile(source);
+        trie = trie.update(SOURCE, ImmutableSet.of("essentials.*", "essentials.home", "worldedit.wand"));
+        assertSameWalks(PermissionTrie.compile(SOURCE), trie);
+
+        // removing every entry leaves nothing to match
+        trie = trie.update(ImmutableMap.of(), SOURCE.keySet());
+        assertSameWalks(PermissionTrie.EMPTY, trie);
+
+        // updates which don't change anything return the same instance
+        assertTrue(trie == trie.update(ImmutableMap.of(), ImmutableSet.of("unknown")));
+    }
+
+}
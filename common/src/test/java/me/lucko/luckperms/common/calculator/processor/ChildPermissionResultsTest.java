@@ -0,0 +1,146 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.common.calculator.result.TristateResult;
+
+import net.luckperms.api.util.Tristate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChildPermissionResultsTest {
+    private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(DirectProcessor.class);
+
+    private static final Map<String, Map<String, Boolean>> CHILDREN = ImmutableMap.of(
+            "kit.*", ImmutableMap.of("kit.a", true, "kit.b", true, "kit.c", true),
+            "kit.vip", ImmutableMap.of("kit.b", false)
+    );
+
+    private static Map<String, Boolean> resolve(String permission, boolean value) {
+        Map<String, Boolean> children = CHILDREN.getOrDefault(permission, ImmutableMap.of());
+        if (value) {
+            return children;
+        }
+
+        Map<String, Boolean> inverted = new LinkedHashMap<>();
+        children.forEach((k, v) -> inverted.put(k, !v));
+        return inverted;
+    }
+
+    private static final class TestProcessor extends AbstractChildProcessor {
+        private final ChildPermissionResults results;
+
+        TestProcessor(ChildPermissionResults results) {
+            this.results = results;
+        }
+
+        @Override
+        protected ChildPermissionResults getChildPermissionResults() {
+            return this.results;
+        }
+    }
+
+    @Test
+    void testResults() {
+        ChildPermissionResults results = new ChildPermissionResults(RESULT_FACTORY, ChildPermissionResultsTest::resolve);
+
+        Map<String, TristateResult> children = results.get("kit.*", true);
+        assertEquals(ImmutableList.of("kit.a", "kit.b", "kit.c"), ImmutableList.copyOf(children.keySet()));
+        assertEquals(Tristate.TRUE, children.get("kit.a").result());
+        assertEquals("parent: kit.*", children.get("kit.a").cause());
+        assertEquals(Tristate.FALSE, results.get("kit.*", false).get("kit.a").result());
+
+        // the results are shared until the cache is invalidated
+        assertSame(children, results.get("kit.*", true));
+        assertTrue(results.get("unknown", true).isEmpty());
+    }
+
+    @Test
+    void testMergeOrder() {
+        ChildPermissionResults results = new ChildPermissionResults(RESULT_FACTORY, ChildPermissionResultsTest::resolve);
+
+        // children of later source permissions take priority
+        Map<String, Boolean> source = new LinkedHashMap<>();
+        source.put("kit.*", true);
+        source.put("kit.vip", true);
+
+        TestProcessor processor = new TestProcessor(results);
+        processor.setSource(source);
+        processor.refresh();
+        assertEquals(Tristate.TRUE, processor.hasPermission("kit.a").result());
+        assertEquals(Tristate.FALSE, processor.hasPermission("kit.b").result());
+        assertEquals("parent: kit.vip", processor.hasPermission("kit.b").cause());
+
+        // a single source permission with children uses the shared results directly
+        source.remove("kit.vip");
+        processor.refresh();
+        assertEquals(Tristate.TRUE, processor.hasPermission("kit.b").result());
+    }
+
+    @Test
+    void testInvalidate() {
+        AtomicInteger resolved = new AtomicInteger();
+        ChildPermissionResults results = new ChildPermissionResults(RESULT_FACTORY, (permission, value) -> {
+            resolved.incrementAndGet();
+            return resolve(permission, value);
+        });
+
+        Map<String, TristateResult> children = results.get("kit.*", true);
+        int version = results.getVersion();
+
+        results.invalidate();
+        assertEquals(version + 1, results.getVersion());
+        assertNotSame(children, results.get("kit.*", true));
+        assertEquals(2, resolved.get());
+
+        // processors only refresh if the version has changed since they last did
+        TestProcessor processor = new TestProcessor(results);
+        processor.setSource(ImmutableMap.of("kit.vip", true));
+        processor.refresh();
+        assertEquals(Tristate.FALSE, processor.hasPermission("kit.b").result());
+
+        // source changes are picked up by refresh(), which the calculator always calls
+        processor.setSource(ImmutableMap.of("kit.*", true));
+        processor.invalidate();
+        assertEquals(Tristate.FALSE, processor.hasPermission("kit.b").result());
+
+        results.invalidate();
+        processor.invalidate();
+        assertEquals(Tristate.TRUE, processor.hasPermission("kit.b").result());
+    }
+}
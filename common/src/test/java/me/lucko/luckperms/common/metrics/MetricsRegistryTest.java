@@ -0,0 +1,111 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testTimerBuckets() {
+        Timer timer = new Timer();
+        timer.record(TimeUnit.MICROSECONDS.toNanos(5));
+        timer.record(TimeUnit.MICROSECONDS.toNanos(10));
+        timer.record(TimeUnit.MILLISECONDS.toNanos(2));
+        timer.record(TimeUnit.SECONDS.toNanos(10));
+
+        assertEquals(4, timer.getCount());
+        assertEquals(TimeUnit.SECONDS.toNanos(10), timer.getMaxNanos());
+        assertArrayEquals(new long[]{2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 3, 4}, timer.getCumulativeBuckets());
+    }
+
+    @Test
+    public void testTimerPercentiles() {
+        Timer timer = new Timer();
+        assertEquals(0, timer.getPercentile(0.5));
+
+        // 0.1ms to 10ms, in 0.1ms steps
+        for (int i = 1; i <= 100; i++) {
+            timer.record(TimeUnit.MICROSECONDS.toNanos(100) * i);
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), timer.getPercentile(0.5));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(9500), timer.getPercentile(0.95));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), timer.getPercentile(1));
+    }
+
+    @Test
+    public void testGauge() {
+        Gauge gauge = new Gauge();
+        gauge.increment();
+        gauge.increment();
+        gauge.decrement();
+
+        assertEquals(1, gauge.getValue());
+        assertEquals(2, gauge.getPeak());
+    }
+
+    @Test
+    public void testPermissionChecks() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordPermissionCheck(PermissionCheckEvent.Origin.PLATFORM_PERMISSION_CHECK);
+        registry.recordPermissionCheck(PermissionCheckEvent.Origin.PLATFORM_PERMISSION_CHECK);
+        registry.recordPermissionCheck(PermissionCheckEvent.Origin.INTERNAL);
+        registry.recordPermissionCacheMiss();
+        registry.recordPermissionCacheEviction();
+
+        assertEquals(3, registry.getPermissionChecks());
+        assertEquals(1, registry.getPermissionCacheMisses());
+        assertEquals(1, registry.getPermissionCacheEvictions());
+    }
+
+    @Test
+    public void testPrometheusFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordPermissionCheck(PermissionCheckEvent.Origin.INTERNAL);
+        registry.recordMessageSent("update");
+        registry.recordStorageCall("loadUser", System.nanoTime(), false);
+
+        String text = PrometheusFormat.write(registry);
+        assertTrue(text.contains("# TYPE luckperms_permission_checks_total counter\n"));
+        assertTrue(text.contains("luckperms_permission_checks_total{origin=\"internal\"} 1\n"));
+        assertTrue(text.contains("luckperms_messages_sent_total{type=\"update\"} 1\n"));
+        assertTrue(text.contains("# TYPE luckperms_storage_call_seconds histogram\n"));
+        assertTrue(text.contains("luckperms_storage_call_seconds_bucket{method=\"loadUser\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("luckperms_storage_call_seconds_count{method=\"loadUser\"} 1\n"));
+        assertTrue(text.contains("luckperms_storage_call_errors_total{method=\"loadUser\"} 1\n"));
+        assertTrue(text.contains("luckperms_permission_check_cache_misses_total 0\n"));
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.model;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExpiryIndexTest {
+
+    @Test
+    void testPollsInExpiryOrder() {
+        ExpiryIndex<String> index = new ExpiryIndex<>();
+        index.schedule("b", 20);
+        index.schedule("a", 10);
+        index.schedule("c", 30);
+
+        assertTrue(index.pollExpired(10).isEmpty());
+        assertEquals(ImmutableList.of("a", "b"), index.pollExpired(21));
+        assertTrue(index.pollExpired(21).isEmpty());
+        assertEquals(ImmutableList.of("c"), index.pollExpired(31));
+    }
+
+    @Test
+    void testKeepsLaterTimesAfterPoll() {
+        ExpiryIndex<String> index = new ExpiryIndex<>();
+        index.schedule("a", 10);
+        index.schedule("a", 20);
+
+        assertEquals(ImmutableList.of("a"), index.pollExpired(11));
+        assertEquals(ImmutableList.of("a"), index.pollExpired(21));
+        assertTrue(index.pollExpired(100).isEmpty());
+    }
+
+    @Test
+    void testReturnsHolderOnce() {
+        ExpiryIndex<String> index = new ExpiryIndex<>();
+        index.schedule("a", 10);
+        index.schedule("a", 10);
+        index.schedule("a", 15);
+
+        assertEquals(ImmutableList.of("a"), index.pollExpired(20));
+        assertTrue(index.pollExpired(20).isEmpty());
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadCoalescerTest {
+
+    /**
+     * Holds submitted loads until they are run manually.
+     */
+    private static final class ManualSubmitter {
+        private final List<Runnable> queue = new ArrayList<>();
+
+        <T> CompletableFuture<T> submit(Callable<T> callable) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            this.queue.add(() -> {
+                try {
+                    future.complete(callable.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        }
+
+        void runNext() {
+            this.queue.remove(0).run();
+        }
+    }
+
+    @Test
+    void testSharesPendingLoad() {
+        LoadCoalescer<String, Void, Integer> coalescer = new LoadCoalescer<>();
+        ManualSubmitter submitter = new ManualSubmitter();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<Integer> first = coalescer.load("a", null, submitter::submit, x -> calls.incrementAndGet());
+        CompletableFuture<Integer> second = coalescer.load("a", null, submitter::submit, x -> calls.incrementAndGet());
+        assertSame(first, second);
+        assertEquals(1, coalescer.getCoalescedLoads());
+
+        submitter.runNext();
+        assertEquals(1, calls.get());
+        assertEquals(1, (int) first.join());
+    }
+
+    @Test
+    void testDoesNotShareStartedLoad() {
+        LoadCoalescer<String, Void, Integer> coalescer = new LoadCoalescer<>();
+        ManualSubmitter submitter = new ManualSubmitter();
+        AtomicInteger calls = new AtomicInteger();
+        List<CompletableFuture<Integer>> later = new ArrayList<>();
+
+        // a caller arriving whilst the first load is executing must not receive its result
+        CompletableFuture<Integer> first = coalescer.load("a", null, submitter::submit, x -> {
+            later.add(coalescer.load("a", null, submitter::submit, y -> calls.incrementAndGet()));
+            return calls.incrementAndGet();
+        });
+
+        submitter.runNext();
+        assertEquals(1, (int) first.join());
+        assertNotSame(first, later.get(0));
+        assertEquals(0, coalescer.getCoalescedLoads());
+
+        submitter.runNext();
+        assertEquals(2, (int) later.get(0).join());
+    }
+
+    @Test
+    void testMergesArguments() {
+        LoadCoalescer<String, String, String> coalescer = new LoadCoalescer<>((current, joining) -> current != null ? current : joining);
+        ManualSubmitter submitter = new ManualSubmitter();
+
+        CompletableFuture<String> first = coalescer.load("a", null, submitter::submit, name -> name);
+        CompletableFuture<String> second = coalescer.load("a", "Luck", submitter::submit, name -> name);
+        assertSame(first, second);
+
+        submitter.runNext();
+        assertEquals("Luck", first.join());
+    }
+
+    @Test
+    void testFailedSubmit() {
+        LoadCoalescer<String, Void, Integer> coalescer = new LoadCoalescer<>();
+        ManualSubmitter submitter = new ManualSubmitter();
+
+        CompletableFuture<Integer> failed = coalescer.load("a", null, callable -> {
+            throw new RejectedExecutionException();
+        }, x -> 1);
+        assertTrue(failed.isCompletedExceptionally());
+
+        // later callers shouldn't join the load which was never submitted
+        CompletableFuture<Integer> next = coalescer.load("a", null, submitter::submit, x -> 2);
+        assertNotSame(failed, next);
+        submitter.runNext();
+        assertEquals(2, (int) next.join());
+    }
+}
@@ -29,8 +29,10 @@ import com.google.common.collect.ForwardingMap;
 import com.google.common.collect.ImmutableMap;
 
 import me.lucko.luckperms.common.cache.LoadingMap;
+import me.lucko.luckperms.common.calculator.processor.ChildPermissionResults;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.treeview.PermissionRegistry;
+import me.lucko.luckperms.nukkit.calculator.ChildProcessor;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -77,6 +79,9 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
     private final Map<String, Map<String, Boolean>> trueChildPermissions = LoadingMap.of(new ChildPermissionResolver(true));
     private final Map<String, Map<String, Boolean>> falseChildPermissions = LoadingMap.of(new ChildPermissionResolver(false));
 
+    // cache from permission --> children, as processor results. shared between all users
+    private final ChildPermissionResults childPermissionResults = new ChildPermissionResults(ChildProcessor.RESULT_FACTORY, this::getChildPermissions);
+
     /**
      * The plugin instance
      */
@@ -91,9 +96,14 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
         return value ? this.trueChildPermissions.get(permission) : this.falseChildPermissions.get(permission);
     }
 
+    public ChildPermissionResults getChildPermissionResults() {
+        return this.childPermissionResults;
+    }
+
     private void update() {
         this.trueChildPermissions.clear();
         this.falseChildPermissions.clear();
+        this.childPermissionResults.invalidate();
         this.plugin.getUserManager().invalidateAllPermissionCalculators();
         this.plugin.getGroupManager().invalidateAllPermissionCalculators();
     }
@@ -128,12 +138,20 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
         if (object == null) {
             return null;
         }
-        return uninject(super.remove(object));
+        Permission ret = uninject(super.remove(object));
+        if (ret != null) {
+            update();
+        }
+        return ret;
     }
 
     @Override
     public boolean remove(Object key, Object value) {
-        return key != null && value != null && super.remove(key, uninject((Permission) value));
+        if (key == null || value == null || !super.remove(key, uninject((Permission) value))) {
+            return false;
+        }
+        update();
+        return true;
     }
 
     // check for null
@@ -26,9 +26,12 @@
 package me.lucko.luckperms.sponge.model;
 
 import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.nodemap.MutateResult;
 import me.lucko.luckperms.sponge.LPSpongePlugin;
 import me.lucko.luckperms.sponge.service.model.permissionholder.GroupSubject;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 public class SpongeGroup extends Group implements SpongePermissionHolder {
     private final GroupSubject spongeData;
 
@@ -38,8 +41,8 @@ public class SpongeGroup extends Group implements SpongePermissionHolder {
     }
 
     @Override
-    protected void invalidateCache() {
-        super.invalidateCache();
+    protected void invalidateCache(@Nullable MutateResult changes) {
+        super.invalidateCache(changes);
         this.spongeData.fireUpdateEvent();
     }
 
@@ -26,10 +26,13 @@
 package me.lucko.luckperms.sponge.model;
 
 import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.nodemap.MutateResult;
 import me.lucko.luckperms.sponge.LPSpongePlugin;
 import me.lucko.luckperms.sponge.service.model.LPSubject;
 import me.lucko.luckperms.sponge.service.model.permissionholder.UserSubject;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import java.util.UUID;
 
 /**
@@ -44,8 +47,8 @@ public class SpongeUser extends User implements SpongePermissionHolder {
     }
 
     @Override
-    protected void invalidateCache() {
-        super.invalidateCache();
+    protected void invalidateCache(@Nullable MutateResult changes) {
+        super.invalidateCache(changes);
         this.spongeData.fireUpdateEvent();
     }
 